@@ -0,0 +1,20 @@
+package de.unistuttgart.iste.meitrex.reward.config;
+
+import io.dapr.client.DaprClient;
+import io.dapr.client.DaprClientBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the client to publish events to the Dapr sidecar.
+ */
+@Configuration
+public class DaprConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("'${reward.cache.invalidation.broker:dapr}' == 'dapr' or '${reward.outbox.publisher:dapr}' == 'dapr'")
+    public DaprClient daprClient() {
+        return new DaprClientBuilder().build();
+    }
+}
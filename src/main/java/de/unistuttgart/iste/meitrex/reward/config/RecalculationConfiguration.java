@@ -0,0 +1,66 @@
+package de.unistuttgart.iste.meitrex.reward.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Provides the executors that run recalculation jobs and other calculations of the reward scores in the background.
+ */
+@Configuration
+public class RecalculationConfiguration {
+
+    /**
+     * @param parallelism the number of shards processed in parallel
+     * @return the executor that runs the workers processing the shards of the nightly recalculation
+     */
+    @Bean
+    public ThreadPoolTaskExecutor recalculationExecutor(
+            @Value("${reward.recalculation.parallelism}") final int parallelism) {
+        return createExecutor(parallelism, "recalculation-");
+    }
+
+    /**
+     * Separate from the {@link #recalculationExecutor(int)}, so that jobs started by administrators
+     * do not have to wait for the nightly recalculation.
+     *
+     * @param parallelism the number of partitions of a job processed in parallel
+     * @return the executor that runs the course recalculation jobs
+     */
+    @Bean
+    public ThreadPoolTaskExecutor courseRecalculationExecutor(
+            @Value("${reward.recalculation.course_job.parallelism}") final int parallelism) {
+        return createExecutor(parallelism, "course-recalculation-");
+    }
+
+    /**
+     * Separate from the scheduler, so that the recalculations fired by the timer wheel do not block
+     * the other scheduled jobs.
+     *
+     * @param parallelism the number of recalculations performed in parallel
+     * @return the executor that performs the recalculations fired by the timer wheel
+     */
+    @Bean
+    public ThreadPoolTaskExecutor decayTimerExecutor(
+            @Value("${reward.recalculation.timer.parallelism}") final int parallelism) {
+        return createExecutor(parallelism, "decay-timer-");
+    }
+
+    /**
+     * @return the executor that initializes the reward scores of users that were read before they existed
+     */
+    @Bean
+    public ThreadPoolTaskExecutor initializationExecutor() {
+        return createExecutor(2, "reward-initialization-");
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor(final int poolSize, final String threadNamePrefix) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,23 @@
+package de.unistuttgart.iste.meitrex.reward.controller;
+
+import de.unistuttgart.iste.meitrex.reward.service.statistics.CourseRewardStatisticsService;
+import de.unistuttgart.iste.meitrex.reward.service.statistics.ScoreValue;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registers the DataLoader that loads the percentile ranks of all reward scores requested in a GraphQL request
+ * with a single call of {@link CourseRewardStatisticsService#getPercentileRanks(java.util.Collection)}, so that
+ * the statistics of each course are read only once.
+ */
+@Component
+public class PercentileRankBatchLoader {
+
+    public PercentileRankBatchLoader(final BatchLoaderRegistry batchLoaderRegistry,
+                                     final CourseRewardStatisticsService courseRewardStatisticsService) {
+        batchLoaderRegistry.forTypePair(ScoreValue.class, Double.class)
+                .registerMappedBatchLoader((scoreValues, environment) ->
+                        Mono.fromCallable(() -> courseRewardStatisticsService.getPercentileRanks(scoreValues)));
+    }
+}
@@ -0,0 +1,32 @@
+package de.unistuttgart.iste.meitrex.reward.controller;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RecalculationRunRepository;
+import de.unistuttgart.iste.meitrex.reward.service.recalculation.RecalculationProgress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Actuator endpoint reporting the progress of the most recent nightly recalculation run,
+ * available at {@code /actuator/recalculation}.
+ */
+@Component
+@Endpoint(id = "recalculation")
+@RequiredArgsConstructor
+public class RecalculationProgressEndpoint {
+
+    private final RecalculationRunRepository recalculationRunRepository;
+
+    /**
+     * @return the progress of the most recent run, or {@code null} (404) if there was no run yet
+     */
+    @ReadOperation
+    public RecalculationProgress progress() {
+        return recalculationRunRepository.findFirstByOrderByStartedAtDesc()
+                .map(run -> RecalculationProgress.of(run, OffsetDateTime.now()))
+                .orElse(null);
+    }
+}
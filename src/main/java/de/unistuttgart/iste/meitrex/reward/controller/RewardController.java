@@ -1,35 +1,113 @@
 package de.unistuttgart.iste.meitrex.reward.controller;
 
+import de.unistuttgart.iste.meitrex.common.exception.NoAccessToCourseException;
 import de.unistuttgart.iste.meitrex.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.meitrex.common.user_handling.UserCourseAccessValidator;
-import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
-import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardItem;
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.RewardScoreHistoryService;
 import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.live.LiveRewardScoresService;
+import de.unistuttgart.iste.meitrex.reward.service.recalculation.CourseRecalculationService;
+import de.unistuttgart.iste.meitrex.reward.service.snapshot.LeaderboardSnapshotService;
+import de.unistuttgart.iste.meitrex.reward.service.statistics.CourseRewardStatisticsService;
+import de.unistuttgart.iste.meitrex.reward.service.statistics.ScoreValue;
+import graphql.GraphQLContext;
+import graphql.execution.DataFetcherResult;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.*;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Controller
 @RequiredArgsConstructor
 public class RewardController {
 
+    /**
+     * The key of the course id in the local context of the returned {@link RewardScores}, which the percentile rank
+     * of each {@link RewardScore} is read for.
+     */
+    private static final String COURSE_ID = "courseId";
+
     private final RewardService rewardService;
+    private final CourseRecalculationService courseRecalculationService;
+    private final RewardScoreHistoryService rewardScoreHistoryService;
+    private final LiveRewardScoresService liveRewardScoresService;
+    private final CourseRewardStatisticsService courseRewardStatisticsService;
+    private final LeaderboardSnapshotService leaderboardSnapshotService;
 
     @QueryMapping
-    public RewardScores userCourseRewardScores(@Argument final UUID courseId, @ContextValue final LoggedInUser currentUser) {
+    public DataFetcherResult<RewardScores> userCourseRewardScores(@Argument final UUID courseId,
+                                                                  @ContextValue final LoggedInUser currentUser) {
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
-        return rewardService.getRewardScores(courseId, currentUser.getId());
+        return withCourseId(courseId, rewardService.getRewardScores(courseId, currentUser.getId()));
+    }
+
+    @QueryMapping
+    public List<CourseRewardScores> myRewardScores(@ContextValue final LoggedInUser currentUser,
+                                                   final DataFetchingFieldSelectionSet selectionSet) {
+        final List<UUID> courseIds = currentUser.getCourseMemberships().stream()
+                .map(LoggedInUser.CourseMembership::getCourseId)
+                .filter(courseId -> hasAccessToCourse(currentUser, courseId))
+                .distinct()
+                .toList();
+        return rewardService.getRewardScoresOfUser(currentUser.getId(), courseIds,
+                selectionSet.contains("rewardScores/*/log"));
+    }
+
+    @SchemaMapping(typeName = "CourseRewardScores", field = "rewardScores")
+    public DataFetcherResult<RewardScores> rewardScores(final CourseRewardScores courseRewardScores) {
+        return withCourseId(courseRewardScores.getCourseId(), courseRewardScores.getRewardScores());
     }
 
     @QueryMapping
-    public RewardScores courseRewardScoresForUser(@Argument final UUID courseId, @Argument final UUID userId, @ContextValue final LoggedInUser currentUser) {
+    public DataFetcherResult<RewardScores> courseRewardScoresForUser(@Argument final UUID courseId, @Argument final UUID userId,
+                                                                     @ContextValue final LoggedInUser currentUser) {
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, courseId);
-        return rewardService.getRewardScores(courseId, userId);
+        return withCourseId(courseId, rewardService.getRewardScores(courseId, userId));
+    }
+
+    @QueryMapping
+    public CompletableFuture<DataFetcherResult<List<RewardScores>>> courseRewardScoresForUsers(@Argument final UUID courseId,
+                                                                                              @Argument final List<UUID> userIds,
+                                                                                              @ContextValue final LoggedInUser currentUser,
+                                                                                              final DataLoader<AllRewardScoresEntity.PrimaryKey, RewardScores> rewardScoresLoader) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, courseId);
+        return rewardScoresLoader.loadMany(userIds.stream()
+                        .map(userId -> new AllRewardScoresEntity.PrimaryKey(courseId, userId))
+                        .toList())
+                .thenApply(rewardScores -> withCourseId(courseId, rewardScores));
+    }
+
+    /**
+     * Resolves the percentile rank of a reward score in the course from the local context. The percentile ranks of
+     * all reward scores in the request are loaded together, so the statistics of each course are read only once.
+     * The type of the reward score is the name of the field of {@link RewardScores} it was selected in.
+     */
+    @SchemaMapping(typeName = "RewardScore", field = "percentileRank")
+    public CompletableFuture<Double> percentileRank(final RewardScore rewardScore,
+                                                    @LocalContextValue(name = COURSE_ID, required = false) final UUID courseId,
+                                                    final DataFetchingEnvironment environment,
+                                                    final DataLoader<ScoreValue, Double> percentileRankLoader) {
+        if (courseId == null) {
+            // reward scores that were not returned with the id of their course
+            return CompletableFuture.completedFuture(null);
+        }
+        final String scoreField = environment.getExecutionStepInfo().getParent().getFieldDefinition().getName();
+        final RewardScoreType scoreType = RewardScoreType.valueOf(scoreField.toUpperCase(Locale.ROOT));
+        return percentileRankLoader.load(new ScoreValue(courseId, scoreType, rewardScore.getValue()));
     }
 
     @QueryMapping
@@ -38,9 +116,78 @@ public class RewardController {
         return rewardService.getScoreboard(courseId);
     }
 
+    @QueryMapping
+    public List<RewardScoreHistoryItem> rewardScoreHistory(@Argument final UUID courseId,
+                                                           @Argument final RewardScoreType scoreType,
+                                                           @Argument final OffsetDateTime from,
+                                                           @Argument final OffsetDateTime to,
+                                                           @Argument final RewardScoreHistoryBucket bucket,
+                                                           @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
+        return rewardScoreHistoryService.getRewardScoreHistory(courseId, currentUser.getId(), scoreType, from, to, bucket);
+    }
+
+    @QueryMapping
+    public RecalculationJob recalculationJob(@Argument final UUID id, @ContextValue final LoggedInUser currentUser) {
+        final RecalculationJob job = courseRecalculationService.getJob(id);
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, job.getCourseId());
+        return job;
+    }
+
+    @QueryMapping
+    public CourseRewardStatistics courseRewardStatistics(@Argument final UUID courseId, @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, courseId);
+        return courseRewardStatisticsService.getCourseRewardStatistics(courseId);
+    }
+
+    @QueryMapping
+    public ScoreboardSnapshot scoreboardSnapshot(@Argument final UUID courseId,
+                                                 @Argument final ScoreboardPeriod period,
+                                                 @Argument final LocalDate periodStart,
+                                                 @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
+        return leaderboardSnapshotService.getScoreboardSnapshot(courseId, period, periodStart);
+    }
+
+    @MutationMapping
+    public DataFetcherResult<RewardScores> recalculateScores(@Argument final UUID courseId, @Argument final UUID userId, @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, courseId);
+        return withCourseId(courseId, rewardService.recalculateScores(courseId, userId));
+    }
+
     @MutationMapping
-    public RewardScores recalculateScores(@Argument final UUID courseId, @Argument final UUID userId, @ContextValue final LoggedInUser currentUser) {
+    public UUID startCourseRecalculation(@Argument final UUID courseId, @ContextValue final LoggedInUser currentUser) {
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.ADMINISTRATOR, courseId);
-        return rewardService.recalculateScores(courseId, userId);
+        return courseRecalculationService.startCourseRecalculation(courseId);
+    }
+
+    @SubscriptionMapping
+    public Flux<RewardScoresChange> rewardScoresChanged(@Argument final UUID courseId, @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
+        return liveRewardScoresService.rewardScoresChanges(courseId, currentUser.getId());
+    }
+
+    @SubscriptionMapping
+    public Flux<ScoreboardChange> scoreboardChanged(@Argument final UUID courseId, @Argument final int top,
+                                                    @ContextValue final LoggedInUser currentUser) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
+        return liveRewardScoresService.scoreboardChanges(courseId, top);
+    }
+
+    private static <T> DataFetcherResult<T> withCourseId(final UUID courseId, final T data) {
+        return DataFetcherResult.<T>newResult()
+                .data(data)
+                .localContext(GraphQLContext.newContext().of(COURSE_ID, courseId).build())
+                .build();
+    }
+
+    private static boolean hasAccessToCourse(final LoggedInUser currentUser, final UUID courseId) {
+        try {
+            UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser, LoggedInUser.UserRoleInCourse.STUDENT, courseId);
+            return true;
+        } catch (final NoAccessToCourseException e) {
+            // e.g. the course is not published yet
+            return false;
+        }
     }
 }
@@ -0,0 +1,21 @@
+package de.unistuttgart.iste.meitrex.reward.controller;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registers the DataLoader that loads the {@link RewardScores} of all users requested in a GraphQL request
+ * with a single call of {@link RewardService#getRewardScores(java.util.Collection)}.
+ */
+@Component
+public class RewardScoresBatchLoader {
+
+    public RewardScoresBatchLoader(final BatchLoaderRegistry batchLoaderRegistry, final RewardService rewardService) {
+        batchLoaderRegistry.forTypePair(AllRewardScoresEntity.PrimaryKey.class, RewardScores.class)
+                .registerMappedBatchLoader((ids, environment) -> Mono.fromCallable(() -> rewardService.getRewardScores(ids)));
+    }
+}
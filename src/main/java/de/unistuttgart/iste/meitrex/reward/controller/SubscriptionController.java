@@ -4,6 +4,10 @@ import de.unistuttgart.iste.meitrex.common.event.CourseChangeEvent;
 import de.unistuttgart.iste.meitrex.common.event.UserProgressUpdatedEvent;
 import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
 import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.cache.CacheInvalidationService;
+import de.unistuttgart.iste.meitrex.reward.service.cache.DaprInvalidationBroker;
+import de.unistuttgart.iste.meitrex.reward.service.cache.RewardScoresInvalidation;
+import de.unistuttgart.iste.meitrex.reward.service.live.RewardScoresUpdateStream;
 import io.dapr.Topic;
 import io.dapr.client.domain.CloudEvent;
 import lombok.RequiredArgsConstructor;
@@ -11,12 +15,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @Slf4j
 public class SubscriptionController {
 
     private final RewardService rewardService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final RewardScoresUpdateStream rewardScoresUpdateStream;
 
     /**
      * Event handler for the user-progress-updated event
@@ -53,4 +61,19 @@ public class SubscriptionController {
                     }
                 });
     }
+
+    /**
+     * Event handler for the cache invalidations published by the other replicas.
+     * The invalidations are applied to the cache first, so that the live updates read the new reward scores.
+     *
+     * @param cloudEvent the cloud event
+     */
+    @Topic(name = DaprInvalidationBroker.TOPIC, pubsubName = DaprInvalidationBroker.PUBSUB_NAME)
+    @PostMapping(path = "/reward-service/reward-scores-invalidated-pubsub")
+    public Mono<Void> onRewardScoresInvalidated(@RequestBody final CloudEvent<List<RewardScoresInvalidation>> cloudEvent) {
+        return Mono.fromRunnable(() -> {
+            cacheInvalidationService.apply(cloudEvent.getData());
+            rewardScoresUpdateStream.onRewardScoresInvalidated(cloudEvent.getData());
+        });
+    }
 }
@@ -2,13 +2,20 @@ package de.unistuttgart.iste.meitrex.reward.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
 import java.io.Serializable;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity(name = "RewardScores")
+@Table(indexes = {
+        @Index(name = "idx_reward_scores_next_recalculation", columnList = "next_recalculation"),
+        // the primary key starts with the course id, so it cannot be used to find all reward scores of a user
+        @Index(name = "idx_reward_scores_user_id", columnList = "user_id, course_id")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -38,6 +45,40 @@ public class AllRewardScoresEntity {
     @OnDelete(action = OnDeleteAction.CASCADE)
     private RewardScoreEntity power;
 
+    /**
+     * Due-work index of the user in the course: the earliest suggested date or next learn date of
+     * a content that is still pending. {@code null} if there is no pending work.
+     */
+    private OffsetDateTime nextDueDate;
+
+    /**
+     * The time the due-work index was last changed by a refresh from the contents of the course or refreshed
+     * by a recalculation. Other refreshes that do not change the index do not update this time,
+     * so that the entity is not written. An index older than {@code DueWorkIndexCalculator.MAX_INDEX_AGE}
+     * is stale and is refreshed from the contents, so that changed due dates are picked up.
+     * {@code null} if the index is unknown, e.g. because the contents could not be fetched.
+     */
+    private OffsetDateTime dueWorkIndexedAt;
+
+    /**
+     * The time health and fitness were last recalculated, i.e. decreased for overdue contents.
+     */
+    private OffsetDateTime lastRecalculation;
+
+    /**
+     * The next time at which the recalculation can change health or fitness: the next due date, but at most once
+     * per day after the last recalculation. The recalculation timer wheel is recovered from this column on startup.
+     * {@code null} if there is no pending work.
+     */
+    @Column(name = "next_recalculation")
+    private OffsetDateTime nextRecalculation;
+
+    /**
+     * Incremented whenever the reward scores are saved. Used to discard outdated cache entries on all replicas.
+     */
+    @ColumnDefault("0")
+    private long version;
+
     @Embeddable
     @Data
     @AllArgsConstructor
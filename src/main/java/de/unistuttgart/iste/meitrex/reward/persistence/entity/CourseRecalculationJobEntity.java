@@ -0,0 +1,74 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A job that recalculates the reward scores of all users of a course, triggered by an administrator of the course.
+ * <p>
+ * A queued or running job is held by the replica that runs it through a lease. If the lease expires,
+ * e.g. because the replica was restarted, the job is failed, so that it can be started again.
+ */
+@Entity(name = "CourseRecalculationJob")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseRecalculationJobEntity {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID courseId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime startedAt;
+
+    private OffsetDateTime finishedAt;
+
+    /**
+     * The replica that runs the job.
+     */
+    private String owner;
+
+    /**
+     * The time at which the lease of the owner expires, unless it is renewed.
+     */
+    private OffsetDateTime leaseExpiresAt;
+
+    /**
+     * The number of users of the course. Known once the job was started.
+     */
+    @Column(nullable = false)
+    private int total;
+
+    /**
+     * The number of users that were processed, including failed ones.
+     */
+    @Column(nullable = false)
+    private int processed;
+
+    /**
+     * The number of users whose recalculation failed.
+     */
+    @Column(nullable = false)
+    private int failed;
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
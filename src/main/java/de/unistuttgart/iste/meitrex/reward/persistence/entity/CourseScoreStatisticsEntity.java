@@ -0,0 +1,43 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * The distribution of one reward score over all users of a course, stored as a serialized
+ * {@link de.unistuttgart.iste.meitrex.reward.service.statistics.ScoreHistogram}.
+ */
+@Entity(name = "CourseScoreStatistics")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseScoreStatisticsEntity {
+
+    @EmbeddedId
+    private PrimaryKey id;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] histogram;
+
+    /**
+     * The last time the histogram was rebuilt from all reward scores of the course.
+     */
+    private OffsetDateTime rebuiltAt;
+
+    @Embeddable
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PrimaryKey implements Serializable {
+        private UUID courseId;
+
+        @Enumerated(EnumType.STRING)
+        private RewardScoreType scoreType;
+    }
+}
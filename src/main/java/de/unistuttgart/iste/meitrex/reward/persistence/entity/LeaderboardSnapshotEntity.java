@@ -0,0 +1,56 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardPeriod;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * The ranking of the users of a course by the power they gained in a completed period. The ranked list is stored
+ * delta-encoded in a single column, so that a leaderboard is read with a single row.
+ */
+@Entity(name = "LeaderboardSnapshot")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshotEntity {
+
+    @EmbeddedId
+    private PrimaryKey id;
+
+    /**
+     * The first day after the period.
+     */
+    @Column(nullable = false)
+    private LocalDate periodEnd;
+
+    @Column(nullable = false)
+    private int userCount;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] entries;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Embeddable
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PrimaryKey implements Serializable {
+        private UUID courseId;
+
+        @Enumerated(EnumType.STRING)
+        private ScoreboardPeriod period;
+
+        /**
+         * The first day of the period.
+         */
+        private LocalDate periodStart;
+    }
+}
@@ -0,0 +1,42 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.id.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * An event that was written in the same transaction as the change it describes and still has to be published
+ * to the Dapr pub/sub by the {@link de.unistuttgart.iste.meitrex.reward.service.outbox.OutboxRelay}.
+ */
+@Entity(name = "OutboxEvent")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEventEntity {
+
+    /**
+     * Time-ordered, so that the events are published in the order in which they were written.
+     */
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    /**
+     * The topic the event is published to.
+     */
+    @Column(nullable = false)
+    private String topic;
+
+    /**
+     * The event, serialized as JSON.
+     */
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,62 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A run of the nightly recalculation. The users of a run are split into {@link RecalculationShardEntity shards},
+ * which are processed by all replicas in parallel and checkpointed after each chunk of users,
+ * so that the run can be resumed after a replica was restarted.
+ */
+@Entity(name = "RecalculationRun")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecalculationRunEntity {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(nullable = false)
+    private OffsetDateTime startedAt;
+
+    private OffsetDateTime finishedAt;
+
+    /**
+     * The time at which the due-work index is evaluated. A resumed run keeps it, so that it visits the same users.
+     */
+    @Column(nullable = false)
+    private OffsetDateTime dueAt;
+
+    /**
+     * The number of users that had work due when the run was started.
+     */
+    @Column(nullable = false)
+    private long total;
+
+    /**
+     * The number of users that were processed by all shards, including failed ones.
+     */
+    @Column(nullable = false)
+    private long processed;
+
+    /**
+     * The number of users whose recalculation failed.
+     */
+    @Column(nullable = false)
+    private long failed;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+}
@@ -0,0 +1,84 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A shard of a {@link RecalculationRunEntity}, covering a range of course ids.
+ * <p>
+ * Replicas claim shards by taking a lease on them. A replica that holds the lease checkpoints the shard after
+ * each chunk of users and renews the lease at the same time. If a replica stalls or dies, its lease expires and
+ * the shard is claimed by another replica, which continues from the last checkpoint.
+ */
+@Entity(name = "RecalculationShard")
+@Table(indexes = @Index(name = "idx_recalculation_shard_run_id", columnList = "run_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecalculationShardEntity {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+
+    @Column(nullable = false)
+    private int shardIndex;
+
+    /**
+     * The inclusive upper bound of the course ids of this shard.
+     * The lower bound is the initial checkpoint of the shard.
+     */
+    @Column(nullable = false)
+    private UUID upperCourseId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    /**
+     * The replica that holds the lease, or {@code null} if the shard was never claimed.
+     */
+    private String owner;
+
+    /**
+     * The time at which the lease of the owner expires.
+     */
+    private OffsetDateTime leaseExpiresAt;
+
+    /**
+     * The number of users of this shard that were processed, including failed ones.
+     */
+    @Column(nullable = false)
+    private long processed;
+
+    /**
+     * The number of users of this shard whose recalculation failed.
+     */
+    @Column(nullable = false)
+    private long failed;
+
+    /**
+     * Checkpoint: the course id of the last processed user. Users are processed ordered by course id and user id.
+     */
+    @Column(nullable = false)
+    private UUID lastCourseId;
+
+    /**
+     * Checkpoint: the user id of the last processed user.
+     */
+    @Column(nullable = false)
+    private UUID lastUserId;
+
+    public enum Status {
+        PENDING,
+        CLAIMED,
+        COMPLETED
+    }
+}
@@ -0,0 +1,34 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of a retention job: everything before {@link #compactedUntil} was already processed, so the next run
+ * only has to look at newer data. The lease makes sure that only one replica runs the job at a time.
+ */
+@Entity(name = "RetentionWatermark")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionWatermarkEntity {
+
+    /**
+     * The name of the retention job.
+     */
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private OffsetDateTime compactedUntil;
+
+    /**
+     * The replica that currently runs the job, {@code null} if it is not running.
+     */
+    private String owner;
+
+    private OffsetDateTime leaseExpiresAt;
+}
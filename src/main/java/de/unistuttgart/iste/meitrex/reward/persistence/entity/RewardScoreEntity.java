@@ -2,6 +2,7 @@ package de.unistuttgart.iste.meitrex.reward.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.*;
 
@@ -23,8 +24,16 @@ public class RewardScoreEntity {
     @Builder.Default
     private float percentage = 0f;
 
+    /**
+     * The join table has the default names. It is declared to index the reward score id, which is used to load the log.
+     */
     @OneToMany(cascade = CascadeType.ALL)
+    @JoinTable(name = "reward_score_log",
+            joinColumns = @JoinColumn(name = "reward_score_id"),
+            inverseJoinColumns = @JoinColumn(name = "log_id"),
+            indexes = @Index(name = "idx_reward_score_log_reward_score_id", columnList = "reward_score_id"))
     @OrderBy("date DESC")
+    @BatchSize(size = 100)
     @Builder.Default
     private List<RewardScoreLogEntry> log = new ArrayList<>();
 
@@ -1,22 +1,29 @@
 package de.unistuttgart.iste.meitrex.reward.persistence.entity;
 
 import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import de.unistuttgart.iste.meitrex.reward.persistence.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Entity(name = "RewardScoreLogEntry")
+@Table(indexes = @Index(name = "idx_reward_score_log_entry_date", columnList = "date"))
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class RewardScoreLogEntry {
 
+    /**
+     * Time-ordered, because log entries are inserted constantly and mostly read by date.
+     */
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(nullable = false)
@@ -34,6 +41,21 @@ public class RewardScoreLogEntry {
     @Column(nullable = false)
     private RewardChangeReason reason;
 
+    /**
+     * The contents that caused the change. Changes caused by many contents only store the first of them,
+     * see {@link #truncatedContentCount}.
+     * The collection table has the default names. It is declared because the retention deletes from it in bulk.
+     */
     @ElementCollection
+    @CollectionTable(name = "reward_score_log_entry_associated_content_ids",
+            joinColumns = @JoinColumn(name = "reward_score_log_entry_id"))
+    @BatchSize(size = 100)
     private List<UUID> associatedContentIds;
+
+    /**
+     * The number of further contents that caused the change but are not stored in {@link #associatedContentIds}.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int truncatedContentCount;
 }
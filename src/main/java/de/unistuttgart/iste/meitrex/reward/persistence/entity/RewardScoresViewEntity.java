@@ -0,0 +1,80 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Denormalized read model of the {@link AllRewardScoresEntity reward scores} of a user in a course:
+ * one row with the values and percentages of all five reward scores, without their logs.
+ * <p>
+ * The row is written in the same transaction as the reward scores, see
+ * {@link de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepositoryCustom#upsert(AllRewardScoresEntity)},
+ * so that reads that do not need the logs neither join the five reward scores nor hydrate their logs.
+ * Only the {@link #powerRank} is refreshed asynchronously, because a change of one user changes the ranks of others.
+ */
+@Entity(name = "RewardScoresView")
+@Table(name = "reward_scores_view", indexes = {
+        // the scoreboard of a course, ordered by power
+        @Index(name = "idx_reward_scores_view_course_id_power", columnList = "course_id, power_value"),
+        // the primary key starts with the course id, so it cannot be used to find all reward scores of a user
+        @Index(name = "idx_reward_scores_view_user_id", columnList = "user_id, course_id")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RewardScoresViewEntity {
+
+    @EmbeddedId
+    private AllRewardScoresEntity.PrimaryKey id;
+
+    @Column(nullable = false)
+    private int healthValue;
+
+    @Column(nullable = false)
+    private float healthPercentage;
+
+    @Column(nullable = false)
+    private int fitnessValue;
+
+    @Column(nullable = false)
+    private float fitnessPercentage;
+
+    @Column(nullable = false)
+    private int growthValue;
+
+    @Column(nullable = false)
+    private float growthPercentage;
+
+    @Column(nullable = false)
+    private int strengthValue;
+
+    @Column(nullable = false)
+    private float strengthPercentage;
+
+    @Column(nullable = false)
+    private int powerValue;
+
+    @Column(nullable = false)
+    private float powerPercentage;
+
+    /**
+     * The rank of the user in the scoreboard of the course, 1 for the highest power. Users with the same power have
+     * the same rank. {@code null} until the ranks of the course were refreshed for the first time.
+     */
+    private Integer powerRank;
+
+    /**
+     * The time the reward scores were last saved.
+     */
+    @Column(nullable = false)
+    private OffsetDateTime lastChanged;
+
+    /**
+     * The {@link AllRewardScoresEntity#getVersion() version} of the reward scores in this row.
+     */
+    @Column(nullable = false)
+    private long version;
+}
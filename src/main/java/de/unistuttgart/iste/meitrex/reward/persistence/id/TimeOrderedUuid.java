@@ -0,0 +1,21 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a {@link java.util.UUID} id that is generated by the {@link TimeOrderedUuidGenerator}.
+ * Use it instead of {@link jakarta.persistence.GeneratedValue} for tables with many inserts,
+ * so that new rows are appended to the end of the primary key index.
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TimeOrderedUuid {
+}
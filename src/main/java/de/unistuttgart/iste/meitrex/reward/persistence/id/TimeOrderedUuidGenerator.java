@@ -0,0 +1,67 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): the first 48 bits are the current Unix time in milliseconds, followed by a
+ * counter and random bits. Unlike random UUIDs, consecutive ids are increasing, so inserts go to the end of the
+ * B-tree index instead of being scattered across it, and rows inserted at about the same time are stored together.
+ * <p>
+ * Within the same millisecond, the 12 bits after the version are used as a counter, so that ids generated by this
+ * replica are strictly increasing. If the counter overflows, the timestamp is advanced by one millisecond.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+    private static final long MAX_COUNTER = (1L << COUNTER_BITS) - 1;
+
+    /**
+     * The timestamp and counter of the last generated id, combined as {@code timestamp << 12 | counter}.
+     */
+    private static long lastTimestampAndCounter = 0;
+
+    @Override
+    public Object generate(final SharedSessionContractImplementor session,
+                           final Object owner,
+                           final Object currentValue,
+                           final EventType eventType) {
+        return generate();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+
+    /**
+     * @return a new version 7 UUID that is greater than all UUIDs previously generated by this method
+     */
+    public static UUID generate() {
+        final long timestampAndCounter = nextTimestampAndCounter(System.currentTimeMillis());
+        final long timestamp = timestampAndCounter >>> COUNTER_BITS;
+        final long counter = timestampAndCounter & MAX_COUNTER;
+
+        // 48 bits timestamp, 4 bits version, 12 bits counter
+        final long mostSignificantBits = (timestamp << 16) | (0x7L << 12) | counter;
+        // 2 bits variant, 62 random bits
+        final long leastSignificantBits = (RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private static synchronized long nextTimestampAndCounter(final long currentTimeMillis) {
+        final long candidate = currentTimeMillis << COUNTER_BITS;
+        // if the clock did not advance or went backwards, continue counting from the last id,
+        // which carries over into the timestamp once the counter is exhausted
+        lastTimestampAndCounter = Math.max(candidate, lastTimestampAndCounter + 1);
+        return lastTimestampAndCounter;
+    }
+}
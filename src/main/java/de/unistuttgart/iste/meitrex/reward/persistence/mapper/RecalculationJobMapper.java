@@ -0,0 +1,19 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.mapper;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RecalculationJob;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RecalculationJobMapper {
+
+    private final ModelMapper modelMapper;
+
+    public RecalculationJob entityToDto(CourseRecalculationJobEntity courseRecalculationJobEntity) {
+        return modelMapper.map(courseRecalculationJobEntity, RecalculationJob.class);
+    }
+
+}
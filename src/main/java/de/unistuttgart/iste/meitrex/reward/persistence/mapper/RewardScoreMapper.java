@@ -1,11 +1,15 @@
 package de.unistuttgart.iste.meitrex.reward.persistence.mapper;
 
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScore;
 import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class RewardScoreMapper {
@@ -16,4 +20,19 @@ public class RewardScoreMapper {
         return modelMapper.map(allRewardScoresEntity, RewardScores.class);
     }
 
+    /**
+     * Maps a read model row to reward scores with empty logs.
+     *
+     * @param rewardScoresViewEntity the read model row
+     * @return the reward scores with empty logs
+     */
+    public RewardScores viewToDto(RewardScoresViewEntity rewardScoresViewEntity) {
+        return new RewardScores(
+                new RewardScore(rewardScoresViewEntity.getHealthValue(), rewardScoresViewEntity.getHealthPercentage(), List.of()),
+                new RewardScore(rewardScoresViewEntity.getFitnessValue(), rewardScoresViewEntity.getFitnessPercentage(), List.of()),
+                new RewardScore(rewardScoresViewEntity.getGrowthValue(), rewardScoresViewEntity.getGrowthPercentage(), List.of()),
+                new RewardScore(rewardScoresViewEntity.getStrengthValue(), rewardScoresViewEntity.getStrengthPercentage(), List.of()),
+                new RewardScore(rewardScoresViewEntity.getPowerValue(), rewardScoresViewEntity.getPowerPercentage(), List.of()));
+    }
+
 }
@@ -1,14 +1,18 @@
 package de.unistuttgart.iste.meitrex.reward.persistence.repository;
 
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.UUID;
+import java.time.OffsetDateTime;
+import java.util.*;
 
 @Repository
-public interface AllRewardScoresRepository extends JpaRepository<AllRewardScoresEntity, AllRewardScoresEntity.PrimaryKey> {
+public interface AllRewardScoresRepository extends JpaRepository<AllRewardScoresEntity, AllRewardScoresEntity.PrimaryKey>,
+        AllRewardScoresRepositoryCustom {
 
     /**
      * Find all reward scores entities by course id.
@@ -20,4 +24,175 @@ public interface AllRewardScoresRepository extends JpaRepository<AllRewardScores
         // naming convention is violated because the Spring Data JPA naming convention is used
     List<AllRewardScoresEntity> findAllRewardScoresEntitiesById_CourseId(UUID id_courseId);
 
+    /**
+     * Find the reward scores entities with the given ids in a single query.
+     * Unlike {@link #findAllById(Iterable)}, which loads entities with a composite id one by one,
+     * this results in a {@code (course_id, user_id) in (...)} condition.
+     *
+     * @param ids the ids of the entities
+     * @return the entities that exist
+     */
+    @Query("""
+            select s from RewardScores s
+            join fetch s.health join fetch s.fitness join fetch s.growth join fetch s.strength join fetch s.power
+            where s.id in :ids
+            """)
+    List<AllRewardScoresEntity> findAllByIdIn(@Param("ids") Collection<AllRewardScoresEntity.PrimaryKey> ids);
+
+    /**
+     * Find the reward scores entities of a user in the given courses in a single query,
+     * using the index on the user id.
+     *
+     * @param userId    the id of the user
+     * @param courseIds the ids of the courses
+     * @return the entities that exist
+     */
+    @Query("""
+            select s from RewardScores s
+            join fetch s.health join fetch s.fitness join fetch s.growth join fetch s.strength join fetch s.power
+            where s.id.userId = :userId and s.id.courseId in :courseIds
+            """)
+    List<AllRewardScoresEntity> findAllByUserIdAndCourseIdIn(@Param("userId") UUID userId,
+                                                             @Param("courseIds") Collection<UUID> courseIds);
+
+    /**
+     * Find the ids of all users that have reward scores in the given course.
+     *
+     * @param courseId the course id
+     * @return the user ids
+     */
+    @Query("select s.id.userId from RewardScores s where s.id.courseId = :courseId")
+    List<UUID> findUserIdsByCourseId(@Param("courseId") UUID courseId);
+
+    /**
+     * Find the ids of the power scores of all users, ordered by id and starting after the given id.
+     *
+     * @param lastId   the last id that was already visited
+     * @param pageable the maximum number of ids to return
+     * @return the ids of the power scores
+     */
+    @Query("select s.power.id from RewardScores s where s.power.id > :lastId order by s.power.id")
+    List<UUID> findPowerScoreIdsAfter(@Param("lastId") UUID lastId, Pageable pageable);
+
+    /**
+     * Find the ids of the reward scores entities that own any of the given reward scores, ordered by course id and
+     * user id, so that they are always locked in the same order.
+     *
+     * @param rewardScoreIds the ids of the reward scores
+     * @return the ids of the reward scores entities
+     */
+    @Query("""
+            select s.id from RewardScores s
+            where s.health.id in :rewardScoreIds or s.fitness.id in :rewardScoreIds or s.growth.id in :rewardScoreIds
+            or s.strength.id in :rewardScoreIds or s.power.id in :rewardScoreIds
+            order by s.id.courseId, s.id.userId
+            """)
+    List<AllRewardScoresEntity.PrimaryKey> findIdsByRewardScoreIdIn(@Param("rewardScoreIds") Collection<UUID> rewardScoreIds);
+
+    /**
+     * Find a reward scores entity by id and lock it for writing until the end of the transaction.
+     * Used to make sure that concurrent recalculations of the same user do not decrease the scores twice.
+     *
+     * @param id the id of the entity
+     * @return the locked entity, if it exists
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AllRewardScoresEntity> findLockedById(AllRewardScoresEntity.PrimaryKey id);
+
+    /**
+     * Update only the due-work index of a reward scores entity, without incrementing its version, because the
+     * reward scores themselves did not change.
+     *
+     * @param id                the id of the entity
+     * @param nextDueDate       the earliest pending due date
+     * @param nextRecalculation the next time at which the recalculation can change health or fitness
+     * @param indexedAt         the time of the refresh
+     */
+    @Modifying
+    @Query("""
+            update RewardScores s
+            set s.nextDueDate = :nextDueDate, s.nextRecalculation = :nextRecalculation, s.dueWorkIndexedAt = :indexedAt
+            where s.id = :id
+            """)
+    void updateDueWorkIndex(@Param("id") AllRewardScoresEntity.PrimaryKey id,
+                            @Param("nextDueDate") OffsetDateTime nextDueDate,
+                            @Param("nextRecalculation") OffsetDateTime nextRecalculation,
+                            @Param("indexedAt") OffsetDateTime indexedAt);
+
+    /**
+     * Count the reward scores entities for which the due-work index says that a recalculation
+     * is due at the given time. Entities whose index is unknown or stale are always included.
+     *
+     * @param dueAt       the time at which the recalculation has to be due
+     * @param staleBefore the time before which an index is stale
+     * @return the number of reward scores entities that need to be recalculated
+     */
+    @Query("""
+            select count(s) from RewardScores s
+            where s.dueWorkIndexedAt is null or s.dueWorkIndexedAt < :staleBefore or s.nextRecalculation <= :dueAt
+            """)
+    long countWithWorkDueAt(@Param("dueAt") OffsetDateTime dueAt,
+                            @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /**
+     * Find the ids of the reward scores entities for which the due-work index says that a recalculation
+     * is due at the given time, ordered by course id and user id, starting after the given id and ending at the
+     * given course id. Entities whose index is unknown or stale are always included.
+     *
+     * @param dueAt         the time at which the recalculation has to be due
+     * @param staleBefore   the time before which an index is stale
+     * @param courseId      the course id of the last id that was already visited
+     * @param userId        the user id of the last id that was already visited
+     * @param upperCourseId the inclusive upper bound of the course ids
+     * @param pageable      the maximum number of ids to return
+     * @return the ids of the reward scores entities that need to be recalculated
+     */
+    @Query("""
+            select s.id from RewardScores s
+            where (s.dueWorkIndexedAt is null or s.dueWorkIndexedAt < :staleBefore or s.nextRecalculation <= :dueAt)
+            and (s.id.courseId > :courseId or (s.id.courseId = :courseId and s.id.userId > :userId))
+            and s.id.courseId <= :upperCourseId
+            order by s.id.courseId, s.id.userId
+            """)
+    List<AllRewardScoresEntity.PrimaryKey> findIdsWithWorkDueAtAfter(@Param("dueAt") OffsetDateTime dueAt,
+                                                                     @Param("staleBefore") OffsetDateTime staleBefore,
+                                                                     @Param("courseId") UUID courseId,
+                                                                     @Param("userId") UUID userId,
+                                                                     @Param("upperCourseId") UUID upperCourseId,
+                                                                     Pageable pageable);
+
+    /**
+     * Find the next recalculation of all reward scores entities whose next recalculation is within the given range.
+     *
+     * @param from  the inclusive lower bound of the next recalculation
+     * @param until the exclusive upper bound of the next recalculation
+     * @return the scheduled recalculations
+     */
+    @Query("""
+            select new de.unistuttgart.iste.meitrex.reward.persistence.repository.ScheduledRecalculation(s.id, s.nextRecalculation)
+            from RewardScores s
+            where s.nextRecalculation >= :from and s.nextRecalculation < :until
+            """)
+    List<ScheduledRecalculation> findScheduledRecalculationsBetween(@Param("from") OffsetDateTime from,
+                                                                    @Param("until") OffsetDateTime until);
+
+    /**
+     * Claim the due recalculation of a reward scores entity by moving its next recalculation to the end of the claim.
+     * Because the condition is evaluated atomically by the database, at most one replica can claim a recalculation.
+     * If the claimed recalculation fails, it becomes due again once the claim ends.
+     *
+     * @param id           the id of the entity
+     * @param now          the current time
+     * @param claimedUntil the end of the claim
+     * @return 1 if the recalculation was claimed, 0 if it is not due, e.g. because another replica claimed it
+     */
+    @Modifying
+    @Query("""
+            update RewardScores s set s.nextRecalculation = :claimedUntil
+            where s.id = :id and s.nextRecalculation <= :now
+            """)
+    int claimRecalculation(@Param("id") AllRewardScoresEntity.PrimaryKey id,
+                           @Param("now") OffsetDateTime now,
+                           @Param("claimedUntil") OffsetDateTime claimedUntil);
+
 }
@@ -0,0 +1,23 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+/**
+ * Repository fragment with the queries of the {@link AllRewardScoresRepository} that cannot be expressed with JPA.
+ */
+public interface AllRewardScoresRepositoryCustom {
+
+    /**
+     * Inserts the given new reward scores entity, including its five reward scores, unless reward scores with the
+     * same id already exist. The existence check and the insert are a single atomic statement, so concurrent
+     * initializations of the same user do not fail with a duplicate key; the one that loses waits for the other
+     * one to commit and then does nothing.
+     * <p>
+     * The entity is inserted with plain SQL and is not managed afterwards; it has to be read again to be modified.
+     * The reward scores must have empty logs.
+     *
+     * @param allRewardScoresEntity the entity to insert. The ids of its reward scores are assigned if they are missing.
+     * @return whether the entity was inserted, i.e. whether it did not exist yet
+     */
+    boolean insertIfAbsent(AllRewardScoresEntity allRewardScoresEntity);
+}
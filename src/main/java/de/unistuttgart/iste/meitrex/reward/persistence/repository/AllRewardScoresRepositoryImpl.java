@@ -0,0 +1,85 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Implementation of {@link AllRewardScoresRepositoryCustom} with PostgreSQL specific SQL.
+ */
+@RequiredArgsConstructor
+class AllRewardScoresRepositoryImpl implements AllRewardScoresRepositoryCustom {
+
+    private static final String INSERT_REWARD_SCORES = """
+            insert into reward_score (id, value, percentage)
+            values (?, ?, ?), (?, ?, ?), (?, ?, ?), (?, ?, ?), (?, ?, ?)
+            """;
+
+    private static final String INSERT_ALL_REWARD_SCORES_IF_ABSENT = """
+            insert into reward_scores (course_id, user_id, health_id, fitness_id, growth_id, strength_id, power_id,
+                                       next_due_date, due_work_indexed_at, last_recalculation, next_recalculation, version)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict (course_id, user_id) do nothing
+            """;
+
+    private static final String DELETE_REWARD_SCORES = "delete from reward_score where id in (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean insertIfAbsent(final AllRewardScoresEntity allRewardScoresEntity) {
+        final List<RewardScoreEntity> rewardScores = List.of(
+                allRewardScoresEntity.getHealth(),
+                allRewardScoresEntity.getFitness(),
+                allRewardScoresEntity.getGrowth(),
+                allRewardScoresEntity.getStrength(),
+                allRewardScoresEntity.getPower());
+
+        final List<Object> rewardScoreValues = new ArrayList<>(3 * rewardScores.size());
+        for (final RewardScoreEntity rewardScore : rewardScores) {
+            if (rewardScore.getId() == null) {
+                rewardScore.setId(UUID.randomUUID());
+            }
+            rewardScoreValues.add(rewardScore.getId());
+            rewardScoreValues.add(rewardScore.getValue());
+            rewardScoreValues.add(rewardScore.getPercentage());
+        }
+        // the reward scores have to exist before the row that references them,
+        // even though they are only needed if that row is inserted
+        jdbcTemplate.update(INSERT_REWARD_SCORES, rewardScoreValues.toArray());
+
+        final int inserted = jdbcTemplate.update(INSERT_ALL_REWARD_SCORES_IF_ABSENT,
+                allRewardScoresEntity.getId().getCourseId(),
+                allRewardScoresEntity.getId().getUserId(),
+                allRewardScoresEntity.getHealth().getId(),
+                allRewardScoresEntity.getFitness().getId(),
+                allRewardScoresEntity.getGrowth().getId(),
+                allRewardScoresEntity.getStrength().getId(),
+                allRewardScoresEntity.getPower().getId(),
+                timestamp(allRewardScoresEntity.getNextDueDate()),
+                timestamp(allRewardScoresEntity.getDueWorkIndexedAt()),
+                timestamp(allRewardScoresEntity.getLastRecalculation()),
+                timestamp(allRewardScoresEntity.getNextRecalculation()),
+                allRewardScoresEntity.getVersion());
+
+        if (inserted == 0) {
+            // another transaction initialized the reward scores first, so ours are not referenced
+            jdbcTemplate.update(DELETE_REWARD_SCORES, rewardScores.stream().map(RewardScoreEntity::getId).toArray());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps a nullable timestamp, so that {@code null} is bound with the correct type.
+     */
+    private static SqlParameterValue timestamp(final OffsetDateTime value) {
+        return new SqlParameterValue(Types.TIMESTAMP_WITH_TIMEZONE, value);
+    }
+}
@@ -0,0 +1,111 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CourseRecalculationJobRepository extends JpaRepository<CourseRecalculationJobEntity, UUID> {
+
+    /**
+     * Finds the queued or running job of a course.
+     *
+     * @param courseId the id of the course
+     * @return the active job of the course, if there is one
+     */
+    @Query("""
+            select j from CourseRecalculationJob j
+            where j.courseId = :courseId
+            and j.status in (de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.QUEUED,
+                             de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.RUNNING)
+            """)
+    Optional<CourseRecalculationJobEntity> findActiveByCourseId(@Param("courseId") UUID courseId);
+
+    /**
+     * Marks a queued job as running, if the given replica still holds its lease.
+     *
+     * @param id        the id of the job
+     * @param owner     the replica that runs the job
+     * @param total     the number of users to process
+     * @param startedAt the time at which the job was started
+     * @return 1 if the job was started, 0 if it was failed in the meantime
+     */
+    @Modifying
+    @Query("""
+            update CourseRecalculationJob j
+            set j.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.RUNNING,
+                j.total = :total, j.startedAt = :startedAt
+            where j.id = :id and j.owner = :owner
+            and j.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.QUEUED
+            """)
+    int start(@Param("id") UUID id,
+              @Param("owner") String owner,
+              @Param("total") int total,
+              @Param("startedAt") OffsetDateTime startedAt);
+
+    /**
+     * Renews the leases of the queued and running jobs of the given replica.
+     *
+     * @param owner          the replica that runs the jobs
+     * @param leaseExpiresAt the time at which the renewed leases expire
+     */
+    @Modifying
+    @Query("""
+            update CourseRecalculationJob j set j.leaseExpiresAt = :leaseExpiresAt
+            where j.owner = :owner
+            and j.status in (de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.QUEUED,
+                             de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.RUNNING)
+            """)
+    void renewLeases(@Param("owner") String owner, @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Fails the queued and running jobs whose lease has expired.
+     *
+     * @param now the current time
+     * @return the number of failed jobs
+     */
+    @Modifying
+    @Query("""
+            update CourseRecalculationJob j
+            set j.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.FAILED,
+                j.finishedAt = :now
+            where j.status in (de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.QUEUED,
+                               de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.RUNNING)
+            and (j.leaseExpiresAt is null or j.leaseExpiresAt < :now)
+            """)
+    int failExpired(@Param("now") OffsetDateTime now);
+
+    /**
+     * Adds the progress of a chunk of users to a job.
+     *
+     * @param id        the id of the job
+     * @param processed the number of users processed in the chunk
+     * @param failed    the number of users that failed in the chunk
+     */
+    @Modifying
+    @Query("update CourseRecalculationJob j set j.processed = j.processed + :processed, j.failed = j.failed + :failed where j.id = :id")
+    void addProgress(@Param("id") UUID id, @Param("processed") int processed, @Param("failed") int failed);
+
+    /**
+     * Marks a running job as finished. A job that was failed because its lease expired stays failed.
+     *
+     * @param id         the id of the job
+     * @param status     the final status of the job
+     * @param finishedAt the time at which the job was finished
+     */
+    @Modifying
+    @Query("""
+            update CourseRecalculationJob j set j.status = :status, j.finishedAt = :finishedAt
+            where j.id = :id
+            and j.status in (de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.QUEUED,
+                             de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity.Status.RUNNING)
+            """)
+    void finish(@Param("id") UUID id,
+                @Param("status") CourseRecalculationJobEntity.Status status,
+                @Param("finishedAt") OffsetDateTime finishedAt);
+}
@@ -0,0 +1,44 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseScoreStatisticsEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CourseScoreStatisticsRepository
+        extends JpaRepository<CourseScoreStatisticsEntity, CourseScoreStatisticsEntity.PrimaryKey> {
+
+    /**
+     * Find the statistics of all reward scores of a course.
+     *
+     * @param courseId the course id
+     * @return the statistics, one per reward score type that has any
+     */
+    @Query("select s from CourseScoreStatistics s where s.id.courseId = :courseId")
+    List<CourseScoreStatisticsEntity> findAllByCourseId(@Param("courseId") UUID courseId);
+
+    /**
+     * Find the statistics of all reward scores of a course and lock them for writing until the end of the
+     * transaction, so that concurrent merges of several replicas do not overwrite each other.
+     *
+     * @param courseId the course id
+     * @return the locked statistics
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CourseScoreStatistics s where s.id.courseId = :courseId")
+    List<CourseScoreStatisticsEntity> findLockedByCourseId(@Param("courseId") UUID courseId);
+
+    /**
+     * Delete the statistics of all reward scores of a course.
+     *
+     * @param courseId the course id
+     */
+    @Modifying
+    @Query("delete from CourseScoreStatistics s where s.id.courseId = :courseId")
+    void deleteAllByCourseId(@Param("courseId") UUID courseId);
+}
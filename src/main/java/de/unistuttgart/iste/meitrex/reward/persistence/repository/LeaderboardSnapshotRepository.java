@@ -0,0 +1,36 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardPeriod;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.LeaderboardSnapshotEntity;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LeaderboardSnapshotRepository
+        extends JpaRepository<LeaderboardSnapshotEntity, LeaderboardSnapshotEntity.PrimaryKey> {
+
+    /**
+     * Find the leaderboard of the latest period of a course.
+     *
+     * @param id_courseId the course id
+     * @param id_period   the kind of period
+     * @return the leaderboard, if one was taken
+     */
+    @SuppressWarnings("java:S117")
+        // naming convention is violated because the Spring Data JPA naming convention is used
+    Optional<LeaderboardSnapshotEntity> findFirstById_CourseIdAndId_PeriodOrderById_PeriodStartDesc(UUID id_courseId,
+                                                                                                      ScoreboardPeriod id_period);
+
+    /**
+     * Delete the leaderboards of a course.
+     *
+     * @param courseId the course id
+     */
+    @Modifying
+    @Query("delete from LeaderboardSnapshot l where l.id.courseId = :courseId")
+    void deleteAllByCourseId(@Param("courseId") UUID courseId);
+}
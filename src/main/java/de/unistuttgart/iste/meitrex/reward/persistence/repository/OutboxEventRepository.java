@@ -0,0 +1,24 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, UUID> {
+
+    /**
+     * Find the oldest events and lock them until the end of the transaction. Events that are locked by another
+     * transaction, e.g. the relay of another replica, are skipped instead of waited for.
+     *
+     * @param limit the maximum number of events to return
+     * @return the locked events, oldest first
+     */
+    @Query(value = "select * from outbox_event order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEventEntity> lockOldest(@Param("limit") int limit);
+}
@@ -0,0 +1,13 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import java.util.UUID;
+
+/**
+ * The power a user gained in a course between two daily snapshots, see
+ * {@link RewardScoresSnapshotRepository#findPowerGainedInCourse(UUID, java.time.LocalDate, java.time.LocalDate)}.
+ *
+ * @param userId      the id of the user
+ * @param powerGained the difference of the power values, negative if the power decreased
+ */
+public record PowerGain(UUID userId, int powerGained) {
+}
@@ -0,0 +1,57 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RecalculationRunRepository extends JpaRepository<RecalculationRunEntity, UUID> {
+
+    /**
+     * Find the most recently started run with the given status.
+     *
+     * @param status the status of the run
+     * @return the most recently started run with the given status, if there is one
+     */
+    Optional<RecalculationRunEntity> findFirstByStatusOrderByStartedAtDesc(RecalculationRunEntity.Status status);
+
+    /**
+     * Find the most recently started run.
+     *
+     * @return the most recently started run, if there is one
+     */
+    Optional<RecalculationRunEntity> findFirstByOrderByStartedAtDesc();
+
+    /**
+     * Adds the progress of a chunk of users to a run.
+     *
+     * @param id        the id of the run
+     * @param processed the number of users processed in the chunk
+     * @param failed    the number of users that failed in the chunk
+     */
+    @Modifying
+    @Query("update RecalculationRun r set r.processed = r.processed + :processed, r.failed = r.failed + :failed where r.id = :id")
+    void addProgress(@Param("id") UUID id, @Param("processed") long processed, @Param("failed") long failed);
+
+    /**
+     * Marks a run as completed, if it is still running.
+     *
+     * @param id         the id of the run
+     * @param finishedAt the time at which the run was finished
+     * @return 1 if the run was completed, 0 if it was already completed by another replica
+     */
+    @Modifying
+    @Query("""
+            update RecalculationRun r
+            set r.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity.Status.COMPLETED,
+                r.finishedAt = :finishedAt
+            where r.id = :id
+            and r.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity.Status.RUNNING
+            """)
+    int complete(@Param("id") UUID id, @Param("finishedAt") OffsetDateTime finishedAt);
+}
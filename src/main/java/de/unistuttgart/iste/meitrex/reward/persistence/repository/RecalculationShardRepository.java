@@ -0,0 +1,110 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RecalculationShardRepository extends JpaRepository<RecalculationShardEntity, UUID> {
+
+    /**
+     * Find the shards of a run that can be claimed, i.e. that were never claimed or whose lease has expired.
+     *
+     * @param runId the id of the run
+     * @param now   the current time
+     * @return the claimable shards, ordered by their index
+     */
+    @Query("""
+            select s from RecalculationShard s
+            where s.runId = :runId
+            and (s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.PENDING
+                 or (s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.CLAIMED
+                     and s.leaseExpiresAt < :now))
+            order by s.shardIndex
+            """)
+    List<RecalculationShardEntity> findClaimableShards(@Param("runId") UUID runId, @Param("now") OffsetDateTime now);
+
+    /**
+     * Claims a shard, if it is still claimable. Because the condition is evaluated atomically by the database,
+     * at most one replica can claim a shard.
+     *
+     * @param id             the id of the shard
+     * @param owner          the replica that claims the shard
+     * @param now            the current time
+     * @param leaseExpiresAt the time at which the lease expires
+     * @return 1 if the shard was claimed, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+            update RecalculationShard s
+            set s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.CLAIMED,
+                s.owner = :owner, s.leaseExpiresAt = :leaseExpiresAt
+            where s.id = :id
+            and (s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.PENDING
+                 or (s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.CLAIMED
+                     and s.leaseExpiresAt < :now))
+            """)
+    int claim(@Param("id") UUID id,
+              @Param("owner") String owner,
+              @Param("now") OffsetDateTime now,
+              @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Stores the checkpoint of a shard and renews the lease, if the given replica still holds the lease.
+     *
+     * @param id             the id of the shard
+     * @param owner          the replica that processed the shard
+     * @param lastCourseId   the course id of the last processed user
+     * @param lastUserId     the user id of the last processed user
+     * @param processed      the number of users processed since the last checkpoint
+     * @param failed         the number of users that failed since the last checkpoint
+     * @param leaseExpiresAt the time at which the renewed lease expires
+     * @return 1 if the checkpoint was stored, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("""
+            update RecalculationShard s
+            set s.lastCourseId = :lastCourseId, s.lastUserId = :lastUserId,
+                s.processed = s.processed + :processed, s.failed = s.failed + :failed,
+                s.leaseExpiresAt = :leaseExpiresAt
+            where s.id = :id and s.owner = :owner
+            and s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.CLAIMED
+            """)
+    int checkpoint(@Param("id") UUID id,
+                   @Param("owner") String owner,
+                   @Param("lastCourseId") UUID lastCourseId,
+                   @Param("lastUserId") UUID lastUserId,
+                   @Param("processed") long processed,
+                   @Param("failed") long failed,
+                   @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Marks a shard as completed, if the given replica still holds the lease.
+     *
+     * @param id    the id of the shard
+     * @param owner the replica that processed the shard
+     * @return 1 if the shard was completed, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("""
+            update RecalculationShard s
+            set s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.COMPLETED
+            where s.id = :id and s.owner = :owner
+            and s.status = de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity.Status.CLAIMED
+            """)
+    int complete(@Param("id") UUID id, @Param("owner") String owner);
+
+    /**
+     * Count the shards of a run that do not have the given status.
+     *
+     * @param runId  the id of the run
+     * @param status the status
+     * @return the number of shards of the run that do not have the given status
+     */
+    long countByRunIdAndStatusNot(UUID runId, RecalculationShardEntity.Status status);
+}
@@ -0,0 +1,63 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RetentionWatermarkEntity;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface RetentionWatermarkRepository extends JpaRepository<RetentionWatermarkEntity, String> {
+
+    /**
+     * Claims the lease of a retention job, if no other replica holds it. Because the condition is evaluated
+     * atomically by the database, at most one replica can claim the lease.
+     *
+     * @param name           the name of the retention job
+     * @param owner          the replica that claims the lease
+     * @param now            the current time
+     * @param leaseExpiresAt the time at which the lease expires
+     * @return 1 if the lease was claimed, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+            update RetentionWatermark w set w.owner = :owner, w.leaseExpiresAt = :leaseExpiresAt
+            where w.name = :name and (w.leaseExpiresAt is null or w.leaseExpiresAt < :now)
+            """)
+    int claim(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("now") OffsetDateTime now,
+              @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Renews the lease of a retention job, if the given replica still holds it.
+     *
+     * @param name           the name of the retention job
+     * @param owner          the replica that holds the lease
+     * @param leaseExpiresAt the new time at which the lease expires
+     * @return 1 if the lease was renewed, 0 if it was lost
+     */
+    @Modifying
+    @Query("update RetentionWatermark w set w.leaseExpiresAt = :leaseExpiresAt where w.name = :name and w.owner = :owner")
+    int renew(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("leaseExpiresAt") OffsetDateTime leaseExpiresAt);
+
+    /**
+     * Advances the watermark of a retention job and releases its lease, if the given replica still holds it.
+     *
+     * @param name           the name of the retention job
+     * @param owner          the replica that holds the lease
+     * @param compactedUntil the time before which everything was processed
+     * @return 1 if the watermark was advanced, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("""
+            update RetentionWatermark w set w.compactedUntil = :compactedUntil, w.owner = null, w.leaseExpiresAt = null
+            where w.name = :name and w.owner = :owner
+            """)
+    int complete(@Param("name") String name,
+                 @Param("owner") String owner,
+                 @Param("compactedUntil") OffsetDateTime compactedUntil);
+}
@@ -0,0 +1,91 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreHistoryBucket;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreHistoryItem;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Aggregates the log entries of a reward score into time buckets, so that the history of a score can be charted
+ * without loading the complete log. The aggregation is done by PostgreSQL.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RewardScoreHistoryRepository {
+
+    /**
+     * The column of the reward scores table that references each score. Used instead of binding the column name,
+     * which is not possible with a prepared statement.
+     */
+    private static final Map<RewardScoreType, String> SCORE_COLUMNS = new EnumMap<>(Map.of(
+            RewardScoreType.HEALTH, "health_id",
+            RewardScoreType.FITNESS, "fitness_id",
+            RewardScoreType.GROWTH, "growth_id",
+            RewardScoreType.STRENGTH, "strength_id",
+            RewardScoreType.POWER, "power_id"));
+
+    // buckets are aligned to UTC, so that the result does not depend on the time zone of the database session
+    private static final String HISTORY_QUERY = """
+            with entries as (
+                select date_trunc(?, e.date at time zone 'UTC') at time zone 'UTC' as bucket_start,
+                       e.date, e.new_value, e.difference
+                from reward_scores s
+                join reward_score_log l on l.reward_score_id = s.%s
+                join reward_score_log_entry e on e.id = l.log_id
+                where s.course_id = ? and s.user_id = ? and e.date >= ? and e.date < ?
+            ), ranked as (
+                select bucket_start, new_value, difference,
+                       row_number() over (partition by bucket_start order by date desc) as recency
+                from entries
+            )
+            select bucket_start,
+                   max(new_value) filter (where recency = 1) as last_value,
+                   min(new_value) as min_value,
+                   max(new_value) as max_value,
+                   sum(difference) as sum_of_differences,
+                   count(*) as changes
+            from ranked
+            group by bucket_start
+            order by bucket_start
+            """;
+
+    private static final RowMapper<RewardScoreHistoryItem> ROW_MAPPER = (resultSet, rowNum) ->
+            RewardScoreHistoryItem.builder()
+                    .setStart(resultSet.getObject("bucket_start", OffsetDateTime.class))
+                    .setLastValue(resultSet.getInt("last_value"))
+                    .setMinValue(resultSet.getInt("min_value"))
+                    .setMaxValue(resultSet.getInt("max_value"))
+                    .setSumOfDifferences(resultSet.getInt("sum_of_differences"))
+                    .setChanges(resultSet.getInt("changes"))
+                    .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregates the changes of a reward score of a user in a course into buckets.
+     * Buckets without changes are not returned.
+     *
+     * @param courseId  the id of the course
+     * @param userId    the id of the user
+     * @param scoreType the reward score
+     * @param from      the inclusive start of the time range
+     * @param to        the exclusive end of the time range
+     * @param bucket    the size of the buckets
+     * @return one item per bucket with at least one change, ordered by the start of the bucket
+     */
+    public List<RewardScoreHistoryItem> findHistory(final UUID courseId,
+                                                    final UUID userId,
+                                                    final RewardScoreType scoreType,
+                                                    final OffsetDateTime from,
+                                                    final OffsetDateTime to,
+                                                    final RewardScoreHistoryBucket bucket) {
+        return jdbcTemplate.query(HISTORY_QUERY.formatted(SCORE_COLUMNS.get(scoreType)), ROW_MAPPER,
+                bucket.name().toLowerCase(Locale.ROOT), courseId, userId, from, to);
+    }
+}
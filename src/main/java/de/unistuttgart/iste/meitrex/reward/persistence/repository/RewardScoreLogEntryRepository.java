@@ -0,0 +1,33 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface RewardScoreLogEntryRepository extends JpaRepository<RewardScoreLogEntry, UUID> {
+
+    /**
+     * Deletes the associated content ids of the given log entries.
+     * Must be called before the entries are deleted with {@link #deleteByIdIn}.
+     */
+    @Modifying
+    @Query(value = """
+            delete from reward_score_log_entry_associated_content_ids
+            where reward_score_log_entry_id in (:ids)
+            """, nativeQuery = true)
+    void deleteAssociatedContentIdsByEntryIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Deletes the given log entries in bulk. The entries must no longer be part of a log.
+     */
+    @Modifying
+    @Query("delete from RewardScoreLogEntry e where e.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<UUID> ids);
+}
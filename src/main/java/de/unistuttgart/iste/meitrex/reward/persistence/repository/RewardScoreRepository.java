@@ -0,0 +1,38 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RewardScoreRepository extends JpaRepository<RewardScoreEntity, UUID> {
+
+    /**
+     * Find the ids of the reward scores that have more than one log entry in the given time range,
+     * ordered by id and starting after the given id.
+     *
+     * @param from     the inclusive start of the time range
+     * @param until    the exclusive end of the time range
+     * @param lastId   the last id that was already visited
+     * @param pageable the maximum number of ids to return
+     * @return the ids of the reward scores
+     */
+    @Query("""
+            select s.id from RewardScore s join s.log e
+            where e.date >= :from and e.date < :until and s.id > :lastId
+            group by s.id
+            having count(e) > 1
+            order by s.id
+            """)
+    List<UUID> findIdsWithLogEntriesBetween(@Param("from") OffsetDateTime from,
+                                            @Param("until") OffsetDateTime until,
+                                            @Param("lastId") UUID lastId,
+                                            Pageable pageable);
+}
@@ -0,0 +1,26 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The reward scores of a user in a course at the end of a day, see {@link RewardScoresSnapshotRepository}.
+ *
+ * @param date     the date of the snapshot
+ * @param courseId the id of the course
+ * @param userId   the id of the user
+ * @param health   the health value
+ * @param fitness  the fitness value
+ * @param growth   the growth value
+ * @param strength the strength value
+ * @param power    the power value
+ */
+public record RewardScoresSnapshot(LocalDate date,
+                                   UUID courseId,
+                                   UUID userId,
+                                   int health,
+                                   int fitness,
+                                   int growth,
+                                   int strength,
+                                   int power) {
+}
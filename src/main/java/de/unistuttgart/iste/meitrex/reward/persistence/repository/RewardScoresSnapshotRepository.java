@@ -0,0 +1,180 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository of the daily snapshots of the reward scores, which hold the five values of every user in every course
+ * at the start of a day, i.e. at 00:00 UTC, before the nightly recalculation of that day.
+ * <p>
+ * The snapshot table is range-partitioned by month, which is not supported by the JPA schema generation.
+ * Therefore, the table and its partitions are created by this repository and the table is not mapped to an entity.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RewardScoresSnapshotRepository {
+
+    private static final String TABLE_NAME = "reward_scores_snapshot";
+
+    private static final String CREATE_TABLE = """
+            create table if not exists reward_scores_snapshot (
+                snapshot_date date not null,
+                course_id uuid not null,
+                user_id uuid not null,
+                health integer not null,
+                fitness integer not null,
+                growth integer not null,
+                strength integer not null,
+                power integer not null,
+                primary key (course_id, snapshot_date, user_id)
+            ) partition by range (snapshot_date)
+            """;
+
+    private static final String CREATE_PARTITION = """
+            create table if not exists %s partition of reward_scores_snapshot
+            for values from ('%s') to ('%s')
+            """;
+
+    // a single set-based statement, so the values never leave the database
+    private static final String INSERT_SNAPSHOTS = """
+            insert into reward_scores_snapshot (snapshot_date, course_id, user_id, health, fitness, growth, strength, power)
+            select ?, s.course_id, s.user_id, health.value, fitness.value, growth.value, strength.value, power.value
+            from reward_scores s
+            join reward_score health on health.id = s.health_id
+            join reward_score fitness on fitness.id = s.fitness_id
+            join reward_score growth on growth.id = s.growth_id
+            join reward_score strength on strength.id = s.strength_id
+            join reward_score power on power.id = s.power_id
+            on conflict do nothing
+            """;
+
+    private static final String FIND_SNAPSHOTS_OF_COURSE = """
+            select snapshot_date, course_id, user_id, health, fitness, growth, strength, power
+            from reward_scores_snapshot
+            where course_id = ? and snapshot_date = ?
+            """;
+
+    private static final String FIND_COURSE_IDS_WITH_SNAPSHOT = """
+            select distinct course_id from reward_scores_snapshot where snapshot_date = ?
+            """;
+
+    private static final String FIND_FIRST_SNAPSHOT_DATE_BETWEEN = """
+            select min(snapshot_date) from reward_scores_snapshot where snapshot_date between ? and ?
+            """;
+
+    // users without a snapshot at the start of the period joined the course during the period, starting with 0 power
+    private static final String FIND_POWER_GAINED_IN_COURSE = """
+            select e.user_id, e.power - coalesce(s.power, 0) as power_gained
+            from reward_scores_snapshot e
+            left join reward_scores_snapshot s
+                on s.course_id = e.course_id and s.snapshot_date = ? and s.user_id = e.user_id
+            where e.course_id = ? and e.snapshot_date = ?
+            order by power_gained desc, e.user_id
+            """;
+
+    private static final RowMapper<RewardScoresSnapshot> ROW_MAPPER = (resultSet, rowNum) -> new RewardScoresSnapshot(
+            resultSet.getObject("snapshot_date", LocalDate.class),
+            resultSet.getObject("course_id", UUID.class),
+            resultSet.getObject("user_id", UUID.class),
+            resultSet.getInt("health"),
+            resultSet.getInt("fitness"),
+            resultSet.getInt("growth"),
+            resultSet.getInt("strength"),
+            resultSet.getInt("power"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the partitioned snapshot table, if it does not exist yet.
+     */
+    public void createTableIfAbsent() {
+        jdbcTemplate.execute(CREATE_TABLE);
+    }
+
+    /**
+     * Creates the partition of the snapshot table for the given month, if it does not exist yet.
+     *
+     * @param month the month whose snapshots are stored in the partition
+     */
+    public void createPartitionIfAbsent(final YearMonth month) {
+        // the bounds are dates generated from the month, so they can safely be part of the statement
+        jdbcTemplate.execute(CREATE_PARTITION.formatted(getPartitionName(month),
+                month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    /**
+     * Stores the current reward scores of all users in all courses as the snapshot of the given date.
+     * Users that already have a snapshot of that date are skipped, so this can safely be repeated.
+     * The partition of the month of the date must exist.
+     *
+     * @param date the date of the snapshot
+     * @return the number of snapshots that were stored
+     */
+    public int insertSnapshotsOfAllUsers(final LocalDate date) {
+        return jdbcTemplate.update(INSERT_SNAPSHOTS, date);
+    }
+
+    /**
+     * Finds the snapshots of all users of a course on the given date.
+     *
+     * @param courseId the id of the course
+     * @param date     the date of the snapshots
+     * @return the snapshots
+     */
+    public List<RewardScoresSnapshot> findSnapshotsOfCourse(final UUID courseId, final LocalDate date) {
+        return jdbcTemplate.query(FIND_SNAPSHOTS_OF_COURSE, ROW_MAPPER, courseId, date);
+    }
+
+    /**
+     * Finds the ids of all courses that have snapshots on the given date.
+     *
+     * @param date the date of the snapshots
+     * @return the course ids
+     */
+    public List<UUID> findCourseIdsWithSnapshot(final LocalDate date) {
+        return jdbcTemplate.queryForList(FIND_COURSE_IDS_WITH_SNAPSHOT, UUID.class, date);
+    }
+
+    /**
+     * Finds the first date in the given range on which a snapshot was taken.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the first date with a snapshot, if there is one in the range
+     */
+    public Optional<LocalDate> findFirstSnapshotDateBetween(final LocalDate from, final LocalDate to) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(FIND_FIRST_SNAPSHOT_DATE_BETWEEN, LocalDate.class, from, to));
+    }
+
+    /**
+     * Finds the power each user of a course gained between the snapshots of two dates, ordered by the gained power
+     * from highest to lowest. Only users that have a snapshot on the end date are included.
+     *
+     * @param courseId the id of the course
+     * @param start    the date of the snapshot at the start
+     * @param end      the date of the snapshot at the end
+     * @return the gained power of each user
+     */
+    public List<PowerGain> findPowerGainedInCourse(final UUID courseId, final LocalDate start, final LocalDate end) {
+        return jdbcTemplate.query(FIND_POWER_GAINED_IN_COURSE,
+                (resultSet, rowNum) -> new PowerGain(resultSet.getObject("user_id", UUID.class),
+                        resultSet.getInt("power_gained")),
+                start, courseId, end);
+    }
+
+    /**
+     * @param month the month of the partition
+     * @return the name of the partition of the snapshot table for the month, e.g. {@code reward_scores_snapshot_2024_01}
+     */
+    private static String getPartitionName(final YearMonth month) {
+        return "%s_%04d_%02d".formatted(TABLE_NAME, month.getYear(), month.getMonthValue());
+    }
+}
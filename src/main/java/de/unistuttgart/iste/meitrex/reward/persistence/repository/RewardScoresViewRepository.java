@@ -0,0 +1,65 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RewardScoresViewRepository extends JpaRepository<RewardScoresViewEntity, AllRewardScoresEntity.PrimaryKey>,
+        RewardScoresViewRepositoryCustom {
+
+    /**
+     * Find the read model rows of all users in a course, ordered by power from highest to lowest.
+     *
+     * @param courseId the course id
+     * @return the rows of the course
+     */
+    @Query("select v from RewardScoresView v where v.id.courseId = :courseId order by v.powerValue desc")
+    List<RewardScoresViewEntity> findAllByCourseIdOrderByPowerDesc(@Param("courseId") UUID courseId);
+
+    /**
+     * Find the read model rows of the users with the highest power in a course, ordered by power from highest to
+     * lowest and, for the same power, by user id.
+     *
+     * @param courseId the course id
+     * @param pageable the number of rows to return
+     * @return the top rows of the course
+     */
+    @Query("select v from RewardScoresView v where v.id.courseId = :courseId order by v.powerValue desc, v.id.userId")
+    List<RewardScoresViewEntity> findTopByCourseId(@Param("courseId") UUID courseId, Pageable pageable);
+
+    /**
+     * Find the read model rows of a user in the given courses, using the index on the user id.
+     *
+     * @param userId    the id of the user
+     * @param courseIds the ids of the courses
+     * @return the rows that exist
+     */
+    @Query("select v from RewardScoresView v where v.id.userId = :userId and v.id.courseId in :courseIds")
+    List<RewardScoresViewEntity> findAllByUserIdAndCourseIdIn(@Param("userId") UUID userId,
+                                                              @Param("courseIds") Collection<UUID> courseIds);
+
+    /**
+     * Find the ids of all courses that have read model rows.
+     *
+     * @return the course ids
+     */
+    @Query("select distinct v.id.courseId from RewardScoresView v")
+    List<UUID> findAllCourseIds();
+
+    /**
+     * Delete the read model rows of all users in a course.
+     *
+     * @param courseId the course id
+     */
+    @Modifying
+    @Query("delete from RewardScoresView v where v.id.courseId = :courseId")
+    void deleteAllByCourseId(@Param("courseId") UUID courseId);
+}
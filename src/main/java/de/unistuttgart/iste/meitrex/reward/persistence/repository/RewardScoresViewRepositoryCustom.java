@@ -0,0 +1,42 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+import java.util.UUID;
+
+/**
+ * Repository fragment with the queries of the {@link RewardScoresViewRepository} that cannot be expressed with JPA.
+ */
+public interface RewardScoresViewRepositoryCustom {
+
+    /**
+     * Inserts or updates the read model row of the given reward scores. A row that already has a newer version
+     * is not replaced. The rank of an existing row is kept until the ranks are refreshed.
+     *
+     * @param allRewardScoresEntity the saved reward scores
+     */
+    void upsert(AllRewardScoresEntity allRewardScoresEntity);
+
+    /**
+     * Inserts the read model rows of all reward scores that do not have one yet,
+     * e.g. because they were saved before the read model existed.
+     *
+     * @return the number of inserted rows
+     */
+    int insertMissingRows();
+
+    /**
+     * Recalculates the ranks of all users in the given course.
+     *
+     * @param courseId the id of the course
+     * @return the number of rows whose rank changed
+     */
+    int refreshRanks(UUID courseId);
+
+    /**
+     * Recalculates the ranks of all users in all courses.
+     *
+     * @return the number of rows whose rank changed
+     */
+    int refreshAllRanks();
+}
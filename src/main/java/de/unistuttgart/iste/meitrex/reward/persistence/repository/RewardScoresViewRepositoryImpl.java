@@ -0,0 +1,97 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link RewardScoresViewRepositoryCustom} with PostgreSQL specific SQL.
+ */
+@RequiredArgsConstructor
+class RewardScoresViewRepositoryImpl implements RewardScoresViewRepositoryCustom {
+
+    private static final String UPSERT = """
+            insert into reward_scores_view (course_id, user_id,
+                                            health_value, health_percentage, fitness_value, fitness_percentage,
+                                            growth_value, growth_percentage, strength_value, strength_percentage,
+                                            power_value, power_percentage, last_changed, version)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict (course_id, user_id) do update
+            set health_value = excluded.health_value, health_percentage = excluded.health_percentage,
+                fitness_value = excluded.fitness_value, fitness_percentage = excluded.fitness_percentage,
+                growth_value = excluded.growth_value, growth_percentage = excluded.growth_percentage,
+                strength_value = excluded.strength_value, strength_percentage = excluded.strength_percentage,
+                power_value = excluded.power_value, power_percentage = excluded.power_percentage,
+                last_changed = excluded.last_changed, version = excluded.version
+            where reward_scores_view.version <= excluded.version
+            """;
+
+    private static final String INSERT_MISSING_ROWS = """
+            insert into reward_scores_view (course_id, user_id,
+                                            health_value, health_percentage, fitness_value, fitness_percentage,
+                                            growth_value, growth_percentage, strength_value, strength_percentage,
+                                            power_value, power_percentage, last_changed, version)
+            select s.course_id, s.user_id,
+                   health.value, health.percentage, fitness.value, fitness.percentage,
+                   growth.value, growth.percentage, strength.value, strength.percentage,
+                   power.value, power.percentage, coalesce(s.last_recalculation, now()), s.version
+            from reward_scores s
+            join reward_score health on health.id = s.health_id
+            join reward_score fitness on fitness.id = s.fitness_id
+            join reward_score growth on growth.id = s.growth_id
+            join reward_score strength on strength.id = s.strength_id
+            join reward_score power on power.id = s.power_id
+            on conflict (course_id, user_id) do nothing
+            """;
+
+    // only rows whose rank changed are written
+    private static final String REFRESH_RANKS = """
+            update reward_scores_view v
+            set power_rank = ranked.power_rank
+            from (select course_id, user_id,
+                         rank() over (partition by course_id order by power_value desc) as power_rank
+                  from reward_scores_view
+                  %s) ranked
+            where v.course_id = ranked.course_id and v.user_id = ranked.user_id
+            and v.power_rank is distinct from ranked.power_rank
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsert(final AllRewardScoresEntity allRewardScoresEntity) {
+        jdbcTemplate.update(UPSERT,
+                allRewardScoresEntity.getId().getCourseId(),
+                allRewardScoresEntity.getId().getUserId(),
+                allRewardScoresEntity.getHealth().getValue(),
+                allRewardScoresEntity.getHealth().getPercentage(),
+                allRewardScoresEntity.getFitness().getValue(),
+                allRewardScoresEntity.getFitness().getPercentage(),
+                allRewardScoresEntity.getGrowth().getValue(),
+                allRewardScoresEntity.getGrowth().getPercentage(),
+                allRewardScoresEntity.getStrength().getValue(),
+                allRewardScoresEntity.getStrength().getPercentage(),
+                allRewardScoresEntity.getPower().getValue(),
+                allRewardScoresEntity.getPower().getPercentage(),
+                OffsetDateTime.now(),
+                allRewardScoresEntity.getVersion());
+    }
+
+    @Override
+    public int insertMissingRows() {
+        return jdbcTemplate.update(INSERT_MISSING_ROWS);
+    }
+
+    @Override
+    public int refreshRanks(final UUID courseId) {
+        return jdbcTemplate.update(REFRESH_RANKS.formatted("where course_id = ?"), courseId);
+    }
+
+    @Override
+    public int refreshAllRanks() {
+        return jdbcTemplate.update(REFRESH_RANKS.formatted(""));
+    }
+}
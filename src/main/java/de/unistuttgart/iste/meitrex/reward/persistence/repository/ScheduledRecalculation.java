@@ -0,0 +1,14 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.repository;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Projection of the reward scores of a user in a course on the time of their next recalculation.
+ *
+ * @param id                the id of the reward scores
+ * @param nextRecalculation the time at which the reward scores have to be recalculated next
+ */
+public record ScheduledRecalculation(AllRewardScoresEntity.PrimaryKey id, OffsetDateTime nextRecalculation) {
+}
@@ -0,0 +1,46 @@
+package de.unistuttgart.iste.meitrex.reward.service;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreHistoryBucket;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreHistoryItem;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreType;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoreHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Provides the downsampled history of the reward scores of a user, e.g. for charts.
+ */
+@Service
+@RequiredArgsConstructor
+public class RewardScoreHistoryService {
+
+    private final RewardScoreHistoryRepository rewardScoreHistoryRepository;
+
+    /**
+     * Gets the changes of a reward score of a user in a course, aggregated per day or per week.
+     *
+     * @param courseId  the id of the course
+     * @param userId    the id of the user
+     * @param scoreType the reward score
+     * @param from      the inclusive start of the time range
+     * @param to        the exclusive end of the time range
+     * @param bucket    the size of the buckets
+     * @return one item per bucket with at least one change, ordered by the start of the bucket
+     * @throws IllegalArgumentException if the time range is empty
+     */
+    public List<RewardScoreHistoryItem> getRewardScoreHistory(final UUID courseId,
+                                                              final UUID userId,
+                                                              final RewardScoreType scoreType,
+                                                              final OffsetDateTime from,
+                                                              final OffsetDateTime to,
+                                                              final RewardScoreHistoryBucket bucket) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("The start of the time range must be before its end");
+        }
+        return rewardScoreHistoryRepository.findHistory(courseId, userId, scoreType, from, to, bucket);
+    }
+}
@@ -0,0 +1,59 @@
+package de.unistuttgart.iste.meitrex.reward.service;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresInitializationRequestedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Initializes reward scores in the background when they were read before they existed,
+ * so that reads neither write nor wait for the content service to calculate the initial health.
+ * Reward scores that are not read are initialized by the first progress event of the user instead.
+ */
+@Component
+@Slf4j
+public class RewardScoresInitializer {
+
+    private final RewardService rewardService;
+    private final TaskExecutor initializationExecutor;
+
+    /**
+     * The reward scores whose initialization is queued or running, so that repeated reads do not queue them again.
+     */
+    private final Set<AllRewardScoresEntity.PrimaryKey> pendingInitializations = ConcurrentHashMap.newKeySet();
+
+    public RewardScoresInitializer(final RewardService rewardService,
+                                   @Qualifier("initializationExecutor") final TaskExecutor initializationExecutor) {
+        this.rewardService = rewardService;
+        this.initializationExecutor = initializationExecutor;
+    }
+
+    /**
+     * Queues the initialization of the requested reward scores.
+     *
+     * @param event the event of the reward scores to initialize
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInitializationRequested(final RewardScoresInitializationRequestedEvent event) {
+        final AllRewardScoresEntity.PrimaryKey id = event.id();
+        if (!pendingInitializations.add(id)) {
+            return;
+        }
+        initializationExecutor.execute(() -> {
+            try {
+                rewardService.initializeRewardScoresIfAbsent(id.getCourseId(), id.getUserId());
+            } catch (final Exception e) {
+                log.error("Could not initialize reward scores of user {} in course {}",
+                        id.getUserId(), id.getCourseId(), e);
+            } finally {
+                pendingInitializations.remove(id);
+            }
+        });
+    }
+}
@@ -6,19 +6,29 @@ import de.unistuttgart.iste.meitrex.content_service.client.ContentServiceClient;
 import de.unistuttgart.iste.meitrex.generated.dto.*;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
 import de.unistuttgart.iste.meitrex.reward.persistence.mapper.RewardScoreMapper;
 import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.cache.RewardScoresCache;
 import de.unistuttgart.iste.meitrex.reward.service.calculation.*;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.DueWorkIndexRefreshedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoreValuesChangedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresInitializationRequestedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.outbox.RewardScoresOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.OffsetDateTime;
 import java.util.*;
 
-import static java.util.Comparator.comparing;
-
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -34,19 +44,31 @@ public class RewardService {
      */
     private static final int INITIAL_ABSOLUTE_REWARD_SCORE = 0;
 
+    /**
+     * Counter of the processed progress events, tagged with whether they changed the reward scores.
+     */
+    private static final String PROGRESS_EVENTS_METRIC = "reward.progress_events";
+    private static final String PROGRESS_EVENT_OUTCOME_CHANGED = "changed";
+    private static final String PROGRESS_EVENT_OUTCOME_UNCHANGED = "unchanged";
+
     private final AllRewardScoresRepository rewardScoresRepository;
+    private final RewardScoresViewRepository rewardScoresViewRepository;
+    private final RewardScoresOutbox rewardScoresOutbox;
     private final RewardScoreMapper mapper;
 
     private final HealthScoreCalculator healthScoreCalculator;
-    private final FitnessScoreCalculator fitnessScoreCalculator;
-    private final StrengthScoreCalculator strengthScoreCalculator;
-    private final PowerScoreCalculator powerScoreCalculator;
-    private final GrowthScoreCalculator growthScoreCalculator;
+    private final ScoreCalculationGraph scoreCalculationGraph;
+    private final DueWorkIndexCalculator dueWorkIndexCalculator;
 
     private final ContentServiceClient contentServiceClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RewardScoresCache rewardScoresCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Recalculates the reward scores for a given user and course.
+     * The entity is locked while it is recalculated, so that no concurrent change of its logs is lost.
      *
      * @param courseId the id of the course
      * @param userId   the id of the user
@@ -54,19 +76,126 @@ public class RewardService {
      */
     public RewardScores recalculateScores(final UUID courseId, final UUID userId) {
 
-        final AllRewardScoresEntity allRewardScoresEntity = rewardScoresRepository
-                .findById(new AllRewardScoresEntity.PrimaryKey(courseId, userId))
-                .orElseGet(() -> initializeRewardScores(courseId, userId));
+        final AllRewardScoresEntity allRewardScoresEntity
+                = getLockedRewardScoresEntity(new AllRewardScoresEntity.PrimaryKey(courseId, userId));
 
+        return recalculateScoresOfEntity(allRewardScoresEntity);
+    }
 
-        final List<Content> contents;
+    /**
+     * Recalculates the reward scores for a given user and course if the due-work index says that a recalculation
+     * is due. The entity is locked while it is recalculated, so that concurrent recalculations of the same user,
+     * e.g. by the timer wheel and the nightly job, do not decrease the scores twice.
+     * <p>
+     * The contents are fetched before the entity is locked, so that the lock is not held during the request
+     * to the content service. Therefore, whether the recalculation is due is checked again under the lock,
+     * with the index refreshed from the contents. If the index is unknown or stale, but no recalculation is due,
+     * only the index is refreshed: the reward scores are not saved, so no version is incremented and no
+     * update is published.
+     *
+     * @param courseId the id of the course
+     * @param userId   the id of the user
+     * @return whether the reward scores were recalculated
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public boolean recalculateScoresIfDue(final UUID courseId, final UUID userId) {
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final Boolean due = readOnlyTransactionTemplate().execute(status -> rewardScoresRepository.findById(id)
+                .map(allRewardScoresEntity -> isRefreshDue(allRewardScoresEntity, OffsetDateTime.now()))
+                .orElse(false));
+        if (!Boolean.TRUE.equals(due)) {
+            log.debug("Recalculation of user {} in course {} is not due", userId, courseId);
+            return false;
+        }
+        return recalculateScoresIfDue(id, queryContentsOfCourse(userId, courseId));
+    }
+
+    /**
+     * Refreshes the due-work index of a user in a course from the contents, e.g. after the due dates of the course
+     * were changed, and recalculates the reward scores only if the refreshed index says that a recalculation is due.
+     * Unlike {@link #recalculateScores(UUID, UUID)}, this does not decrease health or fitness again within a day
+     * of the last recalculation.
+     *
+     * @param courseId the id of the course
+     * @param userId   the id of the user
+     * @return whether the reward scores were recalculated
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public boolean refreshDueWorkIndex(final UUID courseId, final UUID userId) {
+        return recalculateScoresIfDue(new AllRewardScoresEntity.PrimaryKey(courseId, userId),
+                queryContentsOfCourse(userId, courseId));
+    }
+
+    /**
+     * Recalculates the reward scores of the locked entity if either its stored or its refreshed due-work index
+     * says that a recalculation is due, and otherwise only refreshes the index.
+     *
+     * @param id       the id of the reward scores
+     * @param contents all contents of the course, fetched before the entity is locked
+     * @return whether the reward scores were recalculated
+     */
+    private boolean recalculateScoresIfDue(final AllRewardScoresEntity.PrimaryKey id, final List<Content> contents) {
+        final Boolean recalculated = transactionTemplate.execute(status -> {
+            final Optional<AllRewardScoresEntity> allRewardScoresEntity = rewardScoresRepository.findLockedById(id);
+            if (allRewardScoresEntity.isEmpty()) {
+                return false;
+            }
+            final OffsetDateTime now = OffsetDateTime.now();
+            final OffsetDateTime nextDueDate = dueWorkIndexCalculator.calculateNextDueDate(contents);
+            final OffsetDateTime nextRecalculation = dueWorkIndexCalculator
+                    .calculateNextRecalculation(nextDueDate, allRewardScoresEntity.get().getLastRecalculation());
+            // both include the interval since the last recalculation, so a concurrent recalculation is not repeated
+            if (DueWorkIndexCalculator.isRecalculationDue(allRewardScoresEntity.get().getNextRecalculation(), now)
+                || DueWorkIndexCalculator.isRecalculationDue(nextRecalculation, now)) {
+                recalculateScoresOfEntity(allRewardScoresEntity.get(), contents);
+                return true;
+            }
+            log.debug("Refreshing only the due-work index of user {} in course {}", id.getUserId(), id.getCourseId());
+            rewardScoresRepository.updateDueWorkIndex(id, nextDueDate, nextRecalculation, now);
+            eventPublisher.publishEvent(new DueWorkIndexRefreshedEvent(id, nextRecalculation));
+            return false;
+        });
+        return Boolean.TRUE.equals(recalculated);
+    }
+
+    /**
+     * @return whether the due-work index is unknown or stale, or says that a recalculation is due
+     */
+    private static boolean isRefreshDue(final AllRewardScoresEntity allRewardScoresEntity,
+                                        final OffsetDateTime now) {
+        if (allRewardScoresEntity.getDueWorkIndexedAt() == null) {
+            // the due-work index is unknown, so we have to assume that work is due
+            return true;
+        }
+        if (allRewardScoresEntity.getDueWorkIndexedAt().isBefore(DueWorkIndexCalculator.staleBefore(now))) {
+            // the due dates may have changed since the index was refreshed
+            return true;
+        }
+        return DueWorkIndexCalculator.isRecalculationDue(allRewardScoresEntity.getNextRecalculation(), now);
+    }
+
+    private RewardScores recalculateScoresOfEntity(final AllRewardScoresEntity allRewardScoresEntity) {
+        final List<Content> contents = queryContentsOfCourse(allRewardScoresEntity.getId().getUserId(),
+                allRewardScoresEntity.getId().getCourseId());
+        return recalculateScoresOfEntity(allRewardScoresEntity, contents);
+    }
+
+    private RewardScores recalculateScoresOfEntity(final AllRewardScoresEntity allRewardScoresEntity,
+                                                   final List<Content> contents) {
         try {
-            contents = contentServiceClient.queryContentsOfCourse(userId, courseId);
+            final Map<ScoreType, Integer> previousValues = RewardScoresOutbox.valuesOf(allRewardScoresEntity);
             recalculateScoresAndUpdateEntity(allRewardScoresEntity, contents);
 
-            final var result = rewardScoresRepository.save(allRewardScoresEntity);
+            final var result = save(allRewardScoresEntity, previousValues);
+            return publishUpdate(result);
+        } catch (final Exception e) {
+            throw new RewardScoreCalculationException("Could not recalculate reward scores.", e);
+        }
+    }
 
-            return mapper.entityToDto(result);
+    private List<Content> queryContentsOfCourse(final UUID userId, final UUID courseId) {
+        try {
+            return contentServiceClient.queryContentsOfCourse(userId, courseId);
         } catch (final Exception e) {
             throw new RewardScoreCalculationException("Could not recalculate reward scores.", e);
         }
@@ -74,36 +203,12 @@ public class RewardService {
 
     private void recalculateScoresAndUpdateEntity(final AllRewardScoresEntity allRewardScoresEntity,
                                                   final List<Content> contents) {
-        allRewardScoresEntity
-                .setHealth(healthScoreCalculator.recalculateScore(allRewardScoresEntity, contents));
-        allRewardScoresEntity
-                .setFitness(fitnessScoreCalculator.recalculateScore(allRewardScoresEntity, contents));
-        allRewardScoresEntity
-                .setStrength(strengthScoreCalculator.recalculateScore(allRewardScoresEntity, contents));
-        allRewardScoresEntity
-                .setGrowth(growthScoreCalculator.recalculateScore(allRewardScoresEntity, contents));
-        allRewardScoresEntity
-                .setPower(powerScoreCalculator.recalculateScore(allRewardScoresEntity, contents));
-    }
-
-    /**
-     * Recalculates the reward scores for all users and courses.
-     * <p>
-     * By default, this method is called every day at 03:00.
-     * This can be changed in the application.properties file.
-     */
-    @Scheduled(cron = "${reward.recalculation.cron}")
-    public void recalculateAllScores() {
-        final List<AllRewardScoresEntity> allRewardScoresEntities = rewardScoresRepository.findAll();
-        for (final AllRewardScoresEntity allRewardScoresEntity : allRewardScoresEntities) {
-            try {
-                recalculateScores(allRewardScoresEntity.getId().getCourseId(), allRewardScoresEntity.getId().getUserId());
-            } catch (final Exception e) {
-                log.error("Could not recalculate reward scores for user {} in course {}",
-                        allRewardScoresEntity.getId().getUserId(), allRewardScoresEntity.getId().getCourseId(), e);
-            }
-        }
-        log.info("Recalculated reward scores for {} users", allRewardScoresEntities.size());
+        scoreCalculationGraph.recalculate(allRewardScoresEntity, contents);
+        // the time of the last recalculation is always stored, because it limits the decrease to once per day
+        allRewardScoresEntity.setLastRecalculation(OffsetDateTime.now());
+        updateDueWorkIndex(allRewardScoresEntity, contents);
+        // the entity is written anyway, so the index is marked as fresh even if it did not change
+        allRewardScoresEntity.setDueWorkIndexedAt(OffsetDateTime.now());
     }
 
     /**
@@ -120,76 +225,308 @@ public class RewardService {
     }
 
     /**
-     * Gets all reward scores for a given user and course and initializes them if they do not exist yet.
+     * Gets all reward scores for a given user and course.
+     * <p>
+     * Repeated reads are served from the {@link RewardScoresCache} without a transaction;
+     * only on a cache miss the reward scores are loaded from the database.
+     * If the user does not have reward scores yet, the initial reward scores are returned without persisting them
+     * and their initialization is requested, which is done in the background.
      *
      * @param courseId the id of the course
      * @param userId   the id of the user
      * @return the reward scores
      */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public RewardScores getRewardScores(final UUID courseId, final UUID userId) {
-        final AllRewardScoresEntity allRewardScoresEntity = getAllRewardScoresEntity(courseId, userId);
-        return mapper.entityToDto(allRewardScoresEntity);
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final Optional<RewardScores> cachedRewardScores = rewardScoresCache.get(id);
+        if (cachedRewardScores.isPresent()) {
+            return cachedRewardScores.get();
+        }
+
+        return transactionTemplate.execute(status -> {
+            final Optional<AllRewardScoresEntity> allRewardScoresEntity = rewardScoresRepository.findById(id);
+            if (allRewardScoresEntity.isEmpty()) {
+                return getInitialRewardScoresAndRequestInitialization(id);
+            }
+            final RewardScores rewardScores = mapper.entityToDto(allRewardScoresEntity.get());
+            rewardScoresCache.putIfAbsent(id, allRewardScoresEntity.get().getVersion(), rewardScores);
+            return rewardScores;
+        });
+    }
+
+    /**
+     * Initializes the reward scores for a given user and course, unless they were initialized in the meantime.
+     *
+     * @param courseId the id of the course
+     * @param userId   the id of the user
+     */
+    public void initializeRewardScoresIfAbsent(final UUID courseId, final UUID userId) {
+        if (!rewardScoresRepository.existsById(new AllRewardScoresEntity.PrimaryKey(courseId, userId))) {
+            initializeRewardScores(courseId, userId);
+        }
+    }
+
+    /**
+     * Returns the initial reward scores of a user that does not have reward scores yet and requests their
+     * initialization. The initial reward scores are cached with version 0, so that they are replaced
+     * as soon as the initialized reward scores are saved.
+     *
+     * @param id the id of the reward scores
+     * @return the initial reward scores
+     */
+    private RewardScores getInitialRewardScoresAndRequestInitialization(final AllRewardScoresEntity.PrimaryKey id) {
+        final RewardScores rewardScores = getInitialRewardScores(id);
+        rewardScoresCache.putIfAbsent(id, 0, rewardScores);
+        eventPublisher.publishEvent(new RewardScoresInitializationRequestedEvent(id));
+        return rewardScores;
+    }
+
+    /**
+     * Gets the reward scores for many users and courses at once. Cached reward scores are served from the
+     * {@link RewardScoresCache}, all others are loaded in a single query.
+     * <p>
+     * Users that do not have reward scores yet get the initial reward scores, which are not persisted,
+     * so that the request does not have to query the contents of each of these users.
+     *
+     * @param ids the ids of the reward scores
+     * @return the reward scores for each id
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Map<AllRewardScoresEntity.PrimaryKey, RewardScores> getRewardScores(
+            final Collection<AllRewardScoresEntity.PrimaryKey> ids) {
+        final Map<AllRewardScoresEntity.PrimaryKey, RewardScores> result = new HashMap<>(ids.size());
+        final List<AllRewardScoresEntity.PrimaryKey> uncachedIds = new ArrayList<>();
+        for (final AllRewardScoresEntity.PrimaryKey id : ids) {
+            rewardScoresCache.get(id).ifPresentOrElse(
+                    rewardScores -> result.put(id, rewardScores),
+                    () -> uncachedIds.add(id));
+        }
+        if (uncachedIds.isEmpty()) {
+            return result;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (final AllRewardScoresEntity allRewardScoresEntity : rewardScoresRepository.findAllByIdIn(uncachedIds)) {
+                final RewardScores rewardScores = mapper.entityToDto(allRewardScoresEntity);
+                rewardScoresCache.putIfAbsent(allRewardScoresEntity.getId(), allRewardScoresEntity.getVersion(), rewardScores);
+                result.put(allRewardScoresEntity.getId(), rewardScores);
+            }
+        });
+
+        for (final AllRewardScoresEntity.PrimaryKey id : uncachedIds) {
+            result.computeIfAbsent(id, this::getInitialRewardScores);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the reward scores of a user in all given courses. Cached reward scores are served from the
+     * {@link RewardScoresCache}, all others are loaded in a single query using the index on the user id.
+     * If the logs are not needed, the reward scores are read from the {@link RewardScoresViewEntity read model}.
+     * Courses in which the user does not have reward scores yet get the initial reward scores, which are not persisted;
+     * their initialization is requested, which is done in the background.
+     *
+     * @param userId      the id of the user
+     * @param courseIds   the ids of the courses
+     * @param includeLogs whether the logs of the reward scores are needed. If not, the logs are not loaded
+     *                    and the returned reward scores may have empty logs.
+     * @return the reward scores in each course, in the order of the given course ids
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<CourseRewardScores> getRewardScoresOfUser(final UUID userId,
+                                                          final Collection<UUID> courseIds,
+                                                          final boolean includeLogs) {
+        final Map<UUID, RewardScores> rewardScoresByCourse = new HashMap<>(courseIds.size());
+        final List<UUID> uncachedCourseIds = new ArrayList<>();
+        for (final UUID courseId : courseIds) {
+            rewardScoresCache.get(new AllRewardScoresEntity.PrimaryKey(courseId, userId)).ifPresentOrElse(
+                    rewardScores -> rewardScoresByCourse.put(courseId, rewardScores),
+                    () -> uncachedCourseIds.add(courseId));
+        }
+
+        if (!uncachedCourseIds.isEmpty() && !includeLogs) {
+            for (final RewardScoresViewEntity rewardScoresView
+                    : rewardScoresViewRepository.findAllByUserIdAndCourseIdIn(userId, uncachedCourseIds)) {
+                rewardScoresByCourse.put(rewardScoresView.getId().getCourseId(), mapper.viewToDto(rewardScoresView));
+            }
+        } else if (!uncachedCourseIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (final AllRewardScoresEntity allRewardScoresEntity
+                        : rewardScoresRepository.findAllByUserIdAndCourseIdIn(userId, uncachedCourseIds)) {
+                    final RewardScores rewardScores = mapper.entityToDto(allRewardScoresEntity);
+                    rewardScoresCache.putIfAbsent(allRewardScoresEntity.getId(), allRewardScoresEntity.getVersion(), rewardScores);
+                    rewardScoresByCourse.put(allRewardScoresEntity.getId().getCourseId(), rewardScores);
+                }
+            });
+        }
+
+        return courseIds.stream()
+                .map(courseId -> new CourseRewardScores(courseId, rewardScoresByCourse.computeIfAbsent(courseId,
+                        id -> getInitialRewardScoresAndRequestInitialization(new AllRewardScoresEntity.PrimaryKey(id, userId)))))
+                .toList();
+    }
+
+    private RewardScores getInitialRewardScores(final AllRewardScoresEntity.PrimaryKey id) {
+        return mapper.entityToDto(AllRewardScoresEntity.builder()
+                .id(id)
+                .health(initializeRewardScoreEntity(INITIAL_RELATIVE_REWARD_SCORE))
+                .fitness(initializeRewardScoreEntity(INITIAL_RELATIVE_REWARD_SCORE))
+                .growth(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE))
+                .strength(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE))
+                .power(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE))
+                .build());
     }
 
     /**
      * Calculates the new reward scores for a given user and course when the user works on a content.
+     * <p>
+     * Many events change nothing, e.g. because the content was already learned today. Therefore, the new reward
+     * scores are first calculated in a read-only transaction. If the event changes neither a reward score nor the
+     * due-work index, the current reward scores are returned without opening a write transaction. Otherwise,
+     * the entity is locked in a write transaction. If its version did not change since the calculation,
+     * the calculated reward scores are saved; only if another transaction saved the reward scores in the meantime,
+     * they are calculated again.
      *
      * @param event the event that triggered the calculation
      * @return the new reward scores
      */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public RewardScores calculateScoresOnContentWorkedOn(final UserProgressUpdatedEvent event) {
         final UUID courseId = event.getCourseId();
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, event.getUserId());
 
-        AllRewardScoresEntity allRewardScoresEntity = getAllRewardScoresEntity(courseId, event.getUserId());
-
+        final List<Content> contents;
         try {
+            contents = contentServiceClient.queryContentsOfCourse(event.getUserId(), courseId);
+        } catch (final Exception e) {
+            throw new RewardScoreCalculationException("Error while calculating fitness score", e);
+        }
 
-            final List<Content> contents
-                    = contentServiceClient.queryContentsOfCourse(event.getUserId(), courseId);
+        final ProgressCalculation calculation = Objects.requireNonNull(readOnlyTransactionTemplate().execute(
+                status -> calculateScoresWithoutSaving(id, event, contents)));
+
+        if (calculation.unchangedRewardScores() != null) {
+            log.debug("Reward scores of user {} in course {} did not change", event.getUserId(), courseId);
+            countProgressEvent(PROGRESS_EVENT_OUTCOME_UNCHANGED);
+            return calculation.unchangedRewardScores();
+        }
 
+        final RewardScores rewardScores = transactionTemplate.execute(status -> {
+            final AllRewardScoresEntity allRewardScoresEntity = getLockedRewardScoresEntity(id);
+            final Map<ScoreType, Integer> previousValues = RewardScoresOutbox.valuesOf(allRewardScoresEntity);
+            final AllRewardScoresEntity calculatedEntity = calculation.changedEntity();
+            if (calculatedEntity != null && calculatedEntity.getVersion() == allRewardScoresEntity.getVersion()) {
+                // nothing was saved since the calculation, so the calculated entity is merged into the locked one
+                return publishUpdate(save(calculatedEntity, previousValues));
+            }
             calculateNewScoresOnContentWorkedOn(event, allRewardScoresEntity, contents);
-        } catch (final Exception e) {
-            throw new RewardScoreCalculationException("Error while calculating fitness score", e);
+            return publishUpdate(save(allRewardScoresEntity, previousValues));
+        });
+        countProgressEvent(PROGRESS_EVENT_OUTCOME_CHANGED);
+        return rewardScores;
+    }
+
+    /**
+     * Calculates the new reward scores for the event without saving them.
+     * Must be called in a read-only transaction, so that the changes made to the entity are never flushed.
+     *
+     * @return the current reward scores if nothing changed, otherwise the changed entity, which is detached
+     *         once the transaction ends. Neither of them if the reward scores do not exist yet.
+     */
+    private ProgressCalculation calculateScoresWithoutSaving(final AllRewardScoresEntity.PrimaryKey id,
+                                                             final UserProgressUpdatedEvent event,
+                                                             final List<Content> contents) {
+        final Optional<AllRewardScoresEntity> allRewardScoresEntity = rewardScoresRepository.findById(id);
+        if (allRewardScoresEntity.isEmpty()) {
+            return new ProgressCalculation(null, null);
+        }
+        if (calculateNewScoresOnContentWorkedOn(event, allRewardScoresEntity.get(), contents)) {
+            return new ProgressCalculation(null, allRewardScoresEntity.get());
         }
+        return new ProgressCalculation(
+                rewardScoresCache.get(id).orElseGet(() -> mapper.entityToDto(allRewardScoresEntity.get())), null);
+    }
+
+    /**
+     * Loads and locks the entity for a given user and course and initializes it if it does not exist yet.
+     *
+     * @param id the id of the reward scores
+     * @return the locked entity
+     */
+    private AllRewardScoresEntity getLockedRewardScoresEntity(final AllRewardScoresEntity.PrimaryKey id) {
+        return rewardScoresRepository.findLockedById(id).orElseGet(() -> {
+            initializeRewardScores(id.getCourseId(), id.getUserId());
+            return rewardScoresRepository.findLockedById(id)
+                    .orElseThrow(() -> new IllegalStateException("Reward scores of user " + id.getUserId()
+                                                                 + " in course " + id.getCourseId() + " were deleted concurrently"));
+        });
+    }
 
-        allRewardScoresEntity = rewardScoresRepository.save(allRewardScoresEntity);
+    private TransactionTemplate readOnlyTransactionTemplate() {
+        final TransactionTemplate readOnlyTransactionTemplate
+                = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransactionTemplate.setReadOnly(true);
+        return readOnlyTransactionTemplate;
+    }
 
-        return mapper.entityToDto(allRewardScoresEntity);
+    private void countProgressEvent(final String outcome) {
+        meterRegistry.counter(PROGRESS_EVENTS_METRIC, "outcome", outcome).increment();
     }
 
-    private void calculateNewScoresOnContentWorkedOn(final UserProgressUpdatedEvent event,
-                                                     final AllRewardScoresEntity allRewardScoresEntity,
-                                                     final List<Content> contents) {
-        allRewardScoresEntity.setHealth(healthScoreCalculator
-                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event));
-        allRewardScoresEntity.setFitness(fitnessScoreCalculator
-                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event));
-        allRewardScoresEntity.setStrength(strengthScoreCalculator
-                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event));
-        allRewardScoresEntity.setGrowth(growthScoreCalculator
-                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event));
-        allRewardScoresEntity.setPower(powerScoreCalculator
-                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event));
+    /**
+     * Updates the reward scores and the due-work index of the entity for the given event.
+     *
+     * @return whether any of them changed
+     */
+    private boolean calculateNewScoresOnContentWorkedOn(final UserProgressUpdatedEvent event,
+                                                        final AllRewardScoresEntity allRewardScoresEntity,
+                                                        final List<Content> contents) {
+        final Set<ScoreType> changedScores = scoreCalculationGraph
+                .calculateOnContentWorkedOn(allRewardScoresEntity, contents, event);
+        final boolean dueWorkIndexChanged = updateDueWorkIndex(allRewardScoresEntity, contents);
+        return !changedScores.isEmpty() || dueWorkIndexChanged;
     }
 
     /**
      * Initializes a new {@link AllRewardScoresEntity} for a given user and course
      * with the default values for the reward scores.
+     * <p>
+     * The entity is created with {@link AllRewardScoresRepository#insertIfAbsent(AllRewardScoresEntity)}, so if
+     * the reward scores are initialized concurrently, e.g. by a read and a progress event of a new user,
+     * only one initialization takes effect and all of them return the reward scores that were created.
      *
      * @param courseId the id of the course
      * @param userId   the id of the user
      * @return the initialized entity
      */
     public AllRewardScoresEntity initializeRewardScores(final UUID courseId, final UUID userId) {
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
         final AllRewardScoresEntity allRewardScores = new AllRewardScoresEntity();
-        allRewardScores.setId(new AllRewardScoresEntity.PrimaryKey(courseId, userId));
+        allRewardScores.setId(id);
 
         initializeHealth(courseId, userId, allRewardScores);
         allRewardScores.setStrength(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE));
         allRewardScores.setFitness(initializeRewardScoreEntity(INITIAL_RELATIVE_REWARD_SCORE));
         allRewardScores.setGrowth(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE));
         allRewardScores.setPower(initializeRewardScoreEntity(INITIAL_ABSOLUTE_REWARD_SCORE));
-        return rewardScoresRepository.save(allRewardScores);
+        allRewardScores.setVersion(1);
+
+        final boolean inserted = rewardScoresRepository.insertIfAbsent(allRewardScores);
+
+        final AllRewardScoresEntity result = rewardScoresRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Reward scores of user " + userId
+                                                             + " in course " + courseId + " were deleted concurrently"));
+        if (inserted) {
+            rewardScoresViewRepository.upsert(result);
+            rewardScoresOutbox.add(result, null);
+            eventPublisher.publishEvent(new RewardScoreValuesChangedEvent(courseId, null,
+                    RewardScoresOutbox.valuesOf(result)));
+            publishUpdate(result);
+        } else {
+            log.debug("Reward scores of user {} in course {} were initialized concurrently", userId, courseId);
+        }
+        return result;
     }
 
     /**
@@ -206,6 +543,9 @@ public class RewardService {
             // Calculate the initial health value for the new entity
             final int initialHealthValue = healthScoreCalculator.calculateInitialHealthValueForNewEntity(contents);
             allRewardScoresEntity.setHealth(initializeRewardScoreEntity(initialHealthValue));
+            // the initial health value already accounts for the contents that are overdue today
+            allRewardScoresEntity.setLastRecalculation(OffsetDateTime.now());
+            updateDueWorkIndex(allRewardScoresEntity, contents);
         } catch (final Exception e) {
             // Handle exceptions by falling back to default values
             allRewardScoresEntity.setHealth(initializeRewardScoreEntity(INITIAL_RELATIVE_REWARD_SCORE));
@@ -214,6 +554,81 @@ public class RewardService {
         }
     }
 
+    /**
+     * Refreshes the due-work index of the given entity from the contents of the course.
+     * If the index is known and did not change, the entity is left untouched, so that it is not written.
+     *
+     * @param allRewardScoresEntity the entity to update
+     * @param contents              all contents of the course
+     * @return whether the index changed
+     */
+    private boolean updateDueWorkIndex(final AllRewardScoresEntity allRewardScoresEntity, final List<Content> contents) {
+        final OffsetDateTime nextDueDate = dueWorkIndexCalculator.calculateNextDueDate(contents);
+        final OffsetDateTime nextRecalculation = dueWorkIndexCalculator
+                .calculateNextRecalculation(nextDueDate, allRewardScoresEntity.getLastRecalculation());
+        if (allRewardScoresEntity.getDueWorkIndexedAt() != null
+            && isSameInstant(nextDueDate, allRewardScoresEntity.getNextDueDate())
+            && isSameInstant(nextRecalculation, allRewardScoresEntity.getNextRecalculation())) {
+            return false;
+        }
+        allRewardScoresEntity.setNextDueDate(nextDueDate);
+        allRewardScoresEntity.setNextRecalculation(nextRecalculation);
+        allRewardScoresEntity.setDueWorkIndexedAt(OffsetDateTime.now());
+        return true;
+    }
+
+    private static boolean isSameInstant(final OffsetDateTime a, final OffsetDateTime b) {
+        return a == null ? b == null : b != null && a.isEqual(b);
+    }
+
+    /**
+     * Saves the entity and increments its version. A detached entity is merged into the managed one. In the same
+     * transaction, its {@link RewardScoresViewEntity read model} row is updated and, if a reward score changed,
+     * an event is written to the {@link RewardScoresOutbox} and a {@link RewardScoreValuesChangedEvent} is published.
+     *
+     * @param allRewardScoresEntity the entity to save
+     * @param previousValues        the values of the reward scores before they were changed
+     * @return the saved entity
+     */
+    private AllRewardScoresEntity save(final AllRewardScoresEntity allRewardScoresEntity,
+                                       final Map<ScoreType, Integer> previousValues) {
+        allRewardScoresEntity.setVersion(allRewardScoresEntity.getVersion() + 1);
+        final AllRewardScoresEntity saved = rewardScoresRepository.save(allRewardScoresEntity);
+        rewardScoresViewRepository.upsert(saved);
+        rewardScoresOutbox.add(saved, previousValues);
+        final Map<ScoreType, Integer> values = RewardScoresOutbox.valuesOf(saved);
+        if (!values.equals(previousValues)) {
+            eventPublisher.publishEvent(new RewardScoreValuesChangedEvent(saved.getId().getCourseId(),
+                    previousValues, values));
+        }
+        return saved;
+    }
+
+    /**
+     * The result of the calculation of a progress event in the read-only transaction.
+     *
+     * @param unchangedRewardScores the current reward scores, if the event changes nothing
+     * @param changedEntity         the entity changed by the event, if the event changes something
+     */
+    private record ProgressCalculation(RewardScores unchangedRewardScores, AllRewardScoresEntity changedEntity) {
+    }
+
+    /**
+     * Publishes the {@link RewardScoresUpdatedEvent} for the saved entity.
+     *
+     * @param allRewardScoresEntity the saved entity
+     * @return the saved reward scores, mapped to the DTO
+     */
+    private RewardScores publishUpdate(final AllRewardScoresEntity allRewardScoresEntity) {
+        final RewardScores rewardScores = mapper.entityToDto(allRewardScoresEntity);
+        eventPublisher.publishEvent(new RewardScoresUpdatedEvent(
+                allRewardScoresEntity.getId(),
+                allRewardScoresEntity.getNextRecalculation(),
+                allRewardScoresEntity.getVersion(),
+                rewardScores));
+        return rewardScores;
+    }
+
     /**
      * Initializes a reward score entity with the given initial value and an empty log.
      *
@@ -230,22 +645,20 @@ public class RewardService {
 
     /**
      * Returns the scoreboard for a specific course. Sorted by power from highest to lowest.
+     * The scoreboard is read from the {@link RewardScoresViewEntity read model}, ordered by the database.
      *
      * @param courseId of the course for which the scoreboard should be retrieved
      * @return scoreboard
      */
+    @Transactional(Transactional.TxType.SUPPORTS)
     public List<ScoreboardItem> getScoreboard(final UUID courseId) {
-        final List<AllRewardScoresEntity> rewardScoresOfCourse = rewardScoresRepository.findAllRewardScoresEntitiesById_CourseId(courseId);
-
-        return rewardScoresOfCourse.stream()
+        return rewardScoresViewRepository.findAllByCourseIdOrderByPowerDesc(courseId).stream()
                 .map(RewardService::createScoreboardItemFromRewardScores)
-                // sort by power score from highest to lowest
-                .sorted(comparing(ScoreboardItem::getPowerScore).reversed())
                 .toList();
     }
 
-    private static ScoreboardItem createScoreboardItemFromRewardScores(final AllRewardScoresEntity rewardScoreEntity) {
-        return new ScoreboardItem(rewardScoreEntity.getId().getUserId(), rewardScoreEntity.getPower().getValue());
+    private static ScoreboardItem createScoreboardItemFromRewardScores(final RewardScoresViewEntity rewardScoresView) {
+        return new ScoreboardItem(rewardScoresView.getId().getUserId(), rewardScoresView.getPowerValue());
     }
 
 
@@ -270,5 +683,7 @@ public class RewardService {
         final List<AllRewardScoresEntity> entitiesToBeDeleted = rewardScoresRepository.findAllRewardScoresEntitiesById_CourseId(changeEvent.getCourseId());
 
         rewardScoresRepository.deleteAll(entitiesToBeDeleted);
+        rewardScoresViewRepository.deleteAllByCourseId(changeEvent.getCourseId());
+        eventPublisher.publishEvent(new CourseRewardScoresDeletedEvent(changeEvent.getCourseId()));
     }
 }
\ No newline at end of file
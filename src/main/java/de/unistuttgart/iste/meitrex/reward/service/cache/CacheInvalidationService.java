@@ -0,0 +1,116 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link RewardScoresCache caches} of all replicas of the service consistent.
+ * <p>
+ * After each commit that saved reward scores, an invalidation with the new version is queued. Invalidations are
+ * coalesced per user, so that a burst of changes of the same user results in a single invalidation
+ * with the latest version, and published as one batch by the {@link InvalidationBroker} in a fixed interval.
+ * Received invalidations evict the cached reward scores that are older than the invalidated version.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationService {
+
+    private final RewardScoresCache rewardScoresCache;
+    private final InvalidationBroker invalidationBroker;
+
+    private final Map<AllRewardScoresEntity.PrimaryKey, Long> pendingInvalidations = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingCourseInvalidations = ConcurrentHashMap.newKeySet();
+
+    public CacheInvalidationService(final RewardScoresCache rewardScoresCache,
+                                    final InvalidationBroker invalidationBroker) {
+        this.rewardScoresCache = rewardScoresCache;
+        this.invalidationBroker = invalidationBroker;
+    }
+
+    /**
+     * Queues the invalidation of the saved reward scores once the transaction that saved them is committed.
+     *
+     * @param event the event of the saved reward scores
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRewardScoresUpdated(final RewardScoresUpdatedEvent event) {
+        pendingInvalidations.merge(event.id(), event.version(), Math::max);
+    }
+
+    /**
+     * Queues the invalidation of all reward scores of a deleted course once the deletion is committed.
+     *
+     * @param event the event of the deleted course
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseRewardScoresDeleted(final CourseRewardScoresDeletedEvent event) {
+        pendingCourseInvalidations.add(event.courseId());
+    }
+
+    /**
+     * Publishes the queued invalidations as one batch.
+     */
+    @Scheduled(fixedDelayString = "${reward.cache.invalidation.flush_interval}")
+    public void flush() {
+        final List<RewardScoresInvalidation> invalidations = new ArrayList<>();
+        for (final AllRewardScoresEntity.PrimaryKey id : List.copyOf(pendingInvalidations.keySet())) {
+            final Long version = pendingInvalidations.remove(id);
+            if (version != null) {
+                invalidations.add(new RewardScoresInvalidation(id.getCourseId(), id.getUserId(), version));
+            }
+        }
+        for (final UUID courseId : List.copyOf(pendingCourseInvalidations)) {
+            if (pendingCourseInvalidations.remove(courseId)) {
+                invalidations.add(RewardScoresInvalidation.ofCourse(courseId));
+            }
+        }
+        if (invalidations.isEmpty()) {
+            return;
+        }
+
+        try {
+            invalidationBroker.publish(invalidations);
+        } catch (final Exception e) {
+            // retried with the next flush; until then, the entries of other replicas expire at the latest
+            log.error("Could not publish {} cache invalidations", invalidations.size(), e);
+            requeue(invalidations);
+        }
+    }
+
+    private void requeue(final List<RewardScoresInvalidation> invalidations) {
+        for (final RewardScoresInvalidation invalidation : invalidations) {
+            if (invalidation.isCourseInvalidation()) {
+                pendingCourseInvalidations.add(invalidation.courseId());
+            } else {
+                pendingInvalidations.merge(
+                        new AllRewardScoresEntity.PrimaryKey(invalidation.courseId(), invalidation.userId()),
+                        invalidation.version(), Math::max);
+            }
+        }
+    }
+
+    /**
+     * Applies invalidations received from another replica to the local cache.
+     *
+     * @param invalidations the received invalidations
+     */
+    public void apply(final List<RewardScoresInvalidation> invalidations) {
+        for (final RewardScoresInvalidation invalidation : invalidations) {
+            if (invalidation.isCourseInvalidation()) {
+                rewardScoresCache.evictCourse(invalidation.courseId());
+            } else {
+                rewardScoresCache.invalidate(
+                        new AllRewardScoresEntity.PrimaryKey(invalidation.courseId(), invalidation.userId()),
+                        invalidation.version());
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import io.dapr.client.DaprClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes the invalidations to the topic {@value #TOPIC} of the {@value #PUBSUB_NAME} Dapr pub/sub component.
+ * The invalidations are received by the
+ * {@link de.unistuttgart.iste.meitrex.reward.controller.SubscriptionController} of the other replicas.
+ * <p>
+ * The component is separate from the {@code gits} pub/sub, because every replica has to receive every invalidation:
+ * it gives each sidecar its own consumer ID, while the events of the {@code gits} pub/sub, e.g. the progress
+ * of the users, must be received by only one replica.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reward.cache.invalidation.broker", havingValue = "dapr", matchIfMissing = true)
+public class DaprInvalidationBroker implements InvalidationBroker {
+
+    public static final String PUBSUB_NAME = "reward-cache-invalidation";
+    public static final String TOPIC = "reward-scores-invalidated";
+
+    private final DaprClient daprClient;
+
+    @Override
+    public void publish(final List<RewardScoresInvalidation> invalidations) {
+        daprClient.publishEvent(PUBSUB_NAME, TOPIC, invalidations).block();
+    }
+}
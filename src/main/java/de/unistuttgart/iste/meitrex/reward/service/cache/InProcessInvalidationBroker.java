@@ -0,0 +1,33 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the Dapr pub/sub, which delivers the invalidations synchronously to all connected peers.
+ * Used for tests and for deployments with a single replica, where no invalidations have to be sent.
+ */
+@Component
+@ConditionalOnProperty(name = "reward.cache.invalidation.broker", havingValue = "local")
+public class InProcessInvalidationBroker implements InvalidationBroker {
+
+    private final List<Consumer<List<RewardScoresInvalidation>>> peers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Connects a peer that receives all published invalidations.
+     *
+     * @param peer the receiver of the invalidations, e.g. {@link CacheInvalidationService#apply(List)}
+     */
+    public void connect(final Consumer<List<RewardScoresInvalidation>> peer) {
+        peers.add(peer);
+    }
+
+    @Override
+    public void publish(final List<RewardScoresInvalidation> invalidations) {
+        peers.forEach(peer -> peer.accept(invalidations));
+    }
+}
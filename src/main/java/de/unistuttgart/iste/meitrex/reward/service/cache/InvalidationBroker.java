@@ -0,0 +1,17 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import java.util.List;
+
+/**
+ * Transport of the {@link RewardScoresInvalidation cache invalidations} to the other replicas of the service.
+ * The implementation is selected by the property {@code reward.cache.invalidation.broker}.
+ */
+public interface InvalidationBroker {
+
+    /**
+     * Publishes a batch of invalidations to all other replicas.
+     *
+     * @param invalidations the invalidations
+     */
+    void publish(List<RewardScoresInvalidation> invalidations);
+}
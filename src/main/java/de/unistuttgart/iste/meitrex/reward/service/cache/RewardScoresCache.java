@@ -0,0 +1,152 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Bounded in-process cache of the mapped {@link RewardScores} of each user in each course.
+ * <p>
+ * The cache is written through whenever reward scores are saved, after the transaction that saved them
+ * has been committed, so that it never contains scores of a rolled back transaction. When the cache is full,
+ * the least recently used entry is evicted.
+ * <p>
+ * Each entry keeps the version of the cached reward scores, so that older reward scores never replace newer ones
+ * and invalidations of other replicas (see {@link CacheInvalidationService}) only evict outdated entries.
+ * As a backstop for missed invalidations, entries expire after a time to live.
+ * <p>
+ * The cached DTOs are shared between requests and must not be modified.
+ */
+@Component
+public class RewardScoresCache {
+
+    private final Map<AllRewardScoresEntity.PrimaryKey, Entry> entries;
+    private final Duration timeToLive;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize    the maximum number of cached reward scores
+     * @param timeToLive the time after which cached reward scores expire
+     */
+    public RewardScoresCache(@Value("${reward.cache.max_size}") final int maxSize,
+                             @Value("${reward.cache.ttl}") final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+        // access order, so that the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<AllRewardScoresEntity.PrimaryKey, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param id the id of the reward scores
+     * @return the cached reward scores, if they are cached and not expired
+     */
+    public synchronized Optional<RewardScores> get(final AllRewardScoresEntity.PrimaryKey id) {
+        final Entry cached = entries.get(id);
+        if (cached != null && isExpired(cached)) {
+            entries.remove(id);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cached).map(Entry::rewardScores);
+    }
+
+    /**
+     * Caches reward scores that were saved, unless newer reward scores are already cached.
+     *
+     * @param id           the id of the reward scores
+     * @param version      the version of the saved reward scores
+     * @param rewardScores the saved reward scores
+     */
+    public synchronized void put(final AllRewardScoresEntity.PrimaryKey id,
+                                 final long version,
+                                 final RewardScores rewardScores) {
+        entries.merge(id, newEntry(version, rewardScores),
+                (cached, saved) -> saved.version() >= cached.version() || isExpired(cached) ? saved : cached);
+    }
+
+    /**
+     * Caches reward scores that were read from the database, unless unexpired reward scores are already cached.
+     * Reward scores that were saved in the meantime are not replaced by the older ones that were read.
+     *
+     * @param id           the id of the reward scores
+     * @param version      the version of the reward scores that were read
+     * @param rewardScores the reward scores read from the database
+     */
+    public synchronized void putIfAbsent(final AllRewardScoresEntity.PrimaryKey id,
+                                         final long version,
+                                         final RewardScores rewardScores) {
+        entries.merge(id, newEntry(version, rewardScores), (cached, read) -> isExpired(cached) ? read : cached);
+    }
+
+    /**
+     * Evicts the cached reward scores, if they are older than the given version.
+     *
+     * @param id      the id of the reward scores
+     * @param version the version of the reward scores that were saved
+     */
+    public synchronized void invalidate(final AllRewardScoresEntity.PrimaryKey id, final long version) {
+        final Entry cached = entries.get(id);
+        if (cached != null && cached.version() < version) {
+            entries.remove(id);
+        }
+    }
+
+    /**
+     * Evicts the reward scores of all users in the given course.
+     *
+     * @param courseId the id of the course
+     */
+    public synchronized void evictCourse(final UUID courseId) {
+        entries.keySet().removeIf(id -> id.getCourseId().equals(courseId));
+    }
+
+    /**
+     * @return the number of cached reward scores
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the saved reward scores through to the cache once the transaction that saved them is committed.
+     *
+     * @param event the event of the saved reward scores
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRewardScoresUpdated(final RewardScoresUpdatedEvent event) {
+        put(event.id(), event.version(), event.rewardScores());
+    }
+
+    /**
+     * Evicts the reward scores of a deleted course once the deletion is committed.
+     *
+     * @param event the event of the deleted course
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseRewardScoresDeleted(final CourseRewardScoresDeletedEvent event) {
+        evictCourse(event.courseId());
+    }
+
+    private Entry newEntry(final long version, final RewardScores rewardScores) {
+        return new Entry(version, rewardScores, Instant.now().plus(timeToLive));
+    }
+
+    private static boolean isExpired(final Entry entry) {
+        return !Instant.now().isBefore(entry.expiresAt());
+    }
+
+    private record Entry(long version, RewardScores rewardScores, Instant expiresAt) {
+    }
+}
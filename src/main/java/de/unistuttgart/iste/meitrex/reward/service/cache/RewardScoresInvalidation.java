@@ -0,0 +1,29 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import java.util.UUID;
+
+/**
+ * Message that tells other replicas that the reward scores of a user in a course were saved
+ * and that cached reward scores older than the given version are outdated.
+ *
+ * @param courseId the id of the course
+ * @param userId   the id of the user, or {@code null} if the reward scores of all users of the course were deleted
+ * @param version  the version of the saved reward scores, ignored if the reward scores were deleted
+ */
+public record RewardScoresInvalidation(UUID courseId, UUID userId, long version) {
+
+    /**
+     * @param courseId the id of the deleted course
+     * @return the invalidation of all reward scores of the course
+     */
+    public static RewardScoresInvalidation ofCourse(final UUID courseId) {
+        return new RewardScoresInvalidation(courseId, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return whether the reward scores of all users of the course are invalidated
+     */
+    public boolean isCourseInvalidation() {
+        return userId == null;
+    }
+}
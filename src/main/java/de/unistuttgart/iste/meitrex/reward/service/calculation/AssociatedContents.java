@@ -0,0 +1,43 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.generated.dto.Content;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounds the contents a log entry is associated with. Recalculations can be caused by many contents at once,
+ * so only the first contents are stored and the remaining ones are only counted, see
+ * {@link RewardScoreLogEntry#getTruncatedContentCount()}.
+ */
+final class AssociatedContents {
+
+    /**
+     * The default maximum number of contents stored in a log entry.
+     */
+    static final int MAX_ASSOCIATED_CONTENTS_DEFAULT = 20;
+
+    private AssociatedContents() {
+    }
+
+    /**
+     * Associates the log entry with the given contents, keeping at most the given number of them.
+     *
+     * @param builder  the builder of the log entry
+     * @param contents the contents that caused the change, the most relevant first
+     * @param max      the maximum number of content ids to store
+     * @return the builder
+     */
+    static RewardScoreLogEntry.RewardScoreLogEntryBuilder associate(final RewardScoreLogEntry.RewardScoreLogEntryBuilder builder,
+                                                                  final List<Content> contents,
+                                                                  final int max) {
+        final List<UUID> kept = contents.stream()
+                .limit(max)
+                .map(Content::getId)
+                .toList();
+        return builder
+                .associatedContentIds(kept)
+                .truncatedContentCount(contents.size() - kept.size());
+    }
+}
@@ -0,0 +1,102 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.generated.dto.Content;
+import de.unistuttgart.iste.meitrex.generated.dto.UserProgressData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Calculates the entry of the due-work index of a user in a course.
+ * <p>
+ * The index stores the earliest date at which the nightly recalculation can change the health or fitness
+ * score of the user. Health only changes for content that is due and was never learned,
+ * fitness only changes for learned content that is due for review.
+ * Growth, strength and power never change on their own during the recalculation.
+ * <p>
+ * From the index, the time of the next recalculation of the user is derived, which is used to schedule
+ * the recalculation in the timer wheel.
+ */
+@Component
+@Slf4j
+public class DueWorkIndexCalculator {
+
+    /**
+     * Health and fitness are decreased at most once per interval, because the decrease is calculated per day.
+     */
+    private static final Duration RECALCULATION_INTERVAL = Duration.ofDays(1);
+
+    /**
+     * The maximum age of the due-work index. Instructors can change the due dates of contents without
+     * the service being notified, so an older index is no longer trusted and is refreshed from the contents.
+     * Due dates that are changed on purpose are picked up earlier by a course recalculation.
+     */
+    public static final Duration MAX_INDEX_AGE = Duration.ofDays(7);
+
+    /**
+     * Calculates the time before which a due-work index is stale, see {@link #MAX_INDEX_AGE}.
+     *
+     * @param dueAt the time at which the recalculation has to be due
+     * @return the time before which the index is stale
+     */
+    public static OffsetDateTime staleBefore(final OffsetDateTime dueAt) {
+        return dueAt.minus(MAX_INDEX_AGE);
+    }
+
+    /**
+     * Calculates the earliest date at which there is pending work for the user, i.e.
+     * the earliest suggested date of a content that was never learned
+     * or the earliest next learn date of a content that was learned.
+     *
+     * @param contents all contents of the course, including the progress data of the user
+     * @return the earliest pending due date, or {@code null} if there is no pending work
+     */
+    public OffsetDateTime calculateNextDueDate(final List<Content> contents) {
+        final OffsetDateTime nextDueDate = contents.stream()
+                .map(DueWorkIndexCalculator::getPendingDueDate)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        log.debug("Next due date: {}", nextDueDate);
+        return nextDueDate;
+    }
+
+    /**
+     * Calculates the next time at which a recalculation can change health or fitness.
+     * This is the next due date, but not earlier than one day after the last recalculation.
+     *
+     * @param nextDueDate       the earliest pending due date, see {@link #calculateNextDueDate(List)}
+     * @param lastRecalculation the time of the last recalculation, or {@code null} if there was none
+     * @return the time of the next recalculation, or {@code null} if there is no pending work
+     */
+    public OffsetDateTime calculateNextRecalculation(final OffsetDateTime nextDueDate,
+                                                     final OffsetDateTime lastRecalculation) {
+        if (nextDueDate == null || lastRecalculation == null) {
+            return nextDueDate;
+        }
+        final OffsetDateTime earliestRecalculation = lastRecalculation.plus(RECALCULATION_INTERVAL);
+        return nextDueDate.isAfter(earliestRecalculation) ? nextDueDate : earliestRecalculation;
+    }
+
+    /**
+     * @param nextRecalculation the time of the next recalculation, see {@link #calculateNextRecalculation}
+     * @param now               the current time
+     * @return whether a recalculation can change health or fitness now
+     */
+    public static boolean isRecalculationDue(final OffsetDateTime nextRecalculation, final OffsetDateTime now) {
+        return nextRecalculation != null && !nextRecalculation.isAfter(now);
+    }
+
+    private static OffsetDateTime getPendingDueDate(final Content content) {
+        final UserProgressData progressData = content.getUserProgressData();
+        if (progressData == null || !Boolean.TRUE.equals(progressData.getIsLearned())) {
+            // content was never learned, so it affects the health score once its suggested date has passed
+            return content.getMetadata() == null ? null : content.getMetadata().getSuggestedDate();
+        }
+        // content was learned, so it affects the fitness score once it is due for review
+        return progressData.getNextLearnDate();
+    }
+}
@@ -32,26 +32,31 @@ public class FitnessScoreCalculator implements ScoreCalculator {
 
     private final double fitnessModifierPerDay;
 
+    private final int maxAssociatedContents;
+
     /**
      * Creates a new instance.
      *
      * @param maxDecreasePerDay     the maximum decrease per day
      * @param fitnessModifierPerDay the fitness modifier, applied to the number of days each content is overdue
+     * @param maxAssociatedContents the maximum number of contents stored in a log entry of a recalculation
      */
     @Autowired
     public FitnessScoreCalculator(@Value("${reward.fitness.max_decrease_per_day}") final double maxDecreasePerDay,
-                                  @Value("${reward.fitness.multiplier}") final double fitnessModifierPerDay) {
+                                  @Value("${reward.fitness.multiplier}") final double fitnessModifierPerDay,
+                                  @Value("${reward.log.max_associated_contents}") final int maxAssociatedContents) {
         log.info("Creating FitnessScoreCalculator with maxDecreasePerDay={}, fitnessModifierPerDay={}",
                 maxDecreasePerDay, fitnessModifierPerDay);
         this.maxDecreasePerDay = maxDecreasePerDay;
         this.fitnessModifierPerDay = fitnessModifierPerDay;
+        this.maxAssociatedContents = maxAssociatedContents;
     }
 
     /**
      * Creates a new instance with default values.
      */
     public FitnessScoreCalculator() {
-        this(MAX_DECREASE_PER_DAY_DEFAULT, FITNESS_MODIFIER_PER_DAY_DEFAULT);
+        this(MAX_DECREASE_PER_DAY_DEFAULT, FITNESS_MODIFIER_PER_DAY_DEFAULT, AssociatedContents.MAX_ASSOCIATED_CONTENTS_DEFAULT);
     }
 
     @Override
@@ -156,21 +161,19 @@ public class FitnessScoreCalculator implements ScoreCalculator {
     private RewardScoreLogEntry createLogEntryOnRecalculation(final int oldScore,
                                                               final int newFitness,
                                                               final List<Content> contents) {
-        return RewardScoreLogEntry.builder()
+        // only the overdue contents decrease the fitness, the longest overdue ones the most
+        final List<Content> mostOverdueFirst = getOverdueContents(contents).stream()
+                .sorted(Comparator.comparingInt(this::calculateDaysOverdue).reversed())
+                .toList();
+        return AssociatedContents.associate(RewardScoreLogEntry.builder(), mostOverdueFirst, maxAssociatedContents)
                 .date(OffsetDateTime.now())
                 .difference(newFitness - oldScore)
                 .oldValue(oldScore)
                 .newValue(newFitness)
                 .reason(RewardChangeReason.CONTENT_DUE_FOR_REPETITION)
-                .associatedContentIds(getIds(contents))
                 .build();
     }
 
-
-    private List<UUID> getIds(final List<Content> contents) {
-        return contents.stream().map(Content::getId).toList();
-    }
-
     private Content getContentOfEvent(final List<Content> contents, final UserProgressUpdatedEvent event) {
         return contents.stream()
                 .filter(content -> content.getId().equals(event.getContentId()))
@@ -189,18 +192,25 @@ public class FitnessScoreCalculator implements ScoreCalculator {
     private double calculateFitnessDecrease(final List<Content> contents) {
         double fitnessDecrease = 0.0;
 
-        for (final Content content : contents) {
-            if (isDueForRepetition(content) && isNotNew(content)) {
-                final int daysOverdue = calculateDaysOverdue(content);
-                final double correctness = calculateCorrectnessModifier(getLatestReview(content));
-                final double decreasePerDay = 1 + (fitnessModifierPerDay * daysOverdue * (1 - correctness));
-                fitnessDecrease += decreasePerDay;
-            }
+        for (final Content content : getOverdueContents(contents)) {
+            final int daysOverdue = calculateDaysOverdue(content);
+            final double correctness = calculateCorrectnessModifier(getLatestReview(content));
+            final double decreasePerDay = 1 + (fitnessModifierPerDay * daysOverdue * (1 - correctness));
+            fitnessDecrease += decreasePerDay;
         }
 
         return Math.min(maxDecreasePerDay, fitnessDecrease);
     }
 
+    /**
+     * @return the contents that were already learned and are due for repetition, i.e. those that decrease the fitness
+     */
+    private List<Content> getOverdueContents(final List<Content> contents) {
+        return contents.stream()
+                .filter(content -> isDueForRepetition(content) && isNotNew(content))
+                .toList();
+    }
+
     private boolean isDueForRepetition(final Content content) {
         return content.getUserProgressData().getIsDueForReview();
     }
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,26 +42,34 @@ public class HealthScoreCalculator implements ScoreCalculator {
      */
     private final double healthDecreaseCap;
 
+    /**
+     * The maximum number of contents stored in a log entry of a recalculation.
+     */
+    private final int maxAssociatedContents;
+
     /**
      * Creates a new instance.
      *
-     * @param healthModifierPerDay the health modifier per day
-     * @param healthDecreaseCap    the health decrease cap
+     * @param healthModifierPerDay  the health modifier per day
+     * @param healthDecreaseCap     the health decrease cap
+     * @param maxAssociatedContents the maximum number of contents stored in a log entry of a recalculation
      */
     @Autowired
     public HealthScoreCalculator(@Value("${reward.health.multiplier}") final double healthModifierPerDay,
-                                 @Value("${reward.health.max_decrease_per_day}") final double healthDecreaseCap) {
+                                 @Value("${reward.health.max_decrease_per_day}") final double healthDecreaseCap,
+                                 @Value("${reward.log.max_associated_contents}") final int maxAssociatedContents) {
         log.info("Creating HealthScoreCalculator with healthModifierPerDay={}, healthDecreaseCap={}",
                 healthModifierPerDay, healthDecreaseCap);
         this.healthModifierPerDay = healthModifierPerDay;
         this.healthDecreaseCap = healthDecreaseCap;
+        this.maxAssociatedContents = maxAssociatedContents;
     }
 
     /**
      * Creates a new instance with default values.
      */
     public HealthScoreCalculator() {
-        this(HEALTH_MODIFIER_PER_DAY_DEFAULT, HEALTH_DECREASE_CAP_DEFAULT);
+        this(HEALTH_MODIFIER_PER_DAY_DEFAULT, HEALTH_DECREASE_CAP_DEFAULT, AssociatedContents.MAX_ASSOCIATED_CONTENTS_DEFAULT);
     }
 
     @Override
@@ -171,17 +180,20 @@ public class HealthScoreCalculator implements ScoreCalculator {
         return Math.max(HEALTH_MIN, Math.min(HEALTH_MAX, initialHealthValue));
     }
 
-    private static RewardScoreLogEntry createLogEntryOnRecalculation(final OffsetDateTime today,
-                                                                     final int newScore,
-                                                                     final int oldScore,
-                                                                     final List<Content> newDueContents) {
-        return RewardScoreLogEntry.builder()
+    private RewardScoreLogEntry createLogEntryOnRecalculation(final OffsetDateTime today,
+                                                              final int newScore,
+                                                              final int oldScore,
+                                                              final List<Content> newDueContents) {
+        // the contents that are overdue the longest contribute the most to the decrease
+        final List<Content> mostOverdueFirst = newDueContents.stream()
+                .sorted(Comparator.comparingInt((Content content) -> getDaysOverDue(content, today)).reversed())
+                .toList();
+        return AssociatedContents.associate(RewardScoreLogEntry.builder(), mostOverdueFirst, maxAssociatedContents)
                 .date(today)
                 .difference(newScore - oldScore)
                 .newValue(newScore)
                 .oldValue(oldScore)
                 .reason(RewardChangeReason.CONTENT_DUE_FOR_LEARNING)
-                .associatedContentIds(getIds(newDueContents))
                 .build();
     }
 
@@ -190,12 +202,6 @@ public class HealthScoreCalculator implements ScoreCalculator {
                 .anyMatch(content -> content.getId().equals(contentId));
     }
 
-    private static List<UUID> getIds(final List<Content> newDueContents) {
-        return newDueContents.stream()
-                .map(Content::getId)
-                .toList();
-    }
-
     /**
      * Calculates the health decrease based on the number of days the content is overdue.
      * The decrease is capped at {@link #healthDecreaseCap}.
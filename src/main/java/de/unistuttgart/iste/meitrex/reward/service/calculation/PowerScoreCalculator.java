@@ -9,9 +9,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Calculates the power score of a user, according the concept documented
@@ -22,6 +22,7 @@ import java.util.List;
 public class PowerScoreCalculator implements ScoreCalculator {
 
     private static final double HEALTH_FITNESS_MULTIPLIER_DEFAULT = 0.1;
+    private static final Duration LOG_COALESCING_WINDOW_DEFAULT = Duration.ofDays(1);
 
     /**
      * The multiplier for the health and fitness score.
@@ -29,24 +30,43 @@ public class PowerScoreCalculator implements ScoreCalculator {
      */
     private final double healthFitnessMultiplier;
 
+    /**
+     * The window in which consecutive power changes are coalesced into a single log entry.
+     * @see PowerScoreCalculator#PowerScoreCalculator(double, Duration)
+     */
+    private final Duration logCoalescingWindow;
+
     /**
      * Creates a new instance.
      *
      * @param healthFitnessMultiplier the health and fitness multiplier.
      *                                This controls how much the health and fitness score influence the power score.
      *                                By default, the health and fitness score can increase the power score by up to 10%.
+     * @param logCoalescingWindow     the window in which consecutive power changes are coalesced into a single log
+     *                                entry. A change within this duration after the date of the latest log entry
+     *                                updates that entry instead of adding a new one. Zero disables the coalescing.
      */
     @Autowired
-    public PowerScoreCalculator(@Value("${reward.power.health_fitness_multiplier}") final double healthFitnessMultiplier) {
-        log.info("Creating PowerScoreCalculator with healthFitnessMultiplier={}", healthFitnessMultiplier);
+    public PowerScoreCalculator(@Value("${reward.power.health_fitness_multiplier}") final double healthFitnessMultiplier,
+                                @Value("${reward.power.log_coalescing_window}") final Duration logCoalescingWindow) {
+        log.info("Creating PowerScoreCalculator with healthFitnessMultiplier={}, logCoalescingWindow={}",
+                healthFitnessMultiplier, logCoalescingWindow);
         this.healthFitnessMultiplier = healthFitnessMultiplier;
+        this.logCoalescingWindow = logCoalescingWindow;
     }
 
     /**
      * Creates a new instance with default values.
      */
     public PowerScoreCalculator() {
-        this(HEALTH_FITNESS_MULTIPLIER_DEFAULT);
+        this(HEALTH_FITNESS_MULTIPLIER_DEFAULT, LOG_COALESCING_WINDOW_DEFAULT);
+    }
+
+    /**
+     * @return the window in which consecutive power changes are coalesced into a single log entry
+     */
+    public Duration getLogCoalescingWindow() {
+        return logCoalescingWindow;
     }
 
     @Override
@@ -62,6 +82,11 @@ public class PowerScoreCalculator implements ScoreCalculator {
         return calculatePowerScore(allRewardScores);
     }
 
+    @Override
+    public Set<ScoreType> getDependencies() {
+        return EnumSet.of(ScoreType.GROWTH, ScoreType.STRENGTH, ScoreType.HEALTH, ScoreType.FITNESS);
+    }
+
     private RewardScoreEntity calculatePowerScore(final AllRewardScoresEntity allRewardScores) {
         log.debug("Calculating power score");
         final int growth = allRewardScores.getGrowth().getValue();
@@ -87,18 +112,40 @@ public class PowerScoreCalculator implements ScoreCalculator {
             return allRewardScores.getPower();
         }
 
-        final RewardScoreLogEntry logEntry = createLogEntry(oldPower, powerRounded);
-
         final RewardScoreEntity powerEntity = allRewardScores.getPower();
+        final OffsetDateTime now = OffsetDateTime.now();
         powerEntity.setValue(powerRounded);
-        powerEntity.getLog().add(logEntry);
+
+        final Optional<RewardScoreLogEntry> coalescableEntry = findCoalescableLogEntry(powerEntity, now);
+        if (coalescableEntry.isPresent()) {
+            // the entry keeps its date and old value, so that it spans all changes within the window
+            coalescableEntry.get().setNewValue(powerRounded);
+            coalescableEntry.get().setDifference(powerRounded - coalescableEntry.get().getOldValue());
+        } else {
+            powerEntity.getLog().add(createLogEntry(now, oldPower, powerRounded));
+        }
 
         return powerEntity;
     }
 
-    private static RewardScoreLogEntry createLogEntry(final int oldPower, final int newPower) {
+    /**
+     * Finds the log entry that a power change at the given time is coalesced into: the latest log entry,
+     * if it is also a power change and the change is within the coalescing window after its date.
+     */
+    private Optional<RewardScoreLogEntry> findCoalescableLogEntry(final RewardScoreEntity powerEntity,
+                                                                  final OffsetDateTime now) {
+        if (logCoalescingWindow.isZero()) {
+            return Optional.empty();
+        }
+        return powerEntity.getLog().stream()
+                .max(Comparator.comparing(RewardScoreLogEntry::getDate))
+                .filter(entry -> entry.getReason() == RewardChangeReason.COMPOSITE_VALUE)
+                .filter(entry -> now.isBefore(entry.getDate().plus(logCoalescingWindow)));
+    }
+
+    private static RewardScoreLogEntry createLogEntry(final OffsetDateTime date, final int oldPower, final int newPower) {
         return RewardScoreLogEntry.builder()
-                .date(OffsetDateTime.now())
+                .date(date)
                 .difference(newPower - oldPower)
                 .oldValue(oldPower)
                 .newValue(newPower)
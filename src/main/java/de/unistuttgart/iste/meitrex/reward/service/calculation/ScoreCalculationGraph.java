@@ -0,0 +1,139 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.common.event.UserProgressUpdatedEvent;
+import de.unistuttgart.iste.meitrex.generated.dto.Content;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Runs the {@link ScoreCalculator}s of all reward scores in the order of their
+ * {@link ScoreCalculator#getDependencies() dependencies} and keeps track of which scores changed.
+ * <p>
+ * A calculator that depends on other scores, e.g. the {@link PowerScoreCalculator}, is only run if at least one
+ * of its dependencies changed in the same calculation. Otherwise, its score stays as it is.
+ */
+@Component
+@Slf4j
+public class ScoreCalculationGraph {
+
+    /**
+     * The calculators in an order in which each calculator comes after all of its dependencies.
+     */
+    private final Map<ScoreType, ScoreCalculator> calculators;
+
+    @Autowired
+    public ScoreCalculationGraph(final HealthScoreCalculator healthScoreCalculator,
+                                 final FitnessScoreCalculator fitnessScoreCalculator,
+                                 final GrowthScoreCalculator growthScoreCalculator,
+                                 final StrengthScoreCalculator strengthScoreCalculator,
+                                 final PowerScoreCalculator powerScoreCalculator) {
+        this(Map.of(
+                ScoreType.HEALTH, healthScoreCalculator,
+                ScoreType.FITNESS, fitnessScoreCalculator,
+                ScoreType.GROWTH, growthScoreCalculator,
+                ScoreType.STRENGTH, strengthScoreCalculator,
+                ScoreType.POWER, powerScoreCalculator));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param calculators the calculator of each score
+     * @throws IllegalArgumentException if a calculator is missing or the dependencies contain a cycle
+     */
+    public ScoreCalculationGraph(final Map<ScoreType, ScoreCalculator> calculators) {
+        this.calculators = sortByDependencies(calculators);
+    }
+
+    /**
+     * Calculates the reward scores when a user works on a content, see
+     * {@link ScoreCalculator#calculateOnContentWorkedOn(AllRewardScoresEntity, List, UserProgressUpdatedEvent)}.
+     *
+     * @param allRewardScores the reward scores to update
+     * @param contents        all contents of the course
+     * @param event           the event that triggered the calculation
+     * @return the scores that changed
+     */
+    public Set<ScoreType> calculateOnContentWorkedOn(final AllRewardScoresEntity allRewardScores,
+                                                     final List<Content> contents,
+                                                     final UserProgressUpdatedEvent event) {
+        return calculate(allRewardScores,
+                calculator -> calculator.calculateOnContentWorkedOn(allRewardScores, contents, event));
+    }
+
+    /**
+     * Recalculates the reward scores, see {@link ScoreCalculator#recalculateScore(AllRewardScoresEntity, List)}.
+     *
+     * @param allRewardScores the reward scores to update
+     * @param contents        all contents of the course
+     * @return the scores that changed
+     */
+    public Set<ScoreType> recalculate(final AllRewardScoresEntity allRewardScores, final List<Content> contents) {
+        return calculate(allRewardScores, calculator -> calculator.recalculateScore(allRewardScores, contents));
+    }
+
+    private Set<ScoreType> calculate(final AllRewardScoresEntity allRewardScores,
+                                     final Function<ScoreCalculator, RewardScoreEntity> calculation) {
+        final Set<ScoreType> changedScores = EnumSet.noneOf(ScoreType.class);
+        for (final Map.Entry<ScoreType, ScoreCalculator> entry : calculators.entrySet()) {
+            final ScoreType scoreType = entry.getKey();
+            final Set<ScoreType> dependencies = entry.getValue().getDependencies();
+            if (!dependencies.isEmpty() && Collections.disjoint(dependencies, changedScores)) {
+                log.debug("Skipping {} score, none of its dependencies {} changed", scoreType, dependencies);
+                continue;
+            }
+
+            final ScoreState before = ScoreState.of(scoreType.get(allRewardScores));
+            final RewardScoreEntity rewardScore = calculation.apply(entry.getValue());
+            scoreType.set(allRewardScores, rewardScore);
+
+            if (!before.equals(ScoreState.of(rewardScore))) {
+                changedScores.add(scoreType);
+            }
+        }
+        return changedScores;
+    }
+
+    private static Map<ScoreType, ScoreCalculator> sortByDependencies(final Map<ScoreType, ScoreCalculator> calculators) {
+        if (!calculators.keySet().containsAll(EnumSet.allOf(ScoreType.class))) {
+            throw new IllegalArgumentException("Missing calculators for "
+                                               + EnumSet.complementOf(EnumSet.copyOf(calculators.keySet())));
+        }
+
+        final Map<ScoreType, ScoreCalculator> sorted = new LinkedHashMap<>();
+        while (sorted.size() < calculators.size()) {
+            final int sizeBefore = sorted.size();
+            for (final ScoreType scoreType : ScoreType.values()) {
+                final ScoreCalculator calculator = calculators.get(scoreType);
+                if (!sorted.containsKey(scoreType) && sorted.keySet().containsAll(calculator.getDependencies())) {
+                    sorted.put(scoreType, calculator);
+                }
+            }
+            if (sorted.size() == sizeBefore) {
+                throw new IllegalArgumentException("The score dependencies contain a cycle");
+            }
+        }
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    /**
+     * The parts of a reward score that a calculator can change.
+     */
+    private record ScoreState(int value, float percentage, int logSize) {
+
+        private static final ScoreState ABSENT = new ScoreState(-1, -1, -1);
+
+        static ScoreState of(final RewardScoreEntity rewardScore) {
+            if (rewardScore == null) {
+                return ABSENT;
+            }
+            return new ScoreState(rewardScore.getValue(), rewardScore.getPercentage(), rewardScore.getLog().size());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEnt
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Common interface for all score calculators.
@@ -32,4 +33,14 @@ public interface ScoreCalculator {
     RewardScoreEntity calculateOnContentWorkedOn(AllRewardScoresEntity allRewardScores,
                                                  List<Content> contents,
                                                  UserProgressUpdatedEvent event);
+
+    /**
+     * The other scores that this score is calculated from. If this is not empty, the score must only depend
+     * on these scores, so that the calculation can be skipped if none of them changed.
+     *
+     * @return the scores this score depends on, or an empty set if it also depends on the contents or the event
+     */
+    default Set<ScoreType> getDependencies() {
+        return Set.of();
+    }
 }
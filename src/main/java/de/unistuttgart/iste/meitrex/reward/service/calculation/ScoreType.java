@@ -0,0 +1,35 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The five reward scores of a user, with access to the corresponding score of an {@link AllRewardScoresEntity}.
+ */
+public enum ScoreType {
+    HEALTH(AllRewardScoresEntity::getHealth, AllRewardScoresEntity::setHealth),
+    FITNESS(AllRewardScoresEntity::getFitness, AllRewardScoresEntity::setFitness),
+    GROWTH(AllRewardScoresEntity::getGrowth, AllRewardScoresEntity::setGrowth),
+    STRENGTH(AllRewardScoresEntity::getStrength, AllRewardScoresEntity::setStrength),
+    POWER(AllRewardScoresEntity::getPower, AllRewardScoresEntity::setPower);
+
+    private final Function<AllRewardScoresEntity, RewardScoreEntity> getter;
+    private final BiConsumer<AllRewardScoresEntity, RewardScoreEntity> setter;
+
+    ScoreType(final Function<AllRewardScoresEntity, RewardScoreEntity> getter,
+              final BiConsumer<AllRewardScoresEntity, RewardScoreEntity> setter) {
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public RewardScoreEntity get(final AllRewardScoresEntity allRewardScores) {
+        return getter.apply(allRewardScores);
+    }
+
+    public void set(final AllRewardScoresEntity allRewardScores, final RewardScoreEntity rewardScore) {
+        setter.accept(allRewardScores, rewardScore);
+    }
+}
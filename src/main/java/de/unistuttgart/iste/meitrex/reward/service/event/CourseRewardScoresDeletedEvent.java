@@ -0,0 +1,12 @@
+package de.unistuttgart.iste.meitrex.reward.service.event;
+
+import java.util.UUID;
+
+/**
+ * Application event that is published by the {@link de.unistuttgart.iste.meitrex.reward.service.RewardService}
+ * when the reward scores of all users of a course were deleted, because the course was deleted.
+ *
+ * @param courseId the id of the deleted course
+ */
+public record CourseRewardScoresDeletedEvent(UUID courseId) {
+}
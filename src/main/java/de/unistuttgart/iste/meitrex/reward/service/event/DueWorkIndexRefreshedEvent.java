@@ -0,0 +1,17 @@
+package de.unistuttgart.iste.meitrex.reward.service.event;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Application event that is published by the {@link de.unistuttgart.iste.meitrex.reward.service.RewardService}
+ * when only the due-work index of a user in a course was refreshed, without saving the reward scores.
+ * Unlike a {@link RewardScoresUpdatedEvent}, the version is not incremented, so the cached reward scores stay valid.
+ *
+ * @param id                the id of the reward scores
+ * @param nextRecalculation the next time the health or fitness of the user can change,
+ *                          or {@code null} if there is no pending work
+ */
+public record DueWorkIndexRefreshedEvent(AllRewardScoresEntity.PrimaryKey id, OffsetDateTime nextRecalculation) {
+}
@@ -0,0 +1,19 @@
+package de.unistuttgart.iste.meitrex.reward.service.event;
+
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Application event that is published by the {@link de.unistuttgart.iste.meitrex.reward.service.RewardService}
+ * whenever the values of the reward scores of a user in a course were saved and at least one of them changed.
+ *
+ * @param courseId       the id of the course
+ * @param previousValues the values before the change, or {@code null} if the reward scores were initialized
+ * @param values         the saved values
+ */
+public record RewardScoreValuesChangedEvent(UUID courseId,
+                                            Map<ScoreType, Integer> previousValues,
+                                            Map<ScoreType, Integer> values) {
+}
@@ -0,0 +1,12 @@
+package de.unistuttgart.iste.meitrex.reward.service.event;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+/**
+ * Application event that is published by the {@link de.unistuttgart.iste.meitrex.reward.service.RewardService}
+ * when reward scores were read that do not exist yet, so that they are initialized in the background.
+ *
+ * @param id the id of the reward scores to initialize
+ */
+public record RewardScoresInitializationRequestedEvent(AllRewardScoresEntity.PrimaryKey id) {
+}
@@ -0,0 +1,25 @@
+package de.unistuttgart.iste.meitrex.reward.service.event;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Application event that is published by the {@link de.unistuttgart.iste.meitrex.reward.service.RewardService}
+ * whenever the reward scores of a user in a course were saved.
+ * <p>
+ * Listeners that must only react to committed changes should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener}.
+ *
+ * @param id                the id of the saved reward scores
+ * @param nextRecalculation the next time the health or fitness of the user can change,
+ *                          or {@code null} if there is no pending work
+ * @param version           the version of the saved reward scores
+ * @param rewardScores      the saved reward scores, mapped to the DTO
+ */
+public record RewardScoresUpdatedEvent(AllRewardScoresEntity.PrimaryKey id,
+                                       OffsetDateTime nextRecalculation,
+                                       long version,
+                                       RewardScores rewardScores) {
+}
@@ -0,0 +1,185 @@
+package de.unistuttgart.iste.meitrex.reward.service.live;
+
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the live changes of reward scores and scoreboards for the GraphQL subscriptions.
+ * <p>
+ * The changes of all replicas are fed by the {@link RewardScoresUpdateStream} and debounced: of all updates within
+ * the debounce interval, only the latest one is sent. Each message only contains what changed since the previous message
+ * of the same subscription.
+ * <p>
+ * The top entries of a scoreboard are read from the read model at most once per debounce interval and shared by
+ * all subscriptions of the same scoreboard, so that many students watching the same scoreboard do not multiply
+ * the reads.
+ */
+@Service
+public class LiveRewardScoresService {
+
+    /**
+     * The maximum number of top entries of a scoreboard subscription.
+     */
+    static final int MAX_TOP = 100;
+
+    private final RewardService rewardService;
+    private final RewardScoresViewRepository rewardScoresViewRepository;
+    private final RewardScoresUpdateStream updateStream;
+    private final Duration debounce;
+
+    private final Map<ScoreboardKey, Flux<List<ScoreboardEntryChange>>> sharedScoreboards = new ConcurrentHashMap<>();
+
+    public LiveRewardScoresService(final RewardService rewardService,
+                                   final RewardScoresViewRepository rewardScoresViewRepository,
+                                   final RewardScoresUpdateStream updateStream,
+                                   @Value("${reward.live.debounce}") final Duration debounce) {
+        this.rewardService = rewardService;
+        this.rewardScoresViewRepository = rewardScoresViewRepository;
+        this.updateStream = updateStream;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Returns the changes of the reward scores of a user in a course. The differences of the first message are
+     * relative to the reward scores at the time of the subscription.
+     *
+     * @param courseId the id of the course
+     * @param userId   the id of the user
+     * @return the changes, each with the reward scores that changed since the previous one
+     */
+    public Flux<RewardScoresChange> rewardScoresChanges(final UUID courseId, final UUID userId) {
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        return Flux.defer(() -> {
+            final Map<RewardScoreType, Integer> lastSentValues = new EnumMap<>(RewardScoreType.class);
+            final AtomicLong lastSeenVersion = new AtomicLong(-1);
+            final Flux<RewardScoresUpdatedEvent> updates = updateStream.updates()
+                    .filter(event -> event.id().equals(id))
+                    // updates of different transactions may be emitted out of order
+                    .filter(event -> lastSeenVersion.getAndAccumulate(event.version(), Math::max) < event.version())
+                    .sample(debounce);
+            return Mono.fromCallable(() -> rewardService.getRewardScores(courseId, userId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doOnNext(rewardScores -> lastSentValues.putAll(valuesOf(rewardScores)))
+                    .thenMany(updates)
+                    .concatMap(event -> event.rewardScores() != null
+                            ? Mono.just(event.rewardScores())
+                            // saved by another replica, whose invalidation has already evicted the cached scores
+                            : Mono.fromCallable(() -> rewardService.getRewardScores(courseId, userId))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                    .map(rewardScores -> diff(courseId, lastSentValues, valuesOf(rewardScores)))
+                    .filter(change -> !change.getChangedScores().isEmpty());
+        });
+    }
+
+    /**
+     * Returns the changes of the top entries of the scoreboard of a course. The first message contains all
+     * top entries.
+     *
+     * @param courseId the id of the course
+     * @param top      the number of top entries, between 1 and {@value #MAX_TOP}
+     * @return the changes of the top entries
+     * @throws IllegalArgumentException if top is out of range
+     */
+    public Flux<ScoreboardChange> scoreboardChanges(final UUID courseId, final int top) {
+        if (top < 1 || top > MAX_TOP) {
+            throw new IllegalArgumentException("top must be between 1 and " + MAX_TOP);
+        }
+        return Flux.defer(() -> {
+            final Map<UUID, ScoreboardEntryChange> lastSentEntries = new HashMap<>();
+            return sharedScoreboard(new ScoreboardKey(courseId, top))
+                    .map(entries -> diff(lastSentEntries, entries))
+                    .filter(change -> !change.getChangedEntries().isEmpty() || !change.getRemovedUserIds().isEmpty());
+        });
+    }
+
+    private Flux<List<ScoreboardEntryChange>> sharedScoreboard(final ScoreboardKey key) {
+        return sharedScoreboards.computeIfAbsent(key, k -> Flux.concat(
+                        Mono.just(k.courseId()),
+                        updateStream.updates()
+                                .filter(event -> event.id().getCourseId().equals(k.courseId()))
+                                .sample(debounce)
+                                .map(event -> k.courseId()))
+                .concatMap(courseId -> Mono.fromCallable(() -> readTopEntries(k))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doFinally(signal -> sharedScoreboards.remove(k))
+                // new subscriptions immediately get the current top entries
+                .replay(1)
+                .refCount());
+    }
+
+    private List<ScoreboardEntryChange> readTopEntries(final ScoreboardKey key) {
+        final List<RewardScoresViewEntity> rows = rewardScoresViewRepository
+                .findTopByCourseId(key.courseId(), PageRequest.of(0, key.top()));
+        final List<ScoreboardEntryChange> entries = new ArrayList<>(rows.size());
+        int rank = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            final int powerScore = rows.get(i).getPowerValue();
+            if (i == 0 || powerScore != rows.get(i - 1).getPowerValue()) {
+                rank = i + 1;
+            }
+            entries.add(new ScoreboardEntryChange(rows.get(i).getId().getUserId(), rank, powerScore));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the reward scores whose values differ from the last sent values and updates the last sent values.
+     */
+    private static RewardScoresChange diff(final UUID courseId,
+                                           final Map<RewardScoreType, Integer> lastSentValues,
+                                           final Map<RewardScoreType, Integer> values) {
+        final List<RewardScoreChange> changedScores = new ArrayList<>();
+        values.forEach((scoreType, value) -> {
+            final Integer lastSentValue = lastSentValues.put(scoreType, value);
+            if (lastSentValue == null || lastSentValue.intValue() != value) {
+                changedScores.add(new RewardScoreChange(scoreType, value, lastSentValue == null ? 0 : value - lastSentValue));
+            }
+        });
+        return new RewardScoresChange(courseId, changedScores);
+    }
+
+    /**
+     * Returns the entries that differ from the last sent entries and updates the last sent entries.
+     */
+    static ScoreboardChange diff(final Map<UUID, ScoreboardEntryChange> lastSentEntries,
+                                 final List<ScoreboardEntryChange> entries) {
+        final List<ScoreboardEntryChange> changedEntries = entries.stream()
+                .filter(entry -> !entry.equals(lastSentEntries.get(entry.getUserId())))
+                .toList();
+        final Set<UUID> removedUserIds = new HashSet<>(lastSentEntries.keySet());
+        lastSentEntries.clear();
+        for (final ScoreboardEntryChange entry : entries) {
+            removedUserIds.remove(entry.getUserId());
+            lastSentEntries.put(entry.getUserId(), entry);
+        }
+        return new ScoreboardChange(changedEntries, List.copyOf(removedUserIds));
+    }
+
+    private static Map<RewardScoreType, Integer> valuesOf(final RewardScores rewardScores) {
+        final Map<RewardScoreType, Integer> values = new EnumMap<>(RewardScoreType.class);
+        values.put(RewardScoreType.HEALTH, rewardScores.getHealth().getValue());
+        values.put(RewardScoreType.FITNESS, rewardScores.getFitness().getValue());
+        values.put(RewardScoreType.GROWTH, rewardScores.getGrowth().getValue());
+        values.put(RewardScoreType.STRENGTH, rewardScores.getStrength().getValue());
+        values.put(RewardScoreType.POWER, rewardScores.getPower().getValue());
+        return values;
+    }
+
+    private record ScoreboardKey(UUID courseId, int top) {
+    }
+}
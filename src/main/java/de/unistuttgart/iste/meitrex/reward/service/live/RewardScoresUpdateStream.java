@@ -0,0 +1,61 @@
+package de.unistuttgart.iste.meitrex.reward.service.live;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.cache.RewardScoresInvalidation;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+/**
+ * In-process multicast of the committed {@link RewardScoresUpdatedEvent}s, which feeds the GraphQL subscriptions.
+ * <p>
+ * Subscribers that cannot keep up miss updates instead of slowing down the writes or the other subscribers.
+ * <p>
+ * The updates saved by other replicas are fed from the cache invalidations that every replica receives. These only
+ * contain the id and the version, so their {@link RewardScoresUpdatedEvent#rewardScores() reward scores} are
+ * {@code null} and have to be read by the subscriber. As every replica also receives its own invalidations, an update
+ * may be emitted twice with the same version.
+ */
+@Component
+public class RewardScoresUpdateStream {
+
+    private final Sinks.Many<RewardScoresUpdatedEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Emits the saved reward scores once the transaction that saved them is committed.
+     *
+     * @param event the event of the saved reward scores
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRewardScoresUpdated(final RewardScoresUpdatedEvent event) {
+        // synchronized, because a sink must not be emitted to concurrently
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * Emits the updates saved by other replicas, without their reward scores.
+     * Invalidations of a whole course are not emitted, because the reward scores of the course were deleted.
+     *
+     * @param invalidations the invalidations received from the other replicas
+     */
+    public synchronized void onRewardScoresInvalidated(final List<RewardScoresInvalidation> invalidations) {
+        for (final RewardScoresInvalidation invalidation : invalidations) {
+            if (!invalidation.isCourseInvalidation()) {
+                sink.tryEmitNext(new RewardScoresUpdatedEvent(
+                        new AllRewardScoresEntity.PrimaryKey(invalidation.courseId(), invalidation.userId()),
+                        null, invalidation.version(), null));
+            }
+        }
+    }
+
+    /**
+     * @return the updates that are saved from now on, by this and by the other replicas
+     */
+    public Flux<RewardScoresUpdatedEvent> updates() {
+        return sink.asFlux();
+    }
+}
@@ -0,0 +1,36 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.dapr.client.DaprClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Publishes the outbox events to the {@value #PUBSUB_NAME} Dapr pub/sub component.
+ * <p>
+ * The {@link OutboxRelay} publishes while it holds the locks on the batch, so each publish waits at most for the
+ * configured timeout. If it times out, the batch is rolled back and published again in the next interval.
+ */
+@Component
+@ConditionalOnProperty(name = "reward.outbox.publisher", havingValue = "dapr", matchIfMissing = true)
+public class DaprOutboxPublisher implements OutboxPublisher {
+
+    public static final String PUBSUB_NAME = "gits";
+
+    private final DaprClient daprClient;
+    private final Duration publishTimeout;
+
+    public DaprOutboxPublisher(final DaprClient daprClient,
+                               @Value("${reward.outbox.publish_timeout}") final Duration publishTimeout) {
+        this.daprClient = daprClient;
+        this.publishTimeout = publishTimeout;
+    }
+
+    @Override
+    public void publish(final String topic, final JsonNode payload) {
+        daprClient.publishEvent(PUBSUB_NAME, topic, payload).block(publishTimeout);
+    }
+}
@@ -0,0 +1,21 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for the Dapr pub/sub that only logs the outbox events.
+ * Used for tests and for deployments without other services that consume the events.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "reward.outbox.publisher", havingValue = "log")
+public class LoggingOutboxPublisher implements OutboxPublisher {
+
+    @Override
+    public void publish(final String topic, final JsonNode payload) {
+        log.debug("Outbox event on topic {}: {}", topic, payload);
+    }
+}
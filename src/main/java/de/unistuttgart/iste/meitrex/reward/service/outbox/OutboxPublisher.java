@@ -0,0 +1,18 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Transport of the outbox events to the other services.
+ * The implementation is selected by the property {@code reward.outbox.publisher}.
+ */
+public interface OutboxPublisher {
+
+    /**
+     * Publishes an event and waits until it was accepted.
+     *
+     * @param topic   the topic of the event
+     * @param payload the event
+     */
+    void publish(String topic, JsonNode payload);
+}
@@ -0,0 +1,90 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Drains the outbox: publishes the oldest events in batches with the {@link OutboxPublisher} and deletes them.
+ * <p>
+ * Each batch is locked with {@code for update skip locked}, so the relays of several replicas publish different
+ * batches. An event is only deleted after it was published, so events are published at least once; if publishing
+ * fails, the batch is rolled back and published again in the next interval.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxPublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxRelay(final OutboxEventRepository outboxEventRepository,
+                       final OutboxPublisher publisher,
+                       final ObjectMapper objectMapper,
+                       final TransactionTemplate transactionTemplate,
+                       @Value("${reward.outbox.batch_size}") final int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Publishes batches of events until the outbox is empty or publishing fails.
+     */
+    @Scheduled(fixedDelayString = "${reward.outbox.relay_interval}")
+    public void relay() {
+        try {
+            int published;
+            do {
+                published = relayBatch();
+            } while (published == batchSize);
+        } catch (final Exception e) {
+            log.error("Could not publish outbox events, retrying in the next interval", e);
+        }
+    }
+
+    /**
+     * @return the number of published events
+     */
+    private int relayBatch() {
+        final Integer published = transactionTemplate.execute(status -> {
+            final List<OutboxEventEntity> events = outboxEventRepository.lockOldest(batchSize);
+            for (final OutboxEventEntity event : events) {
+                final JsonNode payload = readPayload(event);
+                if (payload != null) {
+                    publisher.publish(event.getTopic(), payload);
+                }
+            }
+            outboxEventRepository.deleteAllInBatch(events);
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    /**
+     * @return the payload of the event, or {@code null} if it is not valid JSON.
+     *         Such an event can never be published, so it is dropped instead of blocking the outbox.
+     */
+    private JsonNode readPayload(final OutboxEventEntity event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (final JsonProcessingException e) {
+            log.error("Dropping outbox event {}, its payload is not valid JSON", event.getId(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Event that is published to the topic {@value RewardScoresOutbox#TOPIC} whenever the reward scores of a user
+ * in a course changed, so that other services do not have to poll the reward scores.
+ *
+ * @param courseId  the id of the course
+ * @param userId    the id of the user
+ * @param version   the version of the changed reward scores. Consumers can use it to ignore outdated events.
+ * @param changedAt the time the reward scores were saved
+ * @param scores    all five reward scores, including those that did not change
+ */
+public record RewardScoresChangedEvent(UUID courseId,
+                                       UUID userId,
+                                       long version,
+                                       OffsetDateTime changedAt,
+                                       List<Score> scores) {
+
+    /**
+     * A reward score after the change.
+     *
+     * @param type       the type of the reward score
+     * @param value      the new value
+     * @param percentage the new percentage
+     * @param difference the difference to the value before the change, 0 for new reward scores
+     */
+    public record Score(ScoreType type, int value, float percentage, int difference) {
+    }
+}
@@ -0,0 +1,83 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.OutboxEventRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Writes {@link RewardScoresChangedEvent}s to the outbox. Must be called in the transaction that saves the reward
+ * scores, so that the event is written if and only if the change is committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class RewardScoresOutbox {
+
+    public static final String TOPIC = "reward-scores-changed";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Captures the values of the reward scores before they are changed.
+     *
+     * @param allRewardScoresEntity the reward scores
+     * @return the value of each reward score
+     */
+    public static Map<ScoreType, Integer> valuesOf(final AllRewardScoresEntity allRewardScoresEntity) {
+        final Map<ScoreType, Integer> values = new EnumMap<>(ScoreType.class);
+        for (final ScoreType scoreType : ScoreType.values()) {
+            values.put(scoreType, scoreType.get(allRewardScoresEntity).getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Writes the event of the saved reward scores to the outbox, unless none of the reward scores changed.
+     *
+     * @param saved          the saved reward scores
+     * @param previousValues the values before the change, see {@link #valuesOf(AllRewardScoresEntity)},
+     *                       or {@code null} if the reward scores were created
+     * @return whether an event was written
+     */
+    public boolean add(final AllRewardScoresEntity saved, final Map<ScoreType, Integer> previousValues) {
+        final List<RewardScoresChangedEvent.Score> scores = new ArrayList<>(ScoreType.values().length);
+        boolean changed = previousValues == null;
+        for (final ScoreType scoreType : ScoreType.values()) {
+            final RewardScoreEntity rewardScore = scoreType.get(saved);
+            final int difference = previousValues == null ? 0 : rewardScore.getValue() - previousValues.get(scoreType);
+            changed |= difference != 0;
+            scores.add(new RewardScoresChangedEvent.Score(scoreType, rewardScore.getValue(), rewardScore.getPercentage(), difference));
+        }
+        if (!changed) {
+            // e.g. only the due-work index changed
+            return false;
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final RewardScoresChangedEvent event = new RewardScoresChangedEvent(saved.getId().getCourseId(),
+                saved.getId().getUserId(), saved.getVersion(), now, scores);
+        outboxEventRepository.save(OutboxEventEntity.builder()
+                .topic(TOPIC)
+                .payload(serialize(event))
+                .createdAt(now)
+                .build());
+        return true;
+    }
+
+    private String serialize(final RewardScoresChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize reward scores changed event", e);
+        }
+    }
+}
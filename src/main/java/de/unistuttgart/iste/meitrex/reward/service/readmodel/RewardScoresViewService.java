@@ -0,0 +1,82 @@
+package de.unistuttgart.iste.meitrex.reward.service.readmodel;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the parts of the {@link de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity
+ * read model} that are not written together with the reward scores.
+ * <p>
+ * After each commit that saved reward scores, the course is marked as changed. The ranks of all changed courses
+ * are refreshed in a fixed interval, so that a burst of changes in a course results in a single refresh.
+ */
+@Service
+@Slf4j
+public class RewardScoresViewService {
+
+    private final RewardScoresViewRepository viewRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<UUID> changedCourses = ConcurrentHashMap.newKeySet();
+
+    public RewardScoresViewService(final RewardScoresViewRepository viewRepository,
+                                   final TransactionTemplate transactionTemplate) {
+        this.viewRepository = viewRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Inserts the rows of the reward scores that were saved before the read model existed
+     * and calculates the ranks of all courses.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeReadModel() {
+        transactionTemplate.executeWithoutResult(status -> {
+            final int inserted = viewRepository.insertMissingRows();
+            if (inserted > 0) {
+                log.info("Inserted {} missing reward scores read model rows", inserted);
+            }
+            viewRepository.refreshAllRanks();
+        });
+    }
+
+    /**
+     * Marks the course of the saved reward scores as changed once the transaction that saved them is committed.
+     *
+     * @param event the event of the saved reward scores
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRewardScoresUpdated(final RewardScoresUpdatedEvent event) {
+        changedCourses.add(event.id().getCourseId());
+    }
+
+    /**
+     * Refreshes the ranks of the courses that changed since the last refresh, each in its own transaction.
+     */
+    @Scheduled(fixedDelayString = "${reward.read_model.rank_refresh_interval}")
+    public void refreshRanks() {
+        for (final UUID courseId : List.copyOf(changedCourses)) {
+            if (!changedCourses.remove(courseId)) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> viewRepository.refreshRanks(courseId));
+            } catch (final Exception e) {
+                log.error("Could not refresh the ranks of course {}", courseId, e);
+                changedCourses.add(courseId);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RecalculationJob;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.mapper.RecalculationJobMapper;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.CourseRecalculationJobRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recalculates the reward scores of all users of a course in the background, e.g. after the due dates
+ * of the course were changed.
+ * <p>
+ * Starting a job only persists it; loading the users of the course and fetching their contents happens
+ * on the course recalculation executor. The users are split into partitions that are processed in parallel,
+ * and the progress of the job is persisted after each chunk of users.
+ * <p>
+ * For each user, the due-work index is refreshed with {@link RewardService#refreshDueWorkIndex(UUID, UUID)},
+ * which only recalculates the reward scores if a recalculation is due, so that users who were recalculated
+ * earlier that day do not lose health or fitness a second time.
+ * <p>
+ * Only one job per course is active at a time. The replica that queued a job holds a lease on it, which it renews
+ * periodically. Jobs whose lease has expired, e.g. because their replica was restarted, are failed by any replica.
+ */
+@Service
+@Slf4j
+public class CourseRecalculationService {
+
+    /**
+     * The first key of the PostgreSQL advisory locks that serialize the start of jobs of a course across replicas.
+     * The second key is derived from the course id.
+     */
+    static final int COURSE_LOCK_KEY = 0x52_45_43_4A;
+
+    private final CourseRecalculationJobRepository jobRepository;
+    private final AllRewardScoresRepository rewardScoresRepository;
+    private final RewardService rewardService;
+    private final RecalculationJobMapper mapper;
+    private final TaskExecutor courseRecalculationExecutor;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Duration leaseDuration;
+
+    /**
+     * Identifies this replica as owner of the leases on jobs. A restarted replica gets a new id,
+     * so that the jobs it queued before the restart expire.
+     */
+    private final String replicaId = UUID.randomUUID().toString();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param jobRepository               the repository of the jobs
+     * @param rewardScoresRepository      the repository of the reward scores
+     * @param rewardService               the service that performs the recalculation
+     * @param mapper                      maps jobs to DTOs
+     * @param courseRecalculationExecutor the executor that runs the jobs
+     * @param jdbcTemplate                used to take the advisory lock
+     * @param transactionTemplate         used to persist the progress of a job
+     * @param parallelism                 the number of partitions of a job that are processed in parallel
+     * @param chunkSize                   the number of users processed between two progress updates
+     * @param leaseDuration               the duration of a lease on a job
+     */
+    public CourseRecalculationService(final CourseRecalculationJobRepository jobRepository,
+                                      final AllRewardScoresRepository rewardScoresRepository,
+                                      final RewardService rewardService,
+                                      final RecalculationJobMapper mapper,
+                                      @Qualifier("courseRecalculationExecutor") final TaskExecutor courseRecalculationExecutor,
+                                      final JdbcTemplate jdbcTemplate,
+                                      final TransactionTemplate transactionTemplate,
+                                      @Value("${reward.recalculation.course_job.parallelism}") final int parallelism,
+                                      @Value("${reward.recalculation.course_job.chunk_size}") final int chunkSize,
+                                      @Value("${reward.recalculation.lease_duration}") final Duration leaseDuration) {
+        this.jobRepository = jobRepository;
+        this.rewardScoresRepository = rewardScoresRepository;
+        this.rewardService = rewardService;
+        this.mapper = mapper;
+        this.courseRecalculationExecutor = courseRecalculationExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Queues a job that recalculates the reward scores of all users of the given course.
+     * If a job of the course is already queued or running, no new job is queued.
+     *
+     * @param courseId the id of the course
+     * @return the id of the new job, or of the job of the course that is already active
+     */
+    public UUID startCourseRecalculation(final UUID courseId) {
+        final StartedJob startedJob = Objects.requireNonNull(transactionTemplate.execute(status -> {
+            // the advisory lock is released at the end of the transaction
+            jdbcTemplate.query("select pg_advisory_xact_lock(?, ?)", resultSet -> null,
+                    COURSE_LOCK_KEY, courseId.hashCode());
+            final Optional<CourseRecalculationJobEntity> activeJob = jobRepository.findActiveByCourseId(courseId);
+            if (activeJob.isPresent()) {
+                return new StartedJob(activeJob.get().getId(), false);
+            }
+            final OffsetDateTime now = OffsetDateTime.now();
+            final CourseRecalculationJobEntity job = jobRepository.save(CourseRecalculationJobEntity.builder()
+                    .courseId(courseId)
+                    .status(CourseRecalculationJobEntity.Status.QUEUED)
+                    .createdAt(now)
+                    .owner(replicaId)
+                    .leaseExpiresAt(now.plus(leaseDuration))
+                    .build());
+            return new StartedJob(job.getId(), true);
+        }));
+
+        if (!startedJob.queued()) {
+            log.info("Recalculation job {} for course {} is already active", startedJob.id(), courseId);
+            return startedJob.id();
+        }
+        courseRecalculationExecutor.execute(() -> runJob(startedJob.id(), courseId));
+        return startedJob.id();
+    }
+
+    /**
+     * Renews the leases on the jobs of this replica and fails the jobs whose lease has expired,
+     * e.g. because the replica that queued them was restarted. Also runs on startup.
+     */
+    @Scheduled(fixedDelayString = "${reward.recalculation.course_job.lease_renewal_interval}")
+    public void maintainLeases() {
+        final OffsetDateTime now = OffsetDateTime.now();
+        final Integer failed = transactionTemplate.execute(status -> {
+            jobRepository.renewLeases(replicaId, now.plus(leaseDuration));
+            return jobRepository.failExpired(now);
+        });
+        if (failed != null && failed > 0) {
+            log.warn("Failed {} course recalculation jobs whose replica stopped running them", failed);
+        }
+    }
+
+    /**
+     * Returns the status and progress of a job.
+     *
+     * @param jobId the id of the job
+     * @return the job
+     * @throws EntityNotFoundException if there is no job with the given id
+     */
+    public RecalculationJob getJob(final UUID jobId) {
+        return jobRepository.findById(jobId)
+                .map(mapper::entityToDto)
+                .orElseThrow(() -> new EntityNotFoundException("Recalculation job with id " + jobId + " not found"));
+    }
+
+    private void runJob(final UUID jobId, final UUID courseId) {
+        try {
+            final List<UUID> userIds = rewardScoresRepository.findUserIdsByCourseId(courseId);
+            final Integer started = transactionTemplate.execute(status ->
+                    jobRepository.start(jobId, replicaId, userIds.size(), OffsetDateTime.now()));
+            if (started == null || started == 0) {
+                log.warn("Recalculation job {} for course {} expired before it was started", jobId, courseId);
+                return;
+            }
+
+            final List<List<UUID>> partitions = partition(userIds, parallelism);
+            if (partitions.isEmpty()) {
+                finish(jobId, CourseRecalculationJobEntity.Status.COMPLETED);
+                return;
+            }
+
+            final AtomicInteger remainingPartitions = new AtomicInteger(partitions.size());
+            for (final List<UUID> partition : partitions) {
+                courseRecalculationExecutor.execute(() -> {
+                    try {
+                        processPartition(jobId, courseId, partition);
+                    } finally {
+                        if (remainingPartitions.decrementAndGet() == 0) {
+                            finish(jobId, CourseRecalculationJobEntity.Status.COMPLETED);
+                            log.info("Recalculation job {} for course {} is completed", jobId, courseId);
+                        }
+                    }
+                });
+            }
+        } catch (final Exception e) {
+            log.error("Recalculation job {} for course {} failed", jobId, courseId, e);
+            finish(jobId, CourseRecalculationJobEntity.Status.FAILED);
+        }
+    }
+
+    private void processPartition(final UUID jobId, final UUID courseId, final List<UUID> userIds) {
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            final List<UUID> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+            int failed = 0;
+            for (final UUID userId : chunk) {
+                try {
+                    rewardService.refreshDueWorkIndex(courseId, userId);
+                } catch (final Exception e) {
+                    failed++;
+                    log.error("Could not recalculate reward scores for user {} in course {}", userId, courseId, e);
+                }
+            }
+            final int failedInChunk = failed;
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.addProgress(jobId, chunk.size(), failedInChunk));
+        }
+    }
+
+    private void finish(final UUID jobId, final CourseRecalculationJobEntity.Status status) {
+        transactionTemplate.executeWithoutResult(transactionStatus ->
+                jobRepository.finish(jobId, status, OffsetDateTime.now()));
+    }
+
+    /**
+     * @param id     the id of the job
+     * @param queued whether the job was queued, or was already active
+     */
+    private record StartedJob(UUID id, boolean queued) {
+    }
+
+    /**
+     * Splits the given list into at most the given number of contiguous partitions of nearly equal size.
+     *
+     * @param list  the list to split
+     * @param count the maximum number of partitions
+     * @return the non-empty partitions
+     */
+    static <T> List<List<T>> partition(final List<T> list, final int count) {
+        final int partitionCount = Math.min(count, list.size());
+        final List<List<T>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(list.subList(i * list.size() / partitionCount, (i + 1) * list.size() / partitionCount));
+        }
+        return partitions;
+    }
+}
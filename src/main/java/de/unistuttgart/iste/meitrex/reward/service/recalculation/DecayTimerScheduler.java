@@ -0,0 +1,219 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.ScheduledRecalculation;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.event.DueWorkIndexRefreshedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires the recalculation of health and fitness of each user at the time at which they can change,
+ * instead of recalculating all users at once in the night.
+ * <p>
+ * The next recalculation of each user is persisted in {@link AllRewardScoresEntity#getNextRecalculation()}.
+ * The recalculations within the horizon of the timer wheel are loaded into the wheel on startup, including the ones
+ * that became due during the last day, and periodically afterwards. Each reload only loads the recalculations that
+ * moved into the horizon since the previous one. Whenever reward scores are saved or their due-work index is
+ * refreshed, the timer of the user is updated.
+ * Every minute, a bounded batch of due recalculations is fired, so that the load is spread over the day.
+ * The recalculations are performed by the {@code decayTimerExecutor}, so that they do not block the scheduler.
+ * <p>
+ * Every replica holds the timers, but each fired recalculation is first claimed in the database, so that it is
+ * performed by only one replica and the contents of the course are fetched only once.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "reward.recalculation.timer.enabled", havingValue = "true", matchIfMissing = true)
+public class DecayTimerScheduler {
+
+    private static final Duration TICK = Duration.ofMinutes(1);
+    /**
+     * Minutes of an hour, hours of a day and days of a week (plus one slot, so that a full week fits).
+     */
+    private static final int[] SLOTS_PER_LEVEL = {60, 24, 8};
+    /**
+     * How long overdue recalculations are recovered on startup. Older ones are caught up by the nightly recalculation.
+     */
+    private static final Duration MAX_OVERDUE = Duration.ofDays(1);
+
+    private final AllRewardScoresRepository rewardScoresRepository;
+    private final RewardService rewardService;
+    private final TaskExecutor decayTimerExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration claimDuration;
+
+    /**
+     * The number of fired recalculations that are not finished yet. Together with them, at most
+     * {@code batchSize} recalculations are pending, so that the executor does not pile up recalculations
+     * if they take longer than a minute.
+     */
+    private final AtomicInteger pendingRecalculations = new AtomicInteger(0);
+
+    private final HierarchicalTimerWheel<AllRewardScoresEntity.PrimaryKey> timerWheel
+            = new HierarchicalTimerWheel<>(TICK, SLOTS_PER_LEVEL, Instant.now());
+
+    /**
+     * The next time the timers are loaded from the database. {@code null} until the timers were recovered on startup.
+     */
+    private volatile Instant nextReload;
+
+    /**
+     * The exclusive upper bound of the recalculations loaded by the previous reload.
+     */
+    private OffsetDateTime loadedUntil;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rewardScoresRepository the repository to recover the timers from
+     * @param rewardService          the service that performs the recalculation
+     * @param decayTimerExecutor     the executor that performs the fired recalculations
+     * @param transactionTemplate    used to claim each fired recalculation in its own transaction
+     * @param batchSize              the maximum number of recalculations fired per minute
+     * @param claimDuration          the time after which a claimed recalculation that failed becomes due again
+     */
+    public DecayTimerScheduler(final AllRewardScoresRepository rewardScoresRepository,
+                               final RewardService rewardService,
+                               @Qualifier("decayTimerExecutor") final TaskExecutor decayTimerExecutor,
+                               final TransactionTemplate transactionTemplate,
+                               @Value("${reward.recalculation.timer.batch_size}") final int batchSize,
+                               @Value("${reward.recalculation.lease_duration}") final Duration claimDuration) {
+        this.rewardScoresRepository = rewardScoresRepository;
+        this.rewardService = rewardService;
+        this.decayTimerExecutor = decayTimerExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.claimDuration = claimDuration;
+    }
+
+    /**
+     * Recovers the timers from the database on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverTimers() {
+        loadTimers(Instant.now());
+        log.info("Recovered {} recalculation timers", timerWheel.size());
+    }
+
+    /**
+     * Updates the timer of the user whenever reward scores were saved.
+     *
+     * @param event the event of the saved reward scores
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRewardScoresUpdated(final RewardScoresUpdatedEvent event) {
+        schedule(event.id(), event.nextRecalculation());
+    }
+
+    /**
+     * Updates the timer of the user whenever only the due-work index was refreshed.
+     *
+     * @param event the event of the refreshed index
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDueWorkIndexRefreshed(final DueWorkIndexRefreshedEvent event) {
+        schedule(event.id(), event.nextRecalculation());
+    }
+
+    private void schedule(final AllRewardScoresEntity.PrimaryKey id, final OffsetDateTime nextRecalculation) {
+        if (nextRecalculation == null) {
+            timerWheel.cancel(id);
+            return;
+        }
+        // timers beyond the horizon are scheduled by the next reload
+        timerWheel.schedule(id, nextRecalculation.toInstant());
+    }
+
+    /**
+     * Fires the recalculations that are due, at most {@code batchSize} per minute, including the ones
+     * fired before that are still pending. Remaining due recalculations are fired in the next minutes.
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void fireDueRecalculations() {
+        if (nextReload == null) {
+            // timers were not recovered yet
+            return;
+        }
+        final Instant now = Instant.now();
+        if (!now.isBefore(nextReload)) {
+            loadTimers(now);
+        }
+
+        final int capacity = batchSize - pendingRecalculations.get();
+        if (capacity <= 0) {
+            log.warn("Recalculations of the last {} fired timers are still pending", batchSize);
+            return;
+        }
+        final List<AllRewardScoresEntity.PrimaryKey> dueIds = timerWheel.poll(now, capacity);
+        for (final AllRewardScoresEntity.PrimaryKey id : dueIds) {
+            pendingRecalculations.incrementAndGet();
+            try {
+                decayTimerExecutor.execute(() -> recalculate(id));
+            } catch (final RuntimeException e) {
+                pendingRecalculations.decrementAndGet();
+                // the recalculation is retried by the nightly job
+                log.error("Could not fire the recalculation of user {} in course {}", id.getUserId(), id.getCourseId(), e);
+            }
+        }
+        if (!dueIds.isEmpty()) {
+            log.info("Fired {} recalculation timers", dueIds.size());
+        }
+    }
+
+    private void recalculate(final AllRewardScoresEntity.PrimaryKey id) {
+        try {
+            final OffsetDateTime now = OffsetDateTime.now();
+            final OffsetDateTime claimedUntil = now.plus(claimDuration);
+            final Integer claimed = transactionTemplate.execute(status ->
+                    rewardScoresRepository.claimRecalculation(id, now, claimedUntil));
+            if (claimed == null || claimed == 0) {
+                // claimed by another replica or no longer due
+                return;
+            }
+            // replaced once the recalculation is saved, otherwise the claimed recalculation is retried
+            timerWheel.schedule(id, claimedUntil.toInstant());
+            // the stored next recalculation is now the end of the claim, so the due-work index decides
+            rewardService.refreshDueWorkIndex(id.getCourseId(), id.getUserId());
+        } catch (final Exception e) {
+            // the recalculation is retried by the nightly job
+            log.error("Could not recalculate reward scores for user {} in course {}",
+                    id.getUserId(), id.getCourseId(), e);
+        } finally {
+            pendingRecalculations.decrementAndGet();
+        }
+    }
+
+    private synchronized void loadTimers(final Instant now) {
+        // timers before the previous bound were loaded before or scheduled when their reward scores were saved
+        final OffsetDateTime from = loadedUntil != null
+                ? loadedUntil
+                : OffsetDateTime.ofInstant(now.minus(MAX_OVERDUE), ZoneOffset.UTC);
+        final OffsetDateTime until = OffsetDateTime.ofInstant(now.plus(timerWheel.getHorizon()), ZoneOffset.UTC);
+        final List<ScheduledRecalculation> scheduledRecalculations
+                = rewardScoresRepository.findScheduledRecalculationsBetween(from, until);
+        for (final ScheduledRecalculation scheduledRecalculation : scheduledRecalculations) {
+            timerWheel.schedule(scheduledRecalculation.id(), scheduledRecalculation.nextRecalculation().toInstant());
+        }
+        loadedUntil = until;
+        // reload before the end of the horizon, so that no timer is missed
+        nextReload = now.plus(timerWheel.getHorizon().dividedBy(2));
+    }
+}
@@ -0,0 +1,211 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * An in-memory hierarchical timer wheel.
+ * <p>
+ * Each level consists of a fixed number of slots. A slot of the lowest level covers one tick,
+ * a slot of a higher level covers all slots of the level below. Timers are put into the lowest level
+ * that can hold them and cascade down to the lower levels when the wheel advances, so scheduling,
+ * cancelling and firing a timer all take constant time independent of the number of timers.
+ * <p>
+ * Each key can be scheduled at most once. Scheduling a key again replaces its previous timer.
+ * Timers further in the future than the {@link #getHorizon() horizon} of the wheel are rejected
+ * and have to be scheduled again once they are within the horizon.
+ *
+ * @param <K> the type of the keys of the timers
+ */
+public class HierarchicalTimerWheel<K> {
+
+    private final long tickMillis;
+    private final int[] slotsPerLevel;
+    /**
+     * The number of ticks covered by one slot of each level.
+     */
+    private final long[] ticksPerSlot;
+    private final List<List<Deque<Timer<K>>>> levels;
+
+    /**
+     * The tick at which each scheduled key fires. Used to detect timers that were replaced or cancelled.
+     */
+    private final Map<K, Long> scheduledTicks = new HashMap<>();
+    /**
+     * Timers that have fired but were not polled yet.
+     */
+    private final Deque<Timer<K>> expired = new ArrayDeque<>();
+
+    private long currentTick;
+
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param tickDuration  the duration of one tick, i.e. the resolution of the wheel
+     * @param slotsPerLevel the number of slots of each level, starting with the lowest level
+     * @param start         the time the wheel starts at
+     */
+    public HierarchicalTimerWheel(final Duration tickDuration, final int[] slotsPerLevel, final Instant start) {
+        if (tickDuration.toMillis() <= 0 || slotsPerLevel.length == 0) {
+            throw new IllegalArgumentException("The wheel needs a positive tick duration and at least one level");
+        }
+        this.tickMillis = tickDuration.toMillis();
+        this.slotsPerLevel = slotsPerLevel.clone();
+        this.ticksPerSlot = new long[slotsPerLevel.length];
+        this.levels = new ArrayList<>(slotsPerLevel.length);
+
+        long ticks = 1;
+        for (int level = 0; level < slotsPerLevel.length; level++) {
+            ticksPerSlot[level] = ticks;
+            ticks *= slotsPerLevel[level];
+
+            final List<Deque<Timer<K>>> slots = new ArrayList<>(slotsPerLevel[level]);
+            for (int slot = 0; slot < slotsPerLevel[level]; slot++) {
+                slots.add(new ArrayDeque<>());
+            }
+            levels.add(slots);
+        }
+        this.currentTick = Math.floorDiv(start.toEpochMilli(), tickMillis);
+    }
+
+    /**
+     * @return how far in the future timers can be scheduled
+     */
+    public Duration getHorizon() {
+        final int topLevel = slotsPerLevel.length - 1;
+        return Duration.ofMillis(ticksPerSlot[topLevel] * (slotsPerLevel[topLevel] - 1) * tickMillis);
+    }
+
+    /**
+     * Schedules the timer of the given key, replacing any timer previously scheduled for the key.
+     * Timers in the past fire on the next poll.
+     *
+     * @param key    the key
+     * @param fireAt the time at which the timer fires
+     * @return {@code false} if the time is beyond the horizon of the wheel, in which case the key is not scheduled
+     */
+    public synchronized boolean schedule(final K key, final Instant fireAt) {
+        // round up, so that timers never fire early
+        final long tick = -Math.floorDiv(-fireAt.toEpochMilli(), tickMillis);
+        final Timer<K> timer = new Timer<>(key, tick);
+        if (!insert(timer)) {
+            scheduledTicks.remove(key);
+            return false;
+        }
+        scheduledTicks.put(key, tick);
+        return true;
+    }
+
+    /**
+     * Cancels the timer of the given key, if there is one.
+     *
+     * @param key the key
+     */
+    public synchronized void cancel(final K key) {
+        scheduledTicks.remove(key);
+    }
+
+    /**
+     * Advances the wheel to the given time and returns the keys of timers that have fired.
+     * At most {@code maxCount} keys are returned, the remaining ones are returned by the next polls.
+     *
+     * @param now      the current time
+     * @param maxCount the maximum number of keys to return
+     * @return the keys of fired timers, in the order in which they fired
+     */
+    public synchronized List<K> poll(final Instant now, final int maxCount) {
+        advanceTo(Math.floorDiv(now.toEpochMilli(), tickMillis));
+
+        final List<K> fired = new ArrayList<>(Math.min(maxCount, expired.size()));
+        while (fired.size() < maxCount && !expired.isEmpty()) {
+            final Timer<K> timer = expired.poll();
+            if (isCurrent(timer)) {
+                scheduledTicks.remove(timer.key());
+                fired.add(timer.key());
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * @return the number of scheduled timers, including fired timers that were not polled yet
+     */
+    public synchronized int size() {
+        return scheduledTicks.size();
+    }
+
+    private boolean insert(final Timer<K> timer) {
+        if (timer.tick() <= currentTick) {
+            expired.add(timer);
+            return true;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            final long bucket = timer.tick() / ticksPerSlot[level];
+            final long currentBucket = currentTick / ticksPerSlot[level];
+            if (bucket - currentBucket < slotsPerLevel[level]) {
+                levels.get(level).get((int) (bucket % slotsPerLevel[level])).add(timer);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void advanceTo(final long targetTick) {
+        final int topLevel = levels.size() - 1;
+        if (targetTick - currentTick > ticksPerSlot[topLevel] * slotsPerLevel[topLevel]) {
+            // the wheel was not polled for longer than its horizon, so it is cheaper to rebuild it
+            rebuildAt(targetTick);
+            return;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            // cascade the timers of higher levels whose slot starts now down to the lower levels
+            for (int level = topLevel; level > 0; level--) {
+                if (currentTick % ticksPerSlot[level] == 0) {
+                    final long bucket = currentTick / ticksPerSlot[level];
+                    reinsertAll(levels.get(level).get((int) (bucket % slotsPerLevel[level])));
+                }
+            }
+            expired.addAll(drain(levels.get(0).get((int) (currentTick % slotsPerLevel[0]))));
+        }
+    }
+
+    private void rebuildAt(final long targetTick) {
+        final List<Timer<K>> timers = new ArrayList<>();
+        for (final List<Deque<Timer<K>>> slots : levels) {
+            for (final Deque<Timer<K>> slot : slots) {
+                timers.addAll(drain(slot));
+            }
+        }
+        currentTick = targetTick;
+        timers.stream()
+                .sorted(Comparator.comparingLong(Timer::tick))
+                .filter(this::isCurrent)
+                .forEach(this::insert);
+    }
+
+    private void reinsertAll(final Deque<Timer<K>> slot) {
+        for (final Timer<K> timer : drain(slot)) {
+            if (isCurrent(timer)) {
+                insert(timer);
+            }
+        }
+    }
+
+    private static <K> List<Timer<K>> drain(final Deque<Timer<K>> slot) {
+        final List<Timer<K>> timers = new ArrayList<>(slot);
+        slot.clear();
+        return timers;
+    }
+
+    /**
+     * @return whether the timer was neither cancelled nor replaced by a newer timer of the same key
+     */
+    private boolean isCurrent(final Timer<K> timer) {
+        return Objects.equals(scheduledTicks.get(timer.key()), timer.tick());
+    }
+
+    private record Timer<K>(K key, long tick) {
+    }
+}
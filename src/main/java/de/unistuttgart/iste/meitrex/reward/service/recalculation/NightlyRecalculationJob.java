@@ -0,0 +1,175 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.DueWorkIndexCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly catch-up of the recalculation of the reward scores.
+ * <p>
+ * The regular recalculations are fired by the {@link DecayTimerScheduler} spread over the day.
+ * This job recalculates all users whose recalculation is due but was not fired, e.g. because the
+ * timer wheel is disabled or because the service was not running at that time.
+ * <p>
+ * Each run is persisted as a {@link RecalculationRunEntity} and split into shards, which are claimed by the
+ * replicas of the service through the {@link RecalculationShardCoordinator}. Every replica processes shards with
+ * several workers in parallel, so adding replicas shortens the run. Users are processed in chunks ordered by their id
+ * and each shard is checkpointed after each chunk, so that shards of a replica that was restarted or stalled are
+ * continued from their last checkpoint once their lease has expired.
+ */
+@Component
+@Slf4j
+public class NightlyRecalculationJob {
+
+    private final AllRewardScoresRepository rewardScoresRepository;
+    private final RecalculationShardCoordinator shardCoordinator;
+    private final RewardService rewardService;
+    private final TaskExecutor recalculationExecutor;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rewardScoresRepository the repository of the reward scores
+     * @param shardCoordinator       coordinates the shards between the replicas
+     * @param rewardService          the service that performs the recalculation
+     * @param recalculationExecutor  the executor that runs the workers
+     * @param chunkSize              the number of users processed between two checkpoints
+     * @param parallelism            the number of workers of this replica
+     */
+    public NightlyRecalculationJob(final AllRewardScoresRepository rewardScoresRepository,
+                                   final RecalculationShardCoordinator shardCoordinator,
+                                   final RewardService rewardService,
+                                   @Qualifier("recalculationExecutor") final TaskExecutor recalculationExecutor,
+                                   @Value("${reward.recalculation.chunk_size}") final int chunkSize,
+                                   @Value("${reward.recalculation.parallelism}") final int parallelism) {
+        this.rewardScoresRepository = rewardScoresRepository;
+        this.shardCoordinator = shardCoordinator;
+        this.rewardService = rewardService;
+        this.recalculationExecutor = recalculationExecutor;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Recalculates the reward scores for all users and courses that have work due according to the due-work index.
+     * Users without pending work are skipped, because none of their scores can change during the recalculation.
+     * If the previous run was interrupted, it is continued instead of starting a new one.
+     * <p>
+     * By default, this method is called every day at 03:00.
+     * This can be changed in the application.properties file.
+     */
+    @Scheduled(cron = "${reward.recalculation.cron}")
+    public void recalculateAllScores() {
+        startWorkers(shardCoordinator.joinOrStartRun());
+    }
+
+    /**
+     * Resumes a run that was interrupted, e.g. because the service was restarted during the run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        shardCoordinator.findRunningRun().ifPresent(run -> {
+            log.info("Resuming recalculation run {} after {} of {} users",
+                    run.getId(), run.getProcessed(), run.getTotal());
+            startWorkers(run);
+        });
+    }
+
+    /**
+     * Reclaims shards of the running run whose lease has expired, e.g. because the replica that held them died.
+     */
+    @Scheduled(fixedDelayString = "${reward.recalculation.lease_duration}",
+            initialDelayString = "${reward.recalculation.lease_duration}")
+    public void reclaimStalledShards() {
+        shardCoordinator.findRunningRun().ifPresent(this::startWorkers);
+    }
+
+    private void startWorkers(final RecalculationRunEntity run) {
+        if (!activeWorkers.compareAndSet(0, parallelism)) {
+            log.debug("Workers of this replica are already processing run {}", run.getId());
+            return;
+        }
+        for (int i = 0; i < parallelism; i++) {
+            recalculationExecutor.execute(() -> {
+                try {
+                    processShards(run);
+                } catch (final Exception e) {
+                    log.error("Worker of recalculation run {} failed", run.getId(), e);
+                } finally {
+                    activeWorkers.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void processShards(final RecalculationRunEntity run) {
+        Optional<RecalculationShardEntity> shard;
+        while ((shard = shardCoordinator.claimShard(run.getId())).isPresent()) {
+            processShard(run, shard.get());
+        }
+        if (shardCoordinator.completeRunIfFinished(run.getId())) {
+            log.info("Recalculation run {} is completed", run.getId());
+        }
+    }
+
+    private void processShard(final RecalculationRunEntity run, final RecalculationShardEntity shard) {
+        List<AllRewardScoresEntity.PrimaryKey> chunk;
+        do {
+            chunk = rewardScoresRepository.findIdsWithWorkDueAtAfter(run.getDueAt(),
+                    DueWorkIndexCalculator.staleBefore(run.getDueAt()),
+                    shard.getLastCourseId(), shard.getLastUserId(), shard.getUpperCourseId(),
+                    PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            long failed = 0;
+            for (final AllRewardScoresEntity.PrimaryKey id : chunk) {
+                if (!recalculate(id)) {
+                    failed++;
+                }
+            }
+
+            if (!shardCoordinator.checkpoint(shard, chunk.get(chunk.size() - 1), chunk.size(), failed)) {
+                log.warn("Lost the lease on shard {} of recalculation run {}", shard.getShardIndex(), run.getId());
+                return;
+            }
+        } while (chunk.size() == chunkSize);
+
+        if (shardCoordinator.completeShard(shard)) {
+            log.info("Shard {} of recalculation run {} processed {} users, {} failed",
+                    shard.getShardIndex(), run.getId(), shard.getProcessed(), shard.getFailed());
+        }
+    }
+
+    private boolean recalculate(final AllRewardScoresEntity.PrimaryKey id) {
+        try {
+            rewardService.recalculateScoresIfDue(id.getCourseId(), id.getUserId());
+            return true;
+        } catch (final Exception e) {
+            log.error("Could not recalculate reward scores for user {} in course {}",
+                    id.getUserId(), id.getCourseId(), e);
+            return false;
+        }
+    }
+}
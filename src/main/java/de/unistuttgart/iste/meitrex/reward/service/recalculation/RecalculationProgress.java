@@ -0,0 +1,61 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of a recalculation run, as reported by the recalculation actuator endpoint.
+ *
+ * @param runId               the id of the run
+ * @param status              the status of the run
+ * @param startedAt           the time the run was started
+ * @param finishedAt          the time the run was finished, or {@code null} if it is still running
+ * @param total               the number of users to process
+ * @param processed           the number of processed users, including failed ones
+ * @param failed              the number of users whose recalculation failed
+ * @param ratePerSecond       the average number of processed users per second
+ * @param estimatedCompletion the estimated time at which the run is finished,
+ *                            or {@code null} if it is finished or no estimate is possible yet
+ */
+public record RecalculationProgress(UUID runId,
+                                    RecalculationRunEntity.Status status,
+                                    OffsetDateTime startedAt,
+                                    OffsetDateTime finishedAt,
+                                    long total,
+                                    long processed,
+                                    long failed,
+                                    double ratePerSecond,
+                                    OffsetDateTime estimatedCompletion) {
+
+    /**
+     * Calculates the progress of the given run.
+     *
+     * @param run the run
+     * @param now the current time
+     * @return the progress of the run
+     */
+    public static RecalculationProgress of(final RecalculationRunEntity run, final OffsetDateTime now) {
+        final OffsetDateTime end = run.getFinishedAt() != null ? run.getFinishedAt() : now;
+        final double elapsedSeconds = Duration.between(run.getStartedAt(), end).toMillis() / 1000.0;
+        final double ratePerSecond = elapsedSeconds > 0 ? run.getProcessed() / elapsedSeconds : 0;
+
+        OffsetDateTime estimatedCompletion = null;
+        if (run.getStatus() == RecalculationRunEntity.Status.RUNNING && ratePerSecond > 0) {
+            final long remaining = Math.max(0, run.getTotal() - run.getProcessed());
+            estimatedCompletion = now.plus(Duration.ofMillis((long) (remaining / ratePerSecond * 1000)));
+        }
+
+        return new RecalculationProgress(run.getId(),
+                run.getStatus(),
+                run.getStartedAt(),
+                run.getFinishedAt(),
+                run.getTotal(),
+                run.getProcessed(),
+                run.getFailed(),
+                ratePerSecond,
+                estimatedCompletion);
+    }
+}
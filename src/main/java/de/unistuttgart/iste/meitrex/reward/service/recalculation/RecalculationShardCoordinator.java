@@ -0,0 +1,256 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RecalculationRunRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RecalculationShardRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.DueWorkIndexCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Coordinates the nightly recalculation between all replicas of the service through the database.
+ * <p>
+ * The users of a run are split into shards by ranges of their course id. Because course ids are random UUIDs,
+ * the shards are of roughly equal size. Each replica claims shards by taking a lease on them, so that every shard
+ * is processed by exactly one replica at a time. The lease is renewed with each checkpoint; if it expires,
+ * e.g. because the replica died, the shard can be claimed by another replica, which continues from the last checkpoint.
+ */
+@Component
+@Slf4j
+public class RecalculationShardCoordinator {
+
+    /**
+     * The key of the PostgreSQL advisory lock that serializes the start of runs across replicas.
+     */
+    static final long RUN_LOCK_KEY = 0x52_45_57_41_52_44_52_43L;
+
+    /**
+     * The smallest UUID, used as the checkpoint of a shard that has not processed any user yet.
+     */
+    static final UUID MIN_UUID = new UUID(0, 0);
+
+    /**
+     * The largest UUID, used as the upper bound of the last shard.
+     */
+    static final UUID MAX_UUID = new UUID(-1L, -1L);
+
+    private final AllRewardScoresRepository rewardScoresRepository;
+    private final RecalculationRunRepository recalculationRunRepository;
+    private final RecalculationShardRepository recalculationShardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int shardCount;
+    private final Duration leaseDuration;
+
+    /**
+     * Identifies this replica as owner of leases. A restarted replica gets a new id, so that it does not
+     * continue shards it held before the restart before their lease has expired.
+     */
+    private final String replicaId = UUID.randomUUID().toString();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rewardScoresRepository       the repository of the reward scores
+     * @param recalculationRunRepository   the repository of the runs
+     * @param recalculationShardRepository the repository of the shards
+     * @param jdbcTemplate                 used to take the advisory lock
+     * @param transactionTemplate          used to perform each coordination step in its own transaction
+     * @param shardCount                   the number of shards of a run
+     * @param leaseDuration                the duration of a lease on a shard
+     */
+    public RecalculationShardCoordinator(final AllRewardScoresRepository rewardScoresRepository,
+                                         final RecalculationRunRepository recalculationRunRepository,
+                                         final RecalculationShardRepository recalculationShardRepository,
+                                         final JdbcTemplate jdbcTemplate,
+                                         final TransactionTemplate transactionTemplate,
+                                         @Value("${reward.recalculation.shards}") final int shardCount,
+                                         @Value("${reward.recalculation.lease_duration}") final Duration leaseDuration) {
+        this.rewardScoresRepository = rewardScoresRepository;
+        this.recalculationRunRepository = recalculationRunRepository;
+        this.recalculationShardRepository = recalculationShardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardCount = shardCount;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Returns the run that is currently running or starts a new one, if there is none.
+     * If several replicas call this method at the same time, all of them get the same run.
+     *
+     * @return the running run
+     */
+    public RecalculationRunEntity joinOrStartRun() {
+        return transactionTemplate.execute(status -> {
+            // the advisory lock is released at the end of the transaction
+            jdbcTemplate.query("select pg_advisory_xact_lock(?)", resultSet -> null, RUN_LOCK_KEY);
+            return findRunningRun().orElseGet(this::startRun);
+        });
+    }
+
+    /**
+     * @return the run that is currently running, if there is one
+     */
+    public Optional<RecalculationRunEntity> findRunningRun() {
+        return recalculationRunRepository.findFirstByStatusOrderByStartedAtDesc(RecalculationRunEntity.Status.RUNNING);
+    }
+
+    /**
+     * Claims a shard of the given run that was not claimed yet or whose lease has expired.
+     *
+     * @param runId the id of the run
+     * @return the claimed shard, or an empty optional if there is no claimable shard left
+     */
+    public Optional<RecalculationShardEntity> claimShard(final UUID runId) {
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OffsetDateTime leaseExpiresAt = now.plus(leaseDuration);
+
+        for (final RecalculationShardEntity shard : recalculationShardRepository.findClaimableShards(runId, now)) {
+            final Integer claimed = transactionTemplate.execute(status ->
+                    recalculationShardRepository.claim(shard.getId(), replicaId, now, leaseExpiresAt));
+            if (claimed != null && claimed == 1) {
+                shard.setStatus(RecalculationShardEntity.Status.CLAIMED);
+                shard.setOwner(replicaId);
+                shard.setLeaseExpiresAt(leaseExpiresAt);
+                return Optional.of(shard);
+            }
+            // another replica claimed the shard in the meantime
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the checkpoint of a claimed shard, renews its lease and adds the progress to its run.
+     *
+     * @param shard     the claimed shard
+     * @param last      the id of the last processed user
+     * @param processed the number of users processed since the last checkpoint
+     * @param failed    the number of users that failed since the last checkpoint
+     * @return {@code true} if the checkpoint was stored, {@code false} if the lease was lost to another replica
+     */
+    public boolean checkpoint(final RecalculationShardEntity shard,
+                              final AllRewardScoresEntity.PrimaryKey last,
+                              final long processed,
+                              final long failed) {
+        final OffsetDateTime leaseExpiresAt = OffsetDateTime.now().plus(leaseDuration);
+        final Boolean stored = transactionTemplate.execute(status -> {
+            if (recalculationShardRepository.checkpoint(shard.getId(), replicaId, last.getCourseId(), last.getUserId(),
+                    processed, failed, leaseExpiresAt) == 0) {
+                return false;
+            }
+            recalculationRunRepository.addProgress(shard.getRunId(), processed, failed);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(stored)) {
+            return false;
+        }
+        shard.setLastCourseId(last.getCourseId());
+        shard.setLastUserId(last.getUserId());
+        shard.setProcessed(shard.getProcessed() + processed);
+        shard.setFailed(shard.getFailed() + failed);
+        shard.setLeaseExpiresAt(leaseExpiresAt);
+        return true;
+    }
+
+    /**
+     * Marks a claimed shard as completed.
+     *
+     * @param shard the claimed shard
+     * @return {@code true} if the shard was completed, {@code false} if the lease was lost to another replica
+     */
+    public boolean completeShard(final RecalculationShardEntity shard) {
+        final Integer completed = transactionTemplate.execute(status ->
+                recalculationShardRepository.complete(shard.getId(), replicaId));
+        if (completed == null || completed == 0) {
+            return false;
+        }
+        shard.setStatus(RecalculationShardEntity.Status.COMPLETED);
+        return true;
+    }
+
+    /**
+     * Marks the given run as completed, if all of its shards are completed.
+     *
+     * @param runId the id of the run
+     * @return {@code true} if this call completed the run
+     */
+    public boolean completeRunIfFinished(final UUID runId) {
+        if (recalculationShardRepository.countByRunIdAndStatusNot(runId, RecalculationShardEntity.Status.COMPLETED) > 0) {
+            return false;
+        }
+        final Integer completed = transactionTemplate.execute(status ->
+                recalculationRunRepository.complete(runId, OffsetDateTime.now()));
+        return completed != null && completed == 1;
+    }
+
+    private RecalculationRunEntity startRun() {
+        final OffsetDateTime now = OffsetDateTime.now();
+        final RecalculationRunEntity run = recalculationRunRepository.save(RecalculationRunEntity.builder()
+                .status(RecalculationRunEntity.Status.RUNNING)
+                .startedAt(now)
+                .dueAt(now)
+                .total(rewardScoresRepository.countWithWorkDueAt(now, DueWorkIndexCalculator.staleBefore(now)))
+                .build());
+
+        final List<UUID> lowerBounds = calculateLowerBounds(shardCount);
+        final List<RecalculationShardEntity> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < lowerBounds.size(); i++) {
+            final UUID upperBound = i + 1 < lowerBounds.size()
+                    ? predecessor(lowerBounds.get(i + 1))
+                    : MAX_UUID;
+            shards.add(RecalculationShardEntity.builder()
+                    .runId(run.getId())
+                    .shardIndex(i)
+                    .upperCourseId(upperBound)
+                    .status(RecalculationShardEntity.Status.PENDING)
+                    .lastCourseId(lowerBounds.get(i))
+                    .lastUserId(MIN_UUID)
+                    .build());
+        }
+        recalculationShardRepository.saveAll(shards);
+
+        log.info("Started recalculation run {} for {} users in {} shards", run.getId(), run.getTotal(), shards.size());
+        return run;
+    }
+
+    /**
+     * Splits the UUID space into ranges of equal size. UUIDs are compared by PostgreSQL as unsigned bytes,
+     * so the bounds are calculated on the most significant bits interpreted as an unsigned number.
+     *
+     * @param count the number of ranges
+     * @return the inclusive lower bound of each range, in ascending order
+     */
+    static List<UUID> calculateLowerBounds(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive");
+        }
+        final List<UUID> lowerBounds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long mostSignificantBits = BigInteger.valueOf(i).shiftLeft(Long.SIZE)
+                    .divide(BigInteger.valueOf(count))
+                    .longValue();
+            lowerBounds.add(new UUID(mostSignificantBits, 0));
+        }
+        return lowerBounds;
+    }
+
+    /**
+     * @param lowerBound a lower bound calculated by {@link #calculateLowerBounds(int)}, other than the first one
+     * @return the largest UUID that is smaller than the given lower bound
+     */
+    private static UUID predecessor(final UUID lowerBound) {
+        return new UUID(lowerBound.getMostSignificantBits() - 1, -1L);
+    }
+}
@@ -0,0 +1,120 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.PowerScoreCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Coalesces the power log entries that were written before the {@link PowerScoreCalculator} coalesced them itself,
+ * using the same window. The power scores are processed in small chunks. Like for the {@link RewardLogRetentionJob},
+ * the logs are rewritten by the {@link RewardLogRewriter}, each user in its own short transaction, so that no
+ * concurrently added log entry is lost.
+ * <p>
+ * The backfill only has to run once. Once it has completed, its watermark is set and later runs do nothing;
+ * to run it again, e.g. after the window was increased, delete the watermark {@value #WATERMARK_NAME}.
+ */
+@Component
+@Slf4j
+public class PowerLogBackfillJob {
+
+    static final String WATERMARK_NAME = "power-log-backfill";
+
+    private final AllRewardScoresRepository allRewardScoresRepository;
+    private final RewardLogRewriter logRewriter;
+    private final RetentionLease lease;
+    private final Duration window;
+    private final int chunkSize;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param allRewardScoresRepository the repository of the reward scores of the users
+     * @param logRewriter               rewrites the logs of each user in its own transaction
+     * @param lease                     makes sure that only one replica runs the job
+     * @param powerScoreCalculator      provides the coalescing window
+     * @param chunkSize                 the number of power scores processed in one chunk
+     */
+    public PowerLogBackfillJob(final AllRewardScoresRepository allRewardScoresRepository,
+                               final RewardLogRewriter logRewriter,
+                               final RetentionLease lease,
+                               final PowerScoreCalculator powerScoreCalculator,
+                               @Value("${reward.retention.chunk_size}") final int chunkSize) {
+        this.allRewardScoresRepository = allRewardScoresRepository;
+        this.logRewriter = logRewriter;
+        this.lease = lease;
+        this.window = powerScoreCalculator.getLogCoalescingWindow();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Coalesces the power logs of all users, unless this was already done.
+     * <p>
+     * This can be configured with the reward.power.log_backfill.cron property.
+     */
+    @Scheduled(cron = "${reward.power.log_backfill.cron}")
+    public void coalescePowerLogs() {
+        if (window.isZero()) {
+            log.debug("Power log coalescing is disabled");
+            return;
+        }
+        final Optional<OffsetDateTime> watermark = lease.claim(WATERMARK_NAME);
+        if (watermark.isEmpty()) {
+            log.debug("Power log backfill is already running on another replica");
+            return;
+        }
+        if (watermark.get().isAfter(RetentionLease.INITIAL_WATERMARK)) {
+            lease.complete(WATERMARK_NAME, watermark.get());
+            return;
+        }
+
+        log.info("Coalescing power log entries within {}", window);
+        UUID lastId = RewardLogRetentionJob.MIN_UUID;
+        List<UUID> chunk;
+        long removedEntries = 0;
+        do {
+            chunk = allRewardScoresRepository.findPowerScoreIdsAfter(lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            removedEntries += coalesceChunk(chunk);
+            lastId = chunk.get(chunk.size() - 1);
+
+            if (!lease.renew(WATERMARK_NAME)) {
+                log.warn("Lost the lease on the power log backfill, stopping");
+                return;
+            }
+        } while (chunk.size() == chunkSize);
+
+        lease.complete(WATERMARK_NAME, OffsetDateTime.now());
+        log.info("Power log backfill removed {} log entries", removedEntries);
+    }
+
+    /**
+     * @return the number of entries that were removed
+     */
+    private int coalesceChunk(final List<UUID> powerScoreIds) {
+        int removedEntries = 0;
+        for (final AllRewardScoresEntity.PrimaryKey id : allRewardScoresRepository.findIdsByRewardScoreIdIn(powerScoreIds)) {
+            removedEntries += logRewriter.rewrite(id, allRewardScores -> {
+                final RewardScoreEntity powerScore = allRewardScores.getPower();
+                final RewardLogCompactor.Compaction compaction = RewardLogCompactor.coalesce(powerScore.getLog(),
+                        RewardChangeReason.COMPOSITE_VALUE, window);
+                powerScore.getLog().removeAll(compaction.removed());
+                powerScore.getLog().addAll(compaction.summaries());
+                return compaction.removed();
+            });
+        }
+        return removedEntries;
+    }
+}
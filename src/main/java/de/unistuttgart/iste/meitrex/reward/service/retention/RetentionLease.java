@@ -0,0 +1,106 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RetentionWatermarkEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RetentionWatermarkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Makes sure that each retention job runs on only one replica at a time, using the lease on its
+ * {@link RetentionWatermarkEntity watermark}, and keeps track of the progress of the job in the watermark.
+ */
+@Component
+@Slf4j
+public class RetentionLease {
+
+    /**
+     * The watermark of a job that never completed.
+     */
+    public static final OffsetDateTime INITIAL_WATERMARK = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+
+    private final RetentionWatermarkRepository watermarkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration leaseDuration;
+
+    /**
+     * Identifies this replica as the owner of the lease.
+     */
+    private final String replicaId = UUID.randomUUID().toString();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param watermarkRepository the repository of the watermarks
+     * @param transactionTemplate used to update the watermarks in their own transactions
+     * @param leaseDuration       the duration of a lease
+     */
+    public RetentionLease(final RetentionWatermarkRepository watermarkRepository,
+                          final TransactionTemplate transactionTemplate,
+                          @Value("${reward.retention.lease_duration}") final Duration leaseDuration) {
+        this.watermarkRepository = watermarkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Claims the lease of a job, if no other replica holds it.
+     *
+     * @param name the name of the job
+     * @return the watermark of the job if the lease was claimed, or an empty optional if another replica holds it
+     */
+    public Optional<OffsetDateTime> claim(final String name) {
+        createWatermarkIfAbsent(name);
+        final OffsetDateTime now = OffsetDateTime.now();
+        return Optional.ofNullable(transactionTemplate.execute(status -> {
+            if (watermarkRepository.claim(name, replicaId, now, now.plus(leaseDuration)) != 1) {
+                return null;
+            }
+            return watermarkRepository.findById(name)
+                    .map(RetentionWatermarkEntity::getCompactedUntil)
+                    .orElse(null);
+        }));
+    }
+
+    /**
+     * Renews the lease of a job. Should be called after each chunk.
+     *
+     * @param name the name of the job
+     * @return whether this replica still holds the lease
+     */
+    public boolean renew(final String name) {
+        final Integer renewed = transactionTemplate.execute(status ->
+                watermarkRepository.renew(name, replicaId, OffsetDateTime.now().plus(leaseDuration)));
+        return renewed != null && renewed == 1;
+    }
+
+    /**
+     * Advances the watermark of a job and releases its lease.
+     *
+     * @param name      the name of the job
+     * @param watermark the new watermark
+     */
+    public void complete(final String name, final OffsetDateTime watermark) {
+        transactionTemplate.executeWithoutResult(status -> watermarkRepository.complete(name, replicaId, watermark));
+    }
+
+    private void createWatermarkIfAbsent(final String name) {
+        if (watermarkRepository.existsById(name)) {
+            return;
+        }
+        try {
+            watermarkRepository.save(RetentionWatermarkEntity.builder()
+                    .name(name)
+                    .compactedUntil(INITIAL_WATERMARK)
+                    .build());
+        } catch (final DataIntegrityViolationException e) {
+            log.debug("Watermark {} was created concurrently", name);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives log entries that are removed by the {@link RewardLogRetentionJob} to gzip-compressed JSON lines files,
+ * one entry per line. Each file only becomes visible once it is complete.
+ */
+@Component
+public class RewardLogArchive {
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    public RewardLogArchive(final ObjectMapper objectMapper,
+                            @Value("${reward.retention.archive_directory}") final Path directory) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+    }
+
+    /**
+     * Writes the given log entries to the archive file with the given name. If the file already exists, e.g. because
+     * a previous run failed after writing it, the entries are merged into it, so that every entry is archived once.
+     *
+     * @param name    the name of the archive file, without extension
+     * @param entries the entries to archive
+     * @return the archive file
+     * @throws UncheckedIOException if the file could not be read or written
+     */
+    public Path write(final String name, final List<ArchivedLogEntry> entries) {
+        try {
+            Files.createDirectories(directory);
+            final Path file = directory.resolve("reward-log-" + name + ".jsonl.gz");
+            final Path temporaryFile = directory.resolve(file.getFileName() + ".tmp");
+
+            final Map<UUID, ArchivedLogEntry> mergedEntries = new LinkedHashMap<>();
+            if (Files.exists(file)) {
+                read(file).forEach(entry -> mergedEntries.put(entry.id(), entry));
+            }
+            entries.forEach(entry -> mergedEntries.putIfAbsent(entry.id(), entry));
+
+            try (final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temporaryFile)), StandardCharsets.UTF_8))) {
+                for (final ArchivedLogEntry entry : mergedEntries.values()) {
+                    writer.write(objectMapper.writeValueAsString(entry));
+                    writer.write('\n');
+                }
+            }
+
+            return Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not archive reward log entries", e);
+        }
+    }
+
+    private List<ArchivedLogEntry> read(final Path file) throws IOException {
+        final List<ArchivedLogEntry> entries = new ArrayList<>();
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                entries.add(objectMapper.readValue(line, ArchivedLogEntry.class));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * An archived log entry.
+     *
+     * @param rewardScoreId the id of the reward score the entry belonged to
+     */
+    public record ArchivedLogEntry(UUID rewardScoreId,
+                                   UUID id,
+                                   OffsetDateTime date,
+                                   int difference,
+                                   int oldValue,
+                                   int newValue,
+                                   RewardChangeReason reason,
+                                   List<UUID> associatedContentIds,
+                                   int truncatedContentCount) {
+
+        static ArchivedLogEntry of(final UUID rewardScoreId, final RewardScoreLogEntry entry) {
+            return new ArchivedLogEntry(rewardScoreId,
+                    entry.getId(),
+                    entry.getDate(),
+                    entry.getDifference(),
+                    entry.getOldValue(),
+                    entry.getNewValue(),
+                    entry.getReason(),
+                    List.copyOf(entry.getAssociatedContentIds()),
+                    entry.getTruncatedContentCount());
+        }
+    }
+}
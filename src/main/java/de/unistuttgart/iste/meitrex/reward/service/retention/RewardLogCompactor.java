@@ -0,0 +1,131 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * Compacts entries of a reward score log into summary entries, which span from the old value of the first to the
+ * new value of the last summarized entry and are associated with all of their contents.
+ * <ul>
+ *     <li>{@link #compact(List, OffsetDateTime, OffsetDateTime)} summarizes all entries of the same day (in UTC)
+ *     and with the same reason, used for old entries.</li>
+ *     <li>{@link #coalesce(List, RewardChangeReason, Duration)} summarizes consecutive entries of one reason within
+ *     a time window, like the {@link de.unistuttgart.iste.meitrex.reward.service.calculation.PowerScoreCalculator}
+ *     does when it writes the log.</li>
+ * </ul>
+ */
+final class RewardLogCompactor {
+
+    private RewardLogCompactor() {
+    }
+
+    /**
+     * Compacts the entries of the log in the given time range. The log itself is not modified.
+     *
+     * @param log   the log of a reward score
+     * @param from  the inclusive start of the time range
+     * @param until the exclusive end of the time range
+     * @return the entries to remove from the log and the summary entries that replace them
+     */
+    static Compaction compact(final List<RewardScoreLogEntry> log, final OffsetDateTime from, final OffsetDateTime until) {
+        final Map<DailyGroup, List<RewardScoreLogEntry>> entriesByDay = new LinkedHashMap<>();
+        log.stream()
+                .filter(entry -> !entry.getDate().isBefore(from) && entry.getDate().isBefore(until))
+                .sorted(comparing(RewardScoreLogEntry::getDate))
+                .forEach(entry -> entriesByDay
+                        .computeIfAbsent(DailyGroup.of(entry), group -> new ArrayList<>())
+                        .add(entry));
+
+        final List<RewardScoreLogEntry> removed = new ArrayList<>();
+        final List<RewardScoreLogEntry> summaries = new ArrayList<>();
+        for (final List<RewardScoreLogEntry> entries : entriesByDay.values()) {
+            if (entries.size() > 1) {
+                removed.addAll(entries);
+                summaries.add(summarize(entries, entries.get(entries.size() - 1).getDate()));
+            }
+        }
+        return new Compaction(removed, summaries);
+    }
+
+    /**
+     * Coalesces consecutive entries of the given reason into one entry per window. A window starts at the first entry
+     * that is not coalesced into an earlier one and the summary entry keeps its date. Entries of other reasons end
+     * the window. The log itself is not modified.
+     *
+     * @param log    the log of a reward score
+     * @param reason the reason of the entries to coalesce
+     * @param window the duration of a window
+     * @return the entries to remove from the log and the summary entries that replace them
+     */
+    static Compaction coalesce(final List<RewardScoreLogEntry> log, final RewardChangeReason reason, final Duration window) {
+        final List<RewardScoreLogEntry> removed = new ArrayList<>();
+        final List<RewardScoreLogEntry> summaries = new ArrayList<>();
+
+        final List<RewardScoreLogEntry> currentWindow = new ArrayList<>();
+        for (final RewardScoreLogEntry entry : log.stream().sorted(comparing(RewardScoreLogEntry::getDate)).toList()) {
+            final boolean fitsIntoWindow = entry.getReason() == reason
+                                           && !currentWindow.isEmpty()
+                                           && entry.getDate().isBefore(currentWindow.get(0).getDate().plus(window));
+            if (!fitsIntoWindow) {
+                coalesceWindow(currentWindow, removed, summaries);
+                currentWindow.clear();
+                if (entry.getReason() != reason) {
+                    continue;
+                }
+            }
+            currentWindow.add(entry);
+        }
+        coalesceWindow(currentWindow, removed, summaries);
+
+        return new Compaction(removed, summaries);
+    }
+
+    private static void coalesceWindow(final List<RewardScoreLogEntry> window,
+                                       final List<RewardScoreLogEntry> removed,
+                                       final List<RewardScoreLogEntry> summaries) {
+        if (window.size() > 1) {
+            removed.addAll(window);
+            summaries.add(summarize(window, window.get(0).getDate()));
+        }
+    }
+
+    private static RewardScoreLogEntry summarize(final List<RewardScoreLogEntry> entries, final OffsetDateTime date) {
+        final RewardScoreLogEntry first = entries.get(0);
+        final RewardScoreLogEntry last = entries.get(entries.size() - 1);
+        return RewardScoreLogEntry.builder()
+                .date(date)
+                .oldValue(first.getOldValue())
+                .newValue(last.getNewValue())
+                .difference(entries.stream().mapToInt(RewardScoreLogEntry::getDifference).sum())
+                .reason(first.getReason())
+                .associatedContentIds(entries.stream()
+                        .flatMap(entry -> entry.getAssociatedContentIds().stream())
+                        .distinct()
+                        .toList())
+                .truncatedContentCount(entries.stream().mapToInt(RewardScoreLogEntry::getTruncatedContentCount).sum())
+                .build();
+    }
+
+    /**
+     * The result of a compaction.
+     *
+     * @param removed   the entries that are replaced by the summaries, ordered by date
+     * @param summaries the summary entries, ordered by date
+     */
+    record Compaction(List<RewardScoreLogEntry> removed, List<RewardScoreLogEntry> summaries) {
+    }
+
+    private record DailyGroup(LocalDate day, RewardChangeReason reason) {
+        static DailyGroup of(final RewardScoreLogEntry entry) {
+            return new DailyGroup(entry.getDate().atZoneSameInstant(ZoneOffset.UTC).toLocalDate(), entry.getReason());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoreRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Limits the growth of the reward score logs.
+ * <p>
+ * Log entries older than the configured maximum age are compacted into daily summary entries by the
+ * {@link RewardLogCompactor}. The reward scores are processed in small chunks. The raw entries of a chunk are
+ * written to the {@link RewardLogArchive} before they are removed, outside of any transaction and under a file name
+ * derived from the chunk, so that a rerun after a failure merges them into the same file. The logs are then rewritten
+ * by the {@link RewardLogRewriter}, each user in its own short transaction, so that the job does not block the regular
+ * traffic. A watermark, held by the {@link RetentionLease}, stores up to which day the logs were compacted, so that
+ * each run only looks at the entries that became old enough since the previous run.
+ */
+@Component
+@Slf4j
+public class RewardLogRetentionJob {
+
+    static final String WATERMARK_NAME = "reward-log";
+
+    static final UUID MIN_UUID = new UUID(0, 0);
+
+    private final RewardScoreRepository rewardScoreRepository;
+    private final AllRewardScoresRepository allRewardScoresRepository;
+    private final RewardLogRewriter logRewriter;
+    private final RetentionLease lease;
+    private final RewardLogArchive archive;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int chunkSize;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param rewardScoreRepository     the repository of the reward scores
+     * @param allRewardScoresRepository the repository of the reward scores of the users
+     * @param logRewriter               rewrites the logs of each user in its own transaction
+     * @param lease                     makes sure that only one replica runs the job
+     * @param archive                   the archive of the removed log entries
+     * @param transactionTemplate       used to read the entries of each chunk that are archived
+     * @param maxAge                    the age after which log entries are compacted
+     * @param chunkSize                 the number of reward scores processed in one chunk
+     */
+    public RewardLogRetentionJob(final RewardScoreRepository rewardScoreRepository,
+                                 final AllRewardScoresRepository allRewardScoresRepository,
+                                 final RewardLogRewriter logRewriter,
+                                 final RetentionLease lease,
+                                 final RewardLogArchive archive,
+                                 final TransactionTemplate transactionTemplate,
+                                 @Value("${reward.retention.max_age}") final Duration maxAge,
+                                 @Value("${reward.retention.chunk_size}") final int chunkSize) {
+        this.rewardScoreRepository = rewardScoreRepository;
+        this.allRewardScoresRepository = allRewardScoresRepository;
+        this.logRewriter = logRewriter;
+        this.lease = lease;
+        this.archive = archive;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAge = maxAge;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Compacts and archives all log entries that became older than the maximum age since the previous run.
+     * Only whole days are compacted. If another replica is already running the job, this call does nothing.
+     * <p>
+     * This can be configured with the reward.retention.cron property.
+     */
+    @Scheduled(cron = "${reward.retention.cron}")
+    public void compactOldLogEntries() {
+        final OffsetDateTime until = OffsetDateTime.now(ZoneOffset.UTC).minus(maxAge).truncatedTo(ChronoUnit.DAYS);
+        final Optional<OffsetDateTime> from = lease.claim(WATERMARK_NAME);
+        if (from.isEmpty()) {
+            log.debug("Reward log retention is already running on another replica");
+            return;
+        }
+        if (!from.get().isBefore(until)) {
+            lease.complete(WATERMARK_NAME, from.get());
+            return;
+        }
+
+        log.info("Compacting reward log entries from {} until {}", from.get(), until);
+        UUID lastId = MIN_UUID;
+        List<UUID> chunk;
+        long compactedEntries = 0;
+        do {
+            chunk = rewardScoreRepository.findIdsWithLogEntriesBetween(from.get(), until, lastId,
+                    PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            compactedEntries += compactChunk(chunk, from.get(), until);
+            lastId = chunk.get(chunk.size() - 1);
+
+            if (!lease.renew(WATERMARK_NAME)) {
+                log.warn("Lost the lease on the reward log retention, stopping");
+                return;
+            }
+        } while (chunk.size() == chunkSize);
+
+        lease.complete(WATERMARK_NAME, until);
+        log.info("Compacted {} reward log entries until {}", compactedEntries, until);
+    }
+
+    /**
+     * Compacts the logs of the given reward scores. The entries to remove are archived first, then the log of each
+     * user is rewritten in its own transaction. Entries that only became removable in between are archived before that
+     * transaction commits, which is rare, so that the transactions usually do no file I/O.
+     *
+     * @return the number of entries that were removed
+     */
+    private int compactChunk(final List<UUID> rewardScoreIds, final OffsetDateTime from, final OffsetDateTime until) {
+        final Set<UUID> chunk = new HashSet<>(rewardScoreIds);
+        final String archiveName = "%s-%s-%s".formatted(from.toLocalDate(), until.toLocalDate(), rewardScoreIds.get(0));
+
+        final List<RewardLogArchive.ArchivedLogEntry> archivedEntries = Objects.requireNonNull(
+                readOnlyTransactionTemplate().execute(status -> rewardScoreRepository.findAllById(rewardScoreIds).stream()
+                        .flatMap(rewardScore -> RewardLogCompactor.compact(rewardScore.getLog(), from, until).removed()
+                                .stream()
+                                .map(entry -> RewardLogArchive.ArchivedLogEntry.of(rewardScore.getId(), entry)))
+                        .toList()));
+        if (archivedEntries.isEmpty()) {
+            return 0;
+        }
+        archive.write(archiveName, archivedEntries);
+
+        final Set<UUID> archivedIds = new HashSet<>();
+        archivedEntries.forEach(entry -> archivedIds.add(entry.id()));
+        int removedEntries = 0;
+        for (final AllRewardScoresEntity.PrimaryKey id : allRewardScoresRepository.findIdsByRewardScoreIdIn(chunk)) {
+            removedEntries += logRewriter.rewrite(id, allRewardScores -> {
+                final List<RewardScoreLogEntry> removed = new ArrayList<>();
+                final List<RewardLogArchive.ArchivedLogEntry> lateEntries = new ArrayList<>();
+                for (final ScoreType scoreType : ScoreType.values()) {
+                    final RewardScoreEntity rewardScore = scoreType.get(allRewardScores);
+                    if (!chunk.contains(rewardScore.getId())) {
+                        continue;
+                    }
+                    final RewardLogCompactor.Compaction compaction
+                            = RewardLogCompactor.compact(rewardScore.getLog(), from, until);
+                    compaction.removed().stream()
+                            .filter(entry -> !archivedIds.contains(entry.getId()))
+                            .forEach(entry -> lateEntries.add(
+                                    RewardLogArchive.ArchivedLogEntry.of(rewardScore.getId(), entry)));
+                    rewardScore.getLog().removeAll(compaction.removed());
+                    rewardScore.getLog().addAll(compaction.summaries());
+                    removed.addAll(compaction.removed());
+                }
+                if (!lateEntries.isEmpty()) {
+                    archive.write(archiveName, lateEntries);
+                }
+                return removed;
+            });
+        }
+        return removedEntries;
+    }
+
+    private TransactionTemplate readOnlyTransactionTemplate() {
+        final TransactionTemplate readOnlyTransactionTemplate
+                = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransactionTemplate.setReadOnly(true);
+        return readOnlyTransactionTemplate;
+    }
+}
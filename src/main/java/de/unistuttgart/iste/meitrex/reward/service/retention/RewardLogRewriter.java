@@ -0,0 +1,59 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoreLogEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Rewrites the logs of the reward scores of a user without recalculating them, e.g. to compact old log entries.
+ * <p>
+ * Each rewrite runs in its own short transaction on the locked entity, like every recalculation, so that no log entry
+ * added concurrently is lost. The scores themselves do not change, so the version is not incremented and no update is
+ * published; cached reward scores keep the rewritten entries until they expire.
+ */
+@Component
+@RequiredArgsConstructor
+public class RewardLogRewriter {
+
+    private final AllRewardScoresRepository allRewardScoresRepository;
+    private final RewardScoreLogEntryRepository logEntryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Rewrites the logs of the reward scores with the given id in a new transaction.
+     *
+     * @param id       the id of the reward scores
+     * @param rewriter rewrites the logs of the locked entity and returns the entries it removed from them
+     * @return the number of removed entries
+     */
+    public int rewrite(final AllRewardScoresEntity.PrimaryKey id,
+                       final Function<AllRewardScoresEntity, List<RewardScoreLogEntry>> rewriter) {
+        final Integer removedEntries = transactionTemplate.execute(status -> {
+            final Optional<AllRewardScoresEntity> allRewardScoresEntity = allRewardScoresRepository.findLockedById(id);
+            if (allRewardScoresEntity.isEmpty()) {
+                return 0;
+            }
+            final List<RewardScoreLogEntry> removed = rewriter.apply(allRewardScoresEntity.get());
+            if (removed.isEmpty()) {
+                return 0;
+            }
+
+            // the log has no orphan removal, so the entries are deleted in bulk once they are no longer in the log
+            allRewardScoresRepository.flush();
+            final List<UUID> removedIds = removed.stream().map(RewardScoreLogEntry::getId).toList();
+            logEntryRepository.deleteAssociatedContentIdsByEntryIdIn(removedIds);
+            logEntryRepository.deleteByIdIn(removedIds);
+            return removed.size();
+        });
+        return removedEntries == null ? 0 : removedEntries;
+    }
+}
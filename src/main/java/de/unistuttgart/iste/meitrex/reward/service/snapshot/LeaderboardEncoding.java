@@ -0,0 +1,109 @@
+package de.unistuttgart.iste.meitrex.reward.service.snapshot;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.PowerGain;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary form of a ranked list of {@link PowerGain}s.
+ * <p>
+ * The list starts with the number of entries and the highest gained power. Each entry consists of the user id and
+ * the difference to the gained power of the previous entry. Because the list is ordered from highest to lowest,
+ * the differences are non-negative and usually small, so they are stored as variable-length integers of mostly
+ * a single byte.
+ */
+final class LeaderboardEncoding {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private LeaderboardEncoding() {
+    }
+
+    /**
+     * @param entries the entries, ordered by the gained power from highest to lowest
+     * @return the encoded entries
+     * @throws IllegalArgumentException if the entries are not ordered
+     */
+    static byte[] encode(final List<PowerGain> entries) {
+        // 1 version, at most 5 count, 5 first value, 16 + 5 per entry
+        final ByteBuffer buffer = ByteBuffer.allocate(11 + entries.size() * 21);
+        buffer.put(FORMAT_VERSION);
+        putVarInt(buffer, entries.size());
+        if (!entries.isEmpty()) {
+            putVarInt(buffer, zigZag(entries.get(0).powerGained()));
+        }
+        long previous = entries.isEmpty() ? 0 : entries.get(0).powerGained();
+        for (final PowerGain entry : entries) {
+            final long difference = previous - entry.powerGained();
+            if (difference < 0) {
+                throw new IllegalArgumentException("Entries must be ordered by the gained power, descending");
+            }
+            buffer.putLong(entry.userId().getMostSignificantBits());
+            buffer.putLong(entry.userId().getLeastSignificantBits());
+            putVarInt(buffer, (int) difference);
+            previous = entry.powerGained();
+        }
+        final byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param bytes the encoded entries
+     * @return the entries, ordered by the gained power from highest to lowest
+     * @throws IllegalArgumentException if the bytes are not encoded entries
+     */
+    static List<PowerGain> decode(final byte[] bytes) {
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            final byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown leaderboard format version " + version);
+            }
+            final int count = getVarInt(buffer);
+            final List<PowerGain> entries = new ArrayList<>(count);
+            int powerGained = count == 0 ? 0 : unZigZag(getVarInt(buffer));
+            for (int i = 0; i < count; i++) {
+                final UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+                powerGained -= getVarInt(buffer);
+                entries.add(new PowerGain(userId, powerGained));
+            }
+            return entries;
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("Invalid leaderboard", e);
+        }
+    }
+
+    private static void putVarInt(final ByteBuffer buffer, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private static int getVarInt(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid variable-length integer");
+    }
+
+    private static int zigZag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,243 @@
+package de.unistuttgart.iste.meitrex.reward.service.snapshot;
+
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardPeriod;
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardSnapshot;
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardSnapshotEntry;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.LeaderboardSnapshotEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.LeaderboardSnapshotRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.PowerGain;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresSnapshotRepository;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.retention.RetentionLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Takes the leaderboards of the completed weeks and semesters of all courses, which rank the users by the power they
+ * gained in the period, and reads them for the scoreboardSnapshot query.
+ * <p>
+ * The leaderboards are calculated from the daily {@link RewardScoresSnapshotRepository reward score snapshots} at the
+ * start and the end of the period, so no reward log has to be read. The snapshot of a day holds the values at the
+ * start of that day, so the snapshot of the first day after the period is the end of the period. If the snapshot of
+ * a day is missing, e.g. because the service was down, the next snapshot that was taken is used instead. If there is
+ * no snapshot since the end of the period yet, the leaderboards are taken in a later run. If there is no snapshot
+ * during the period at all, e.g. in the first period after the snapshots were introduced, the power gained in it is
+ * unknown, so the period is skipped and has no leaderboards. Periods that were missed since the last run are taken
+ * in order.
+ * <p>
+ * Semesters follow the German academic calendar: the summer semester from April to September and the winter
+ * semester from October to March.
+ */
+@Service
+@Slf4j
+public class LeaderboardSnapshotService {
+
+    static final String WATERMARK_NAME_PREFIX = "leaderboard-snapshot-";
+
+    private final LeaderboardSnapshotRepository leaderboardRepository;
+    private final RewardScoresSnapshotRepository snapshotRepository;
+    private final RetentionLease lease;
+    private final TransactionTemplate transactionTemplate;
+
+    public LeaderboardSnapshotService(final LeaderboardSnapshotRepository leaderboardRepository,
+                                      final RewardScoresSnapshotRepository snapshotRepository,
+                                      final RetentionLease lease,
+                                      final TransactionTemplate transactionTemplate) {
+        this.leaderboardRepository = leaderboardRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.lease = lease;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Returns the leaderboard of a course for a period.
+     *
+     * @param courseId    the id of the course
+     * @param period      the kind of period
+     * @param periodStart the first day of the period, or {@code null} for the latest period
+     * @return the leaderboard, or {@code null} if it was not taken
+     */
+    public ScoreboardSnapshot getScoreboardSnapshot(final UUID courseId,
+                                                    final ScoreboardPeriod period,
+                                                    final LocalDate periodStart) {
+        final Optional<LeaderboardSnapshotEntity> leaderboard = periodStart == null
+                ? leaderboardRepository.findFirstById_CourseIdAndId_PeriodOrderById_PeriodStartDesc(courseId, period)
+                : leaderboardRepository.findById(new LeaderboardSnapshotEntity.PrimaryKey(courseId, period, periodStart));
+        return leaderboard.map(LeaderboardSnapshotService::toDto).orElse(null);
+    }
+
+    /**
+     * Takes the leaderboards of the last completed week and semester of all courses, on only one replica.
+     * <p>
+     * This can be configured with the reward.leaderboard.snapshot_cron property.
+     */
+    @Scheduled(cron = "${reward.leaderboard.snapshot_cron}")
+    public void takeLeaderboards() {
+        takeLeaderboards(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Takes the leaderboards of the last week and semester that were completed before the given day.
+     *
+     * @param today the current day
+     */
+    void takeLeaderboards(final LocalDate today) {
+        for (final ScoreboardPeriod period : ScoreboardPeriod.values()) {
+            takeLeaderboards(period, today);
+        }
+    }
+
+    /**
+     * Deletes the leaderboards of a deleted course once the transaction that deleted its reward scores is committed.
+     *
+     * @param event the event of the deleted course
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseRewardScoresDeleted(final CourseRewardScoresDeletedEvent event) {
+        transactionTemplate.executeWithoutResult(status -> leaderboardRepository.deleteAllByCourseId(event.courseId()));
+    }
+
+    private void takeLeaderboards(final ScoreboardPeriod period, final LocalDate today) {
+        final String watermarkName = WATERMARK_NAME_PREFIX + period.name().toLowerCase(Locale.ROOT);
+        final Optional<OffsetDateTime> watermark = lease.claim(watermarkName);
+        if (watermark.isEmpty()) {
+            log.debug("Leaderboards of {} are already taken on another replica", period);
+            return;
+        }
+        // the watermark is the end of the last period whose leaderboards were taken
+        final LocalDate currentPeriodStart = currentPeriodStart(period, today);
+        LocalDate periodStart = RetentionLease.INITIAL_WATERMARK.isEqual(watermark.get())
+                ? previousPeriodStart(period, currentPeriodStart)
+                : watermark.get().atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+        OffsetDateTime takenUntil = watermark.get();
+        while (periodStart.isBefore(currentPeriodStart)) {
+            final LocalDate periodEnd = nextPeriodStart(period, periodStart);
+            final Optional<LocalDate> endSnapshot = snapshotRepository.findFirstSnapshotDateBetween(periodEnd, today);
+            if (endSnapshot.isEmpty()) {
+                log.info("No reward score snapshot since {} yet, leaderboards of {} starting {} are taken later",
+                        periodEnd, period, periodStart);
+                break;
+            }
+            final Optional<LocalDate> startSnapshot = snapshotRepository
+                    .findFirstSnapshotDateBetween(periodStart, periodEnd.minusDays(1));
+            if (startSnapshot.isEmpty()) {
+                // without a snapshot at the start, the total power instead of the power gained would be ranked
+                log.warn("No reward score snapshot during {} starting {}, its leaderboards are skipped",
+                        period, periodStart);
+            } else if (!takeLeaderboards(watermarkName, period, periodStart, periodEnd,
+                    startSnapshot.get(), endSnapshot.get())) {
+                // the next run takes the missing leaderboards
+                break;
+            }
+            takenUntil = periodEnd.atStartOfDay().atOffset(ZoneOffset.UTC);
+            periodStart = periodEnd;
+        }
+        lease.complete(watermarkName, takenUntil);
+    }
+
+    /**
+     * Takes the leaderboards of a period of all courses with a snapshot at its end.
+     *
+     * @return whether the leaderboards of all courses were taken
+     */
+    private boolean takeLeaderboards(final String watermarkName, final ScoreboardPeriod period,
+                                     final LocalDate periodStart, final LocalDate periodEnd,
+                                     final LocalDate startSnapshot, final LocalDate endSnapshot) {
+        final List<UUID> courseIds = snapshotRepository.findCourseIdsWithSnapshot(endSnapshot);
+        boolean failed = false;
+        for (final UUID courseId : courseIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        takeLeaderboard(courseId, period, periodStart, periodEnd, startSnapshot, endSnapshot));
+            } catch (final Exception e) {
+                log.error("Could not take the leaderboard of {} of course {}", period, courseId, e);
+                failed = true;
+            }
+            if (!lease.renew(watermarkName)) {
+                log.warn("Lost the lease on the leaderboards of {}, stopping", period);
+                return false;
+            }
+        }
+        log.info("Took the leaderboards of {} starting {} of {} courses", period, periodStart, courseIds.size());
+        return !failed;
+    }
+
+    private void takeLeaderboard(final UUID courseId, final ScoreboardPeriod period,
+                                 final LocalDate periodStart, final LocalDate periodEnd,
+                                 final LocalDate startSnapshot, final LocalDate endSnapshot) {
+        final LeaderboardSnapshotEntity.PrimaryKey id = new LeaderboardSnapshotEntity.PrimaryKey(courseId, period, periodStart);
+        if (leaderboardRepository.existsById(id)) {
+            // taken by an interrupted earlier run
+            return;
+        }
+        final List<PowerGain> entries = snapshotRepository.findPowerGainedInCourse(courseId, startSnapshot, endSnapshot);
+        leaderboardRepository.save(LeaderboardSnapshotEntity.builder()
+                .id(id)
+                .periodEnd(periodEnd)
+                .userCount(entries.size())
+                .entries(LeaderboardEncoding.encode(entries))
+                .createdAt(OffsetDateTime.now())
+                .build());
+    }
+
+    /**
+     * @return the first day of the period that contains the given day
+     */
+    static LocalDate currentPeriodStart(final ScoreboardPeriod period, final LocalDate day) {
+        return switch (period) {
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case SEMESTER -> {
+                if (day.getMonthValue() >= Month.OCTOBER.getValue()) {
+                    yield LocalDate.of(day.getYear(), Month.OCTOBER, 1);
+                }
+                yield day.getMonthValue() >= Month.APRIL.getValue()
+                        ? LocalDate.of(day.getYear(), Month.APRIL, 1)
+                        : LocalDate.of(day.getYear() - 1, Month.OCTOBER, 1);
+            }
+        };
+    }
+
+    /**
+     * @return the first day of the period that starts after the given first day of a period
+     */
+    static LocalDate nextPeriodStart(final ScoreboardPeriod period, final LocalDate periodStart) {
+        return switch (period) {
+            case WEEK -> periodStart.plusWeeks(1);
+            case SEMESTER -> periodStart.plusMonths(6);
+        };
+    }
+
+    /**
+     * @return the first day of the period that ends before the given first day of a period
+     */
+    static LocalDate previousPeriodStart(final ScoreboardPeriod period, final LocalDate periodStart) {
+        return switch (period) {
+            case WEEK -> periodStart.minusWeeks(1);
+            case SEMESTER -> periodStart.minusMonths(6);
+        };
+    }
+
+    private static ScoreboardSnapshot toDto(final LeaderboardSnapshotEntity leaderboard) {
+        final List<PowerGain> entries = LeaderboardEncoding.decode(leaderboard.getEntries());
+        final List<ScoreboardSnapshotEntry> rankedEntries = new ArrayList<>(entries.size());
+        int rank = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i == 0 || entries.get(i).powerGained() != entries.get(i - 1).powerGained()) {
+                rank = i + 1;
+            }
+            rankedEntries.add(new ScoreboardSnapshotEntry(entries.get(i).userId(), rank, entries.get(i).powerGained()));
+        }
+        return new ScoreboardSnapshot(leaderboard.getId().getCourseId(),
+                leaderboard.getId().getPeriod(),
+                leaderboard.getId().getPeriodStart(),
+                leaderboard.getPeriodEnd().minusDays(1),
+                rankedEntries);
+    }
+}
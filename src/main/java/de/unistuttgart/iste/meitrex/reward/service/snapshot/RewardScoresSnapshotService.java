@@ -0,0 +1,83 @@
+package de.unistuttgart.iste.meitrex.reward.service.snapshot;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Maintains the daily snapshots of the reward scores, see {@link RewardScoresSnapshotRepository}.
+ * The snapshot of a day is taken at 00:00 UTC, before the nightly recalculation and the recalculations fired by the
+ * timers of that day, so that it holds the values at the start of the day. If the service is not running at that
+ * time, the snapshot of the day is missing rather than taken later with values from during the day.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RewardScoresSnapshotService {
+
+    /**
+     * Key of the PostgreSQL advisory lock that serializes the schema changes of the replicas.
+     */
+    static final long SNAPSHOT_LOCK_KEY = 0x52_45_57_41_52_44_53_53L;
+
+    private final RewardScoresSnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates the snapshot table and the partitions of the current and the next month, so that
+     * the partition already exists when the first snapshot of a month is taken.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSnapshotTable() {
+        final YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            snapshotRepository.createTableIfAbsent();
+            snapshotRepository.createPartitionIfAbsent(currentMonth);
+            snapshotRepository.createPartitionIfAbsent(currentMonth.plusMonths(1));
+        });
+    }
+
+    /**
+     * Takes the snapshot of the current day in UTC.
+     * <p>
+     * This can be configured with the reward.snapshot.cron property, which is evaluated in UTC.
+     */
+    @Scheduled(cron = "${reward.snapshot.cron}", zone = "UTC")
+    public void takeDailySnapshot() {
+        takeSnapshot(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Stores the current reward scores of all users as the snapshot of the given date.
+     * Users that already have a snapshot of that date are skipped.
+     *
+     * @param date the date of the snapshot
+     * @return the number of snapshots that were stored
+     */
+    public int takeSnapshot(final LocalDate date) {
+        final Integer inserted = transactionTemplate.execute(status -> {
+            lock();
+            snapshotRepository.createPartitionIfAbsent(YearMonth.from(date));
+            return snapshotRepository.insertSnapshotsOfAllUsers(date);
+        });
+        log.info("Stored {} reward score snapshots of {}", inserted, date);
+        return inserted == null ? 0 : inserted;
+    }
+
+    private void lock() {
+        // the advisory lock is released at the end of the transaction
+        jdbcTemplate.query("select pg_advisory_xact_lock(?)", resultSet -> null, SNAPSHOT_LOCK_KEY);
+    }
+}
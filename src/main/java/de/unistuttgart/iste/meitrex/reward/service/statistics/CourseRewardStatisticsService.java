@@ -0,0 +1,276 @@
+package de.unistuttgart.iste.meitrex.reward.service.statistics;
+
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseScoreStatisticsEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.CourseScoreStatisticsRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoreValuesChangedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.retention.RetentionLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Maintains the distribution of each reward score over all users of a course as a mergeable
+ * {@link ScoreHistogram}, so that the statistics of a course can be read in constant time, independent of
+ * the number of users.
+ * <p>
+ * The committed changes of the reward scores are collected in memory as a delta histogram per course and merged
+ * into the stored histograms in a fixed interval, so that a burst of changes in a course results in a single
+ * write. Because the deltas of several replicas are merged under a lock, they do not overwrite each other.
+ * The histograms are rebuilt from the {@link RewardScoresViewEntity read model} every night, which removes any
+ * drift, e.g. from deltas that were lost when a replica stopped.
+ * <p>
+ * The pending deltas are kept per second in which the changes were committed. The deltas of changes that were
+ * committed before the last rebuild of the course are already contained in the rebuilt histograms, so they are
+ * dropped when they are merged, no matter which replica collected them. Only changes committed in the same second
+ * as the rebuild may be counted twice, which the next rebuild removes.
+ */
+@Service
+@Slf4j
+public class CourseRewardStatisticsService {
+
+    static final String REBUILD_WATERMARK_NAME = "course-statistics-rebuild";
+
+    private static final Map<ScoreType, ToIntFunction<RewardScoresViewEntity>> VIEW_VALUES = new EnumMap<>(Map.of(
+            ScoreType.HEALTH, RewardScoresViewEntity::getHealthValue,
+            ScoreType.FITNESS, RewardScoresViewEntity::getFitnessValue,
+            ScoreType.GROWTH, RewardScoresViewEntity::getGrowthValue,
+            ScoreType.STRENGTH, RewardScoresViewEntity::getStrengthValue,
+            ScoreType.POWER, RewardScoresViewEntity::getPowerValue));
+
+    private final CourseScoreStatisticsRepository statisticsRepository;
+    private final RewardScoresViewRepository viewRepository;
+    private final RetentionLease lease;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, NavigableMap<Instant, Map<ScoreType, ScoreHistogram>>> pendingDeltas
+            = new ConcurrentHashMap<>();
+
+    public CourseRewardStatisticsService(final CourseScoreStatisticsRepository statisticsRepository,
+                                         final RewardScoresViewRepository viewRepository,
+                                         final RetentionLease lease,
+                                         final TransactionTemplate transactionTemplate) {
+        this.statisticsRepository = statisticsRepository;
+        this.viewRepository = viewRepository;
+        this.lease = lease;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Returns the statistics of all reward scores of a course.
+     *
+     * @param courseId the id of the course
+     * @return the statistics, with all values 0 if the course has no reward scores yet
+     */
+    public CourseRewardStatistics getCourseRewardStatistics(final UUID courseId) {
+        final Map<RewardScoreType, ScoreHistogram> histograms = readHistograms(courseId);
+        final List<RewardScoreStatistics> scores = Arrays.stream(RewardScoreType.values())
+                .map(scoreType -> toDto(scoreType, histograms.getOrDefault(scoreType, new ScoreHistogram())))
+                .toList();
+        final long userCount = histograms.getOrDefault(RewardScoreType.POWER, new ScoreHistogram()).getTotalCount();
+        return new CourseRewardStatistics(courseId, (int) Math.max(userCount, 0), scores);
+    }
+
+    /**
+     * Returns the percentile ranks of the given reward score values. The percentile ranks are read from the stored
+     * histograms, each course only once, so no scoreboard has to be sorted; they reflect the changes of the other
+     * users up to the last flush.
+     *
+     * @param scoreValues the reward score values, possibly of several courses
+     * @return the percentile rank of each value, absent if the course has no statistics yet
+     */
+    public Map<ScoreValue, Double> getPercentileRanks(final Collection<ScoreValue> scoreValues) {
+        final Map<UUID, Map<RewardScoreType, ScoreHistogram>> histograms = new HashMap<>();
+        final Map<ScoreValue, Double> percentileRanks = new HashMap<>();
+        for (final ScoreValue scoreValue : scoreValues) {
+            final ScoreHistogram histogram = histograms.computeIfAbsent(scoreValue.courseId(), this::readHistograms)
+                    .get(scoreValue.scoreType());
+            if (histogram != null) {
+                percentileRanks.put(scoreValue, histogram.getPercentileRank(scoreValue.value()));
+            }
+        }
+        return percentileRanks;
+    }
+
+    /**
+     * Records the change of the reward score values once the transaction that saved them is committed.
+     *
+     * @param event the event of the changed values
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRewardScoreValuesChanged(final RewardScoreValuesChangedEvent event) {
+        final Map<ScoreType, ScoreHistogram> deltas = new EnumMap<>(ScoreType.class);
+        event.values().forEach((scoreType, value) -> {
+            final ScoreHistogram delta = deltas.computeIfAbsent(scoreType, type -> new ScoreHistogram());
+            if (event.previousValues() != null) {
+                delta.add(event.previousValues().get(scoreType), -1);
+            }
+            delta.add(value, 1);
+        });
+        final NavigableMap<Instant, Map<ScoreType, ScoreHistogram>> committedDeltas = new TreeMap<>();
+        committedDeltas.put(Instant.now().truncatedTo(ChronoUnit.SECONDS), deltas);
+        mergePending(event.courseId(), committedDeltas);
+    }
+
+    /**
+     * Deletes the statistics of a deleted course once the transaction that deleted its reward scores is committed.
+     *
+     * @param event the event of the deleted course
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseRewardScoresDeleted(final CourseRewardScoresDeletedEvent event) {
+        pendingDeltas.remove(event.courseId());
+        transactionTemplate.executeWithoutResult(status -> statisticsRepository.deleteAllByCourseId(event.courseId()));
+    }
+
+    /**
+     * Merges the pending deltas into the stored histograms, each course in its own transaction.
+     * The deltas of changes that are already contained in the last rebuild of a course are dropped.
+     * <p>
+     * This can be configured with the reward.statistics.flush_interval property.
+     */
+    @Scheduled(fixedDelayString = "${reward.statistics.flush_interval}")
+    public void flush() {
+        for (final UUID courseId : List.copyOf(pendingDeltas.keySet())) {
+            final NavigableMap<Instant, Map<ScoreType, ScoreHistogram>> deltas = pendingDeltas.remove(courseId);
+            if (deltas == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoStored(courseId, deltas));
+            } catch (final Exception e) {
+                log.error("Could not update the reward score statistics of course {}", courseId, e);
+                mergePending(courseId, deltas);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the histograms of all courses from the read model, on only one replica.
+     * <p>
+     * This can be configured with the reward.statistics.rebuild_cron property.
+     */
+    @Scheduled(cron = "${reward.statistics.rebuild_cron}")
+    public void rebuildAll() {
+        if (lease.claim(REBUILD_WATERMARK_NAME).isEmpty()) {
+            log.debug("Reward score statistics are already rebuilt on another replica");
+            return;
+        }
+        for (final UUID courseId : viewRepository.findAllCourseIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebuild(courseId));
+            } catch (final Exception e) {
+                log.error("Could not rebuild the reward score statistics of course {}", courseId, e);
+            }
+            if (!lease.renew(REBUILD_WATERMARK_NAME)) {
+                log.warn("Lost the lease on the reward score statistics rebuild, stopping");
+                return;
+            }
+        }
+        lease.complete(REBUILD_WATERMARK_NAME, OffsetDateTime.now());
+    }
+
+    private Map<RewardScoreType, ScoreHistogram> readHistograms(final UUID courseId) {
+        final Map<RewardScoreType, ScoreHistogram> histograms = new EnumMap<>(RewardScoreType.class);
+        for (final CourseScoreStatisticsEntity statistics : statisticsRepository.findAllByCourseId(courseId)) {
+            histograms.put(statistics.getId().getScoreType(), ScoreHistogram.fromBytes(statistics.getHistogram()));
+        }
+        return histograms;
+    }
+
+    private void rebuild(final UUID courseId) {
+        final Map<ScoreType, ScoreHistogram> histograms = new EnumMap<>(ScoreType.class);
+        for (final ScoreType scoreType : ScoreType.values()) {
+            histograms.put(scoreType, new ScoreHistogram());
+        }
+        final Map<RewardScoreType, CourseScoreStatisticsEntity> stored = lockStored(courseId);
+        // taken before the read model is read, so that every change committed before is contained in the rebuild
+        final OffsetDateTime now = OffsetDateTime.now();
+        for (final RewardScoresViewEntity row : viewRepository.findAllByCourseIdOrderByPowerDesc(courseId)) {
+            VIEW_VALUES.forEach((scoreType, value) -> histograms.get(scoreType).add(value.applyAsInt(row), 1));
+        }
+        histograms.forEach((scoreType, histogram) -> {
+            final CourseScoreStatisticsEntity statistics = statisticsOf(stored, courseId, scoreType);
+            statistics.setHistogram(histogram.toBytes());
+            statistics.setRebuiltAt(now);
+        });
+        statisticsRepository.saveAll(stored.values());
+    }
+
+    private void mergeIntoStored(final UUID courseId,
+                                 final NavigableMap<Instant, Map<ScoreType, ScoreHistogram>> deltas) {
+        final Map<RewardScoreType, CourseScoreStatisticsEntity> stored = lockStored(courseId);
+        final Instant rebuiltAt = stored.values().stream()
+                .map(CourseScoreStatisticsEntity::getRebuiltAt)
+                .filter(Objects::nonNull)
+                .map(rebuilt -> rebuilt.toInstant().truncatedTo(ChronoUnit.SECONDS))
+                .max(Comparator.naturalOrder())
+                .orElse(Instant.MIN);
+        final Map<ScoreType, ScoreHistogram> mergedDeltas = new EnumMap<>(ScoreType.class);
+        deltas.tailMap(rebuiltAt, true).values().forEach(delta -> addAll(mergedDeltas, delta));
+        if (mergedDeltas.isEmpty()) {
+            log.debug("Dropped the deltas of course {}, which are contained in the rebuild at {}", courseId, rebuiltAt);
+            return;
+        }
+        mergedDeltas.forEach((scoreType, delta) -> {
+            final CourseScoreStatisticsEntity statistics = statisticsOf(stored, courseId, scoreType);
+            final ScoreHistogram histogram = ScoreHistogram.fromBytes(statistics.getHistogram());
+            histogram.merge(delta);
+            statistics.setHistogram(histogram.toBytes());
+        });
+        statisticsRepository.saveAll(stored.values());
+    }
+
+    private Map<RewardScoreType, CourseScoreStatisticsEntity> lockStored(final UUID courseId) {
+        final Map<RewardScoreType, CourseScoreStatisticsEntity> stored = new EnumMap<>(RewardScoreType.class);
+        for (final CourseScoreStatisticsEntity statistics : statisticsRepository.findLockedByCourseId(courseId)) {
+            stored.put(statistics.getId().getScoreType(), statistics);
+        }
+        return stored;
+    }
+
+    private static CourseScoreStatisticsEntity statisticsOf(final Map<RewardScoreType, CourseScoreStatisticsEntity> stored,
+                                                            final UUID courseId,
+                                                            final ScoreType scoreType) {
+        final RewardScoreType rewardScoreType = RewardScoreType.valueOf(scoreType.name());
+        return stored.computeIfAbsent(rewardScoreType, type -> CourseScoreStatisticsEntity.builder()
+                .id(new CourseScoreStatisticsEntity.PrimaryKey(courseId, type))
+                .build());
+    }
+
+    private void mergePending(final UUID courseId, final NavigableMap<Instant, Map<ScoreType, ScoreHistogram>> deltas) {
+        pendingDeltas.merge(courseId, deltas, (pending, added) -> {
+            added.forEach((committedAt, delta) -> pending.merge(committedAt, delta, (pendingDelta, addedDelta) -> {
+                addAll(pendingDelta, addedDelta);
+                return pendingDelta;
+            }));
+            return pending;
+        });
+    }
+
+    private static void addAll(final Map<ScoreType, ScoreHistogram> target, final Map<ScoreType, ScoreHistogram> deltas) {
+        deltas.forEach((scoreType, delta) -> target.computeIfAbsent(scoreType, type -> new ScoreHistogram()).merge(delta));
+    }
+
+    private static RewardScoreStatistics toDto(final RewardScoreType scoreType, final ScoreHistogram histogram) {
+        return new RewardScoreStatistics(scoreType,
+                histogram.getMean(),
+                histogram.getValueAtQuantile(0.5),
+                histogram.getValueAtQuantile(0.25),
+                histogram.getValueAtQuantile(0.75),
+                histogram.getValueAtQuantile(0.9));
+    }
+}
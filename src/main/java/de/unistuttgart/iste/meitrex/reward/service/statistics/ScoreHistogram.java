@@ -0,0 +1,199 @@
+package de.unistuttgart.iste.meitrex.reward.service.statistics;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Mergeable log-linear histogram of reward score values, in the style of an HDR histogram.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} are counted exactly. Larger values are counted in buckets that split
+ * each power of two into {@value #SUB_BUCKET_COUNT} sub-buckets, so quantiles have a relative error of at most
+ * 1/{@value #SUB_BUCKET_COUNT}, independent of the number of values. The mean is exact.
+ * <p>
+ * Histograms can be merged by adding their counts, and values can be removed by adding them with a negative
+ * count. This way, a change of a score is recorded as the removal of the previous value and the addition of the
+ * new value, and the changes of several replicas can be merged into the stored histogram.
+ */
+public class ScoreHistogram {
+
+    static final int SUB_BUCKET_COUNT = 16;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final byte FORMAT_VERSION = 1;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+
+    /**
+     * Adds a value with the given count. Negative values are counted as 0.
+     *
+     * @param value the value
+     * @param count the number of times the value is added, negative to remove the value
+     */
+    public void add(final int value, final long count) {
+        final int clampedValue = Math.max(value, 0);
+        final int index = indexOf(clampedValue);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + 1);
+        }
+        counts[index] += count;
+        totalCount += count;
+        sum += clampedValue * count;
+    }
+
+    /**
+     * Adds all counts of the other histogram to this histogram.
+     *
+     * @param other the histogram to merge
+     */
+    public void merge(final ScoreHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the exact mean of the values, 0 if there are none
+     */
+    public double getMean() {
+        return totalCount <= 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the value at the given quantile, approximated by the middle of the bucket that contains it.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the approximated value, 0 if there are no values
+     */
+    public double getValueAtQuantile(final double quantile) {
+        if (totalCount <= 0) {
+            return 0;
+        }
+        // the rank of the value, counted from 1
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * totalCount));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return (lowestValueOf(index) + highestValueOf(index)) / 2.0;
+            }
+        }
+        return highestValueOf(counts.length - 1);
+    }
+
+    /**
+     * Returns the percentage of values that are lower than the given value, counting the values in the same bucket
+     * half. For example, 85 means that the value is in the top 15%.
+     *
+     * @param value the value
+     * @return the percentile rank between 0 and 100, or {@code null} if there are no values
+     */
+    public Double getPercentileRank(final int value) {
+        if (totalCount <= 0) {
+            return null;
+        }
+        final int index = indexOf(Math.max(value, 0));
+        long below = 0;
+        for (int i = 0; i < Math.min(index, counts.length); i++) {
+            below += counts[i];
+        }
+        final long same = index < counts.length ? counts[index] : 0;
+        final double percentileRank = (below + same / 2.0) / totalCount * 100;
+        return Math.min(Math.max(percentileRank, 0), 100);
+    }
+
+    /**
+     * Serializes the histogram into a compact binary form that only contains the non-empty buckets.
+     *
+     * @return the serialized histogram
+     */
+    public byte[] toBytes() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(totalCount);
+            out.writeLong(sum);
+            out.writeShort((int) Arrays.stream(counts).filter(count -> count != 0).count());
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] != 0) {
+                    out.writeShort(index);
+                    out.writeLong(counts[index]);
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a histogram that was serialized with {@link #toBytes()}.
+     *
+     * @param bytes the serialized histogram, {@code null} for an empty histogram
+     * @return the histogram
+     * @throws IllegalArgumentException if the bytes are not a serialized histogram
+     */
+    public static ScoreHistogram fromBytes(final byte[] bytes) {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        if (bytes == null || bytes.length == 0) {
+            return histogram;
+        }
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            final byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown histogram format version " + version);
+            }
+            histogram.totalCount = in.readLong();
+            histogram.sum = in.readLong();
+            final int bucketCount = in.readUnsignedShort();
+            for (int i = 0; i < bucketCount; i++) {
+                final int index = in.readUnsignedShort();
+                if (index >= histogram.counts.length) {
+                    histogram.counts = Arrays.copyOf(histogram.counts, index + 1);
+                }
+                histogram.counts[index] = in.readLong();
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Invalid histogram", e);
+        }
+        return histogram;
+    }
+
+    static int indexOf(final int value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value;
+        }
+        final int shift = (31 - Integer.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        final int subBucket = (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowestValueOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final long subBucket = SUB_BUCKET_COUNT + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return subBucket << shift;
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        return lowestValueOf(index) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,15 @@
+package de.unistuttgart.iste.meitrex.reward.service.statistics;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScoreType;
+
+import java.util.UUID;
+
+/**
+ * The value of one reward score of a user in a course, whose percentile rank is requested.
+ *
+ * @param courseId  the id of the course
+ * @param scoreType the type of the reward score
+ * @param value     the value of the reward score
+ */
+public record ScoreValue(UUID courseId, RewardScoreType scoreType, int value) {
+}
@@ -3,18 +3,26 @@ package de.unistuttgart.iste.meitrex.reward.api;
 import de.unistuttgart.iste.meitrex.common.testutil.GraphQlApiTest;
 import de.unistuttgart.iste.meitrex.common.testutil.InjectCurrentUserHeader;
 import de.unistuttgart.iste.meitrex.common.user_handling.LoggedInUser;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
 import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardItem;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
 import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
 import de.unistuttgart.iste.meitrex.reward.service.RewardService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.test.tester.GraphQlTester;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
 import static de.unistuttgart.iste.meitrex.common.testutil.TestUsers.userWithMembershipInCourseWithId;
 
 @GraphQlApiTest
@@ -23,6 +31,9 @@ class QueryTest {
     @Autowired
     AllRewardScoresRepository allRewardScoresRepository;
 
+    @Autowired
+    RewardScoresViewRepository rewardScoresViewRepository;
+
     @Autowired
     RewardService rewardService;
 
@@ -83,6 +94,92 @@ class QueryTest {
                 .path("courseRewardScoresForUser.power.value").entity(Integer.class).isEqualTo(0);
     }
 
+    /**
+     * Given a user with reward scores and a user without reward scores
+     * When the reward scores of both users are queried at once
+     * Then the reward scores are returned in the order of the user ids, with initial values for the user without scores
+     */
+    @Test
+    void testCourseRewardScoresForUsers(final GraphQlTester tester) {
+        final UUID userWithScores = UUID.randomUUID();
+        final UUID userWithoutScores = UUID.randomUUID();
+
+        allRewardScoresRepository.save(AllRewardScoresEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(courseId, userWithScores))
+                .health(initializeRewardScoreEntity(80))
+                .strength(initializeRewardScoreEntity(0))
+                .fitness(initializeRewardScoreEntity(100))
+                .growth(initializeRewardScoreEntity(0))
+                .power(initializeRewardScoreEntity(42))
+                .build());
+
+        final String query = """
+                query($courseId: UUID!, $userIds: [UUID!]!) {
+                    courseRewardScoresForUsers(courseId: $courseId, userIds: $userIds) {
+                        health {
+                            value
+                        }
+                        power {
+                            value
+                        }
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .variable("courseId", courseId)
+                .variable("userIds", List.of(userWithoutScores, userWithScores))
+                .execute()
+                .path("courseRewardScoresForUsers").entityList(Object.class).hasSize(2)
+                .path("courseRewardScoresForUsers[0].health.value").entity(Integer.class).isEqualTo(100)
+                .path("courseRewardScoresForUsers[0].power.value").entity(Integer.class).isEqualTo(0)
+                .path("courseRewardScoresForUsers[1].health.value").entity(Integer.class).isEqualTo(80)
+                .path("courseRewardScoresForUsers[1].power.value").entity(Integer.class).isEqualTo(42);
+
+        // the initial reward scores are not persisted by the query
+        assertThat(allRewardScoresRepository.existsById(new AllRewardScoresEntity.PrimaryKey(courseId, userWithoutScores)), is(false));
+    }
+
+    /**
+     * Given a user with reward scores in their course
+     * When the reward scores of all courses of the user are queried
+     * Then the reward scores of the course are returned
+     */
+    @Test
+    void testMyRewardScores(final GraphQlTester tester) {
+        saveWithReadModel(AllRewardScoresEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(courseId, loggedInUser.getId()))
+                .health(initializeRewardScoreEntity(90))
+                .strength(initializeRewardScoreEntity(0))
+                .fitness(initializeRewardScoreEntity(100))
+                .growth(initializeRewardScoreEntity(0))
+                .power(initializeRewardScoreEntity(12))
+                .build());
+
+        final String query = """
+                query {
+                    myRewardScores {
+                        courseId
+                        rewardScores {
+                            health {
+                                value
+                            }
+                            power {
+                                value
+                            }
+                        }
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .execute()
+                .path("myRewardScores").entityList(Object.class).hasSize(1)
+                .path("myRewardScores[0].courseId").entity(UUID.class).isEqualTo(courseId)
+                .path("myRewardScores[0].rewardScores.health.value").entity(Integer.class).isEqualTo(90)
+                .path("myRewardScores[0].rewardScores.power.value").entity(Integer.class).isEqualTo(12);
+    }
+
     /**
      * Given two rewardScores exist
      * When the scoreboard is queried
@@ -93,7 +190,7 @@ class QueryTest {
         final UUID user1 = UUID.randomUUID();
         final UUID user2 = UUID.randomUUID();
 
-        allRewardScoresRepository.save(AllRewardScoresEntity.builder()
+        saveWithReadModel(AllRewardScoresEntity.builder()
                 .id(new AllRewardScoresEntity.PrimaryKey(courseId, user1))
                 .health(initializeRewardScoreEntity(100))
                 .strength(initializeRewardScoreEntity(0))
@@ -102,7 +199,7 @@ class QueryTest {
                 .power(initializeRewardScoreEntity(0))
                 .build());
 
-        allRewardScoresRepository.save(AllRewardScoresEntity.builder()
+        saveWithReadModel(AllRewardScoresEntity.builder()
                 .id(new AllRewardScoresEntity.PrimaryKey(courseId, user2))
                 .health(initializeRewardScoreEntity(100))
                 .strength(initializeRewardScoreEntity(0))
@@ -130,6 +227,80 @@ class QueryTest {
 
     }
 
+    /**
+     * Given a health score with two changes on one day and one change two days later
+     * When the history of the health score is queried per day and per week
+     * Then the changes are aggregated per bucket
+     */
+    @Test
+    void testRewardScoreHistory(final GraphQlTester tester) {
+        final RewardScoreEntity health = initializeRewardScoreEntity(80);
+        health.getLog().add(createLogEntry("2024-01-01T10:00:00Z", 100, 90));
+        health.getLog().add(createLogEntry("2024-01-01T18:00:00Z", 90, 95));
+        health.getLog().add(createLogEntry("2024-01-03T09:00:00Z", 95, 80));
+
+        allRewardScoresRepository.save(AllRewardScoresEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(courseId, loggedInUser.getId()))
+                .health(health)
+                .strength(initializeRewardScoreEntity(0))
+                .fitness(initializeRewardScoreEntity(100))
+                .growth(initializeRewardScoreEntity(0))
+                .power(initializeRewardScoreEntity(0))
+                .build());
+
+        final String query = """
+                query($courseId: UUID!, $bucket: RewardScoreHistoryBucket!) {
+                    rewardScoreHistory(courseId: $courseId, scoreType: HEALTH,
+                                       from: "2024-01-01T00:00:00Z", to: "2024-01-08T00:00:00Z", bucket: $bucket) {
+                        lastValue
+                        minValue
+                        maxValue
+                        sumOfDifferences
+                        changes
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .variable("courseId", courseId)
+                .variable("bucket", "DAY")
+                .execute()
+                .path("rewardScoreHistory[*].lastValue").entityList(Integer.class).containsExactly(95, 80)
+                .path("rewardScoreHistory[*].minValue").entityList(Integer.class).containsExactly(90, 80)
+                .path("rewardScoreHistory[*].maxValue").entityList(Integer.class).containsExactly(95, 80)
+                .path("rewardScoreHistory[*].sumOfDifferences").entityList(Integer.class).containsExactly(-5, -15)
+                .path("rewardScoreHistory[*].changes").entityList(Integer.class).containsExactly(2, 1);
+
+        // 2024-01-01 is a Monday, so all changes are in the same week
+        tester.document(query)
+                .variable("courseId", courseId)
+                .variable("bucket", "WEEK")
+                .execute()
+                .path("rewardScoreHistory[*].lastValue").entityList(Integer.class).containsExactly(80)
+                .path("rewardScoreHistory[*].minValue").entityList(Integer.class).containsExactly(80)
+                .path("rewardScoreHistory[*].maxValue").entityList(Integer.class).containsExactly(95)
+                .path("rewardScoreHistory[*].sumOfDifferences").entityList(Integer.class).containsExactly(-20)
+                .path("rewardScoreHistory[*].changes").entityList(Integer.class).containsExactly(3);
+    }
+
+    private static RewardScoreLogEntry createLogEntry(final String date, final int oldValue, final int newValue) {
+        return RewardScoreLogEntry.builder()
+                .date(OffsetDateTime.parse(date))
+                .oldValue(oldValue)
+                .newValue(newValue)
+                .difference(newValue - oldValue)
+                .reason(RewardChangeReason.CONTENT_DONE)
+                .associatedContentIds(List.of())
+                .build();
+    }
+
+    /**
+     * Saves the reward scores and their read model row, like the {@link RewardService} does.
+     */
+    private void saveWithReadModel(final AllRewardScoresEntity allRewardScoresEntity) {
+        rewardScoresViewRepository.upsert(allRewardScoresRepository.save(allRewardScoresEntity));
+    }
+
     private static RewardScoreEntity initializeRewardScoreEntity(final int initialValue) {
         final RewardScoreEntity rewardScoreEntity = new RewardScoreEntity();
         rewardScoreEntity.setValue(initialValue);
@@ -6,6 +6,7 @@ import de.unistuttgart.iste.meitrex.common.user_handling.LoggedInUser.UserRoleIn
 import org.junit.jupiter.api.Test;
 import org.springframework.graphql.test.tester.GraphQlTester;
 
+import java.util.List;
 import java.util.UUID;
 
 import static de.unistuttgart.iste.meitrex.common.testutil.TestUsers.userWithMembershipInCourseWithId;
@@ -57,4 +58,39 @@ class TestAuthorization {
                 .errors()
                 .satisfy(AuthorizationAsserts::assertIsMissingUserRoleError);
     }
+
+    @Test
+    void testStartCourseRecalculationOnlyForAdmins(final GraphQlTester tester) {
+        final String query = """
+                mutation($courseId: UUID!) {
+                    startCourseRecalculation(courseId: $courseId)
+                }
+                """;
+
+        tester.document(query)
+                .variable("courseId", courseId)
+                .execute()
+                .errors()
+                .satisfy(AuthorizationAsserts::assertIsMissingUserRoleError);
+    }
+
+    @Test
+    void testScoresOfManyUsersOnlyForAdmins(final GraphQlTester tester) {
+        final String query = """
+                query ($courseId: UUID!, $userIds: [UUID!]!) {
+                    courseRewardScoresForUsers(courseId: $courseId, userIds: $userIds) {
+                        health {
+                            value
+                        }
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .variable("courseId", courseId)
+                .variable("userIds", List.of(UUID.randomUUID()))
+                .execute()
+                .errors()
+                .satisfy(AuthorizationAsserts::assertIsMissingUserRoleError);
+    }
 }
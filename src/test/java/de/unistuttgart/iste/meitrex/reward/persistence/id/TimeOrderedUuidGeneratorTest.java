@@ -0,0 +1,44 @@
+package de.unistuttgart.iste.meitrex.reward.persistence.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class TimeOrderedUuidGeneratorTest {
+
+    /**
+     * Given many ids generated in quick succession
+     * When they are compared the way PostgreSQL compares UUIDs, i.e. byte by byte
+     * Then they are strictly increasing
+     */
+    @Test
+    void testIdsAreStrictlyIncreasing() {
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(TimeOrderedUuidGenerator.generate().toString());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i), greaterThan(ids.get(i - 1)));
+        }
+    }
+
+    /**
+     * Given a generated id
+     * When its version, variant and timestamp are read
+     * Then it is a version 7 UUID of the current time
+     */
+    @Test
+    void testIdIsVersion7WithCurrentTimestamp() {
+        final long before = System.currentTimeMillis();
+        final UUID id = TimeOrderedUuidGenerator.generate();
+
+        assertThat(id.version(), is(7));
+        assertThat(id.variant(), is(2));
+        // the timestamp may be ahead of the clock if the counter overflowed in an earlier test
+        assertThat(id.getMostSignificantBits() >>> 16, greaterThanOrEqualTo(before));
+    }
+}
@@ -0,0 +1,42 @@
+package de.unistuttgart.iste.meitrex.reward.service;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresInitializationRequestedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.*;
+
+class RewardScoresInitializerTest {
+
+    private final RewardService rewardService = mock(RewardService.class);
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+
+    private final RewardScoresInitializer initializer = new RewardScoresInitializer(rewardService, queuedTasks::add);
+
+    /**
+     * Given reward scores that were read several times before they were initialized
+     * When the initialization is requested for each read
+     * Then they are initialized only once, in the background
+     */
+    @Test
+    void testRepeatedRequestsAreQueuedOnce() {
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+
+        initializer.onInitializationRequested(new RewardScoresInitializationRequestedEvent(id));
+        initializer.onInitializationRequested(new RewardScoresInitializationRequestedEvent(id));
+
+        assertThat(queuedTasks, hasSize(1));
+        verifyNoInteractions(rewardService);
+
+        queuedTasks.get(0).run();
+        verify(rewardService).initializeRewardScoresIfAbsent(id.getCourseId(), id.getUserId());
+
+        // once the initialization is done, it can be requested again, e.g. after it failed
+        initializer.onInitializationRequested(new RewardScoresInitializationRequestedEvent(id));
+        assertThat(queuedTasks, hasSize(2));
+    }
+}
@@ -7,39 +7,71 @@ import de.unistuttgart.iste.meitrex.content_service.exception.ContentServiceConn
 import de.unistuttgart.iste.meitrex.generated.dto.*;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
 import de.unistuttgart.iste.meitrex.reward.persistence.mapper.RewardScoreMapper;
 import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.cache.RewardScoresCache;
 import de.unistuttgart.iste.meitrex.reward.service.calculation.*;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.DueWorkIndexRefreshedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresInitializationRequestedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.outbox.RewardScoresOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class RewardServiceTest {
 
     private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RewardScoresViewRepository rewardScoresViewRepository = mock(RewardScoresViewRepository.class);
+    private final RewardScoresOutbox rewardScoresOutbox = mock(RewardScoresOutbox.class);
     private final RewardScoreMapper rewardScoreMapper = mock(RewardScoreMapper.class);
     private final HealthScoreCalculator healthScoreCalculator = mock(HealthScoreCalculator.class);
     private final FitnessScoreCalculator fitnessScoreCalculator = mock(FitnessScoreCalculator.class);
     private final StrengthScoreCalculator strengthScoreCalculator = mock(StrengthScoreCalculator.class);
     private final PowerScoreCalculator powerScoreCalculator = mock(PowerScoreCalculator.class);
     private final GrowthScoreCalculator growthScoreCalculator = mock(GrowthScoreCalculator.class);
+    private final DueWorkIndexCalculator dueWorkIndexCalculator = new DueWorkIndexCalculator();
 
     private final ContentServiceClient contentServiceClient = mock(ContentServiceClient.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final RewardScoresCache rewardScoresCache = new RewardScoresCache(100, Duration.ofMinutes(10));
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private final RewardService rewardService = new RewardService(
             allRewardScoresRepository,
+            rewardScoresViewRepository,
+            rewardScoresOutbox,
             rewardScoreMapper,
             healthScoreCalculator,
-            fitnessScoreCalculator,
-            strengthScoreCalculator,
-            powerScoreCalculator,
-            growthScoreCalculator,
-            contentServiceClient);
+            new ScoreCalculationGraph(healthScoreCalculator,
+                    fitnessScoreCalculator,
+                    growthScoreCalculator,
+                    strengthScoreCalculator,
+                    powerScoreCalculator),
+            dueWorkIndexCalculator,
+            contentServiceClient,
+            eventPublisher,
+            rewardScoresCache,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            meterRegistry);
 
     /**
      * Given a courseId and userID
@@ -53,15 +85,44 @@ class RewardServiceTest {
 
         final AllRewardScoresEntity expectedEntity = dummyAllRewardScoresBuilder(courseId, userId).build();
 
-        when(allRewardScoresRepository.save(any())).thenReturn(expectedEntity);
+        when(allRewardScoresRepository.insertIfAbsent(any())).thenReturn(true);
+        when(allRewardScoresRepository.findById(expectedEntity.getId())).thenReturn(Optional.of(expectedEntity));
 
         final AllRewardScoresEntity rewardScoresEntity = rewardService.initializeRewardScores(courseId, userId);
 
-        verify(allRewardScoresRepository).save(any());
+        final ArgumentCaptor<AllRewardScoresEntity> insertedEntity = ArgumentCaptor.forClass(AllRewardScoresEntity.class);
+        verify(allRewardScoresRepository).insertIfAbsent(insertedEntity.capture());
+        assertThat(insertedEntity.getValue().getFitness().getValue(), is(100));
+        assertThat(insertedEntity.getValue().getPower().getValue(), is(0));
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(rewardScoresViewRepository).upsert(expectedEntity);
+        verify(rewardScoresOutbox).add(expectedEntity, null);
+        verify(eventPublisher).publishEvent(any(RewardScoresUpdatedEvent.class));
         assertThat(rewardScoresEntity, is(expectedEntity));
 
     }
 
+    /**
+     * Given reward scores that are initialized concurrently by another transaction
+     * When initializeRewardScores is called
+     * Then the reward scores of the other transaction are returned and no update is published
+     */
+    @Test
+    void testInitializeRewardScoresConcurrently() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+
+        final AllRewardScoresEntity existingEntity = dummyAllRewardScoresBuilder(courseId, userId).build();
+
+        when(allRewardScoresRepository.insertIfAbsent(any())).thenReturn(false);
+        when(allRewardScoresRepository.findById(existingEntity.getId())).thenReturn(Optional.of(existingEntity));
+
+        final AllRewardScoresEntity rewardScoresEntity = rewardService.initializeRewardScores(courseId, userId);
+
+        assertThat(rewardScoresEntity, is(sameInstance(existingEntity)));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     /**
      * Given a progressEvent
      * when calculateScoresOnContentWorkedOn is called
@@ -91,13 +152,14 @@ class RewardServiceTest {
         final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userID).build();
 
         final RewardScores expectedRewardScores = new RewardScores(
-                new RewardScore(100, 0, null),
-                new RewardScore(100, 0, null),
-                new RewardScore(0, 0, null),
-                new RewardScore(0, 0, null),
-                new RewardScore(0, 0, null));
+                new RewardScore(100, 0, null, null),
+                new RewardScore(100, 0, null, null),
+                new RewardScore(0, 0, null, null),
+                new RewardScore(0, 0, null, null),
+                new RewardScore(0, 0, null, null));
 
         when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.ofNullable(allRewardScoresEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.ofNullable(allRewardScoresEntity));
         when(allRewardScoresRepository.save(any())).thenReturn(allRewardScoresEntity);
         when(contentServiceClient.queryContentsOfCourse(userID, courseId)).thenReturn(contents);
         when(rewardScoreMapper.entityToDto(allRewardScoresEntity)).thenReturn(expectedRewardScores);
@@ -106,12 +168,52 @@ class RewardServiceTest {
 
         assertThat(rewardScores, is(expectedRewardScores));
         verify(allRewardScoresRepository).save(any());
+        // read in the read-only transaction that detects the change, locked in the write transaction
         verify(allRewardScoresRepository).findById(primaryKey);
+        verify(allRewardScoresRepository).findLockedById(primaryKey);
+        // the calculation of the read-only transaction is reused
+        verify(healthScoreCalculator).calculateOnContentWorkedOn(any(), any(), any());
         verify(contentServiceClient).queryContentsOfCourse(userID, courseId);
         verify(rewardScoreMapper).entityToDto(allRewardScoresEntity);
 
     }
 
+    /**
+     * Given a progress event and reward scores that are saved by another transaction while the event is calculated
+     * When calculateScoresOnContentWorkedOn is called
+     * Then the reward scores are calculated again on the locked entity before they are saved
+     */
+    @Test
+    void testCalculateScoresOnContentWorkedOnRecalculatesConcurrentlySavedScores() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+
+        final UserProgressUpdatedEvent event = UserProgressUpdatedEvent.builder()
+                .userId(userId)
+                .contentId(UUID.randomUUID())
+                .courseId(courseId)
+                .chapterId(UUID.randomUUID())
+                .correctness(1)
+                .hintsUsed(0)
+                .success(true)
+                .build();
+
+        final AllRewardScoresEntity readEntity = dummyAllRewardScoresBuilder(courseId, userId).version(1).build();
+        final AllRewardScoresEntity lockedEntity = dummyAllRewardScoresBuilder(courseId, userId).version(2).build();
+
+        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.of(readEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.of(lockedEntity));
+        when(allRewardScoresRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(List.of());
+
+        rewardService.calculateScoresOnContentWorkedOn(event);
+
+        verify(allRewardScoresRepository).save(lockedEntity);
+        verify(healthScoreCalculator, times(2)).calculateOnContentWorkedOn(any(), any(), any());
+        assertThat(lockedEntity.getVersion(), is(3L));
+    }
+
     /**
      * Given a rewardScore
      * when recalculateScores is called
@@ -129,13 +231,13 @@ class RewardServiceTest {
         final List<Content> contents = List.of(createContentWithUserData(contentId, progressData));
 
         final RewardScores expectedRewardScores = new RewardScores(
-                new RewardScore(100, 0, null),
-                new RewardScore(100, 0, null),
-                new RewardScore(0, 0, null),
-                new RewardScore(0, 0, null),
-                new RewardScore(0, 0, null));
+                new RewardScore(100, 0, null, null),
+                new RewardScore(100, 0, null, null),
+                new RewardScore(0, 0, null, null),
+                new RewardScore(0, 0, null, null),
+                new RewardScore(0, 0, null, null));
 
-        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.ofNullable(allRewardScoresEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.ofNullable(allRewardScoresEntity));
         when(allRewardScoresRepository.save(any())).thenReturn(allRewardScoresEntity);
         when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(contents);
         when(rewardScoreMapper.entityToDto(allRewardScoresEntity)).thenReturn(expectedRewardScores);
@@ -143,17 +245,366 @@ class RewardServiceTest {
         final RewardScores rewardScores = rewardService.recalculateScores(courseId, userId);
 
         assertThat(rewardScores, is(expectedRewardScores));
-        verify(allRewardScoresRepository).findById(primaryKey);
+        verify(allRewardScoresRepository).findLockedById(primaryKey);
         verify(allRewardScoresRepository).save(any());
         verify(contentServiceClient).queryContentsOfCourse(userId, courseId);
         verify(rewardScoreMapper).entityToDto(allRewardScoresEntity);
 
     }
 
+    /**
+     * Given a user whose next recalculation has passed
+     * When recalculateScoresIfDue is called
+     * Then the scores are recalculated and the next recalculation is scheduled
+     */
+    @Test
+    void testRecalculateScoresIfDue() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(OffsetDateTime.now().minusDays(1))
+                .nextRecalculation(OffsetDateTime.now().minusMinutes(1))
+                .build();
+
+        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+        when(allRewardScoresRepository.save(any())).thenReturn(allRewardScoresEntity);
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(List.of());
+
+        assertThat(rewardService.recalculateScoresIfDue(courseId, userId), is(true));
+
+        verify(contentServiceClient).queryContentsOfCourse(userId, courseId);
+        verify(allRewardScoresRepository).save(allRewardScoresEntity);
+        verify(rewardScoresViewRepository).upsert(allRewardScoresEntity);
+        verify(rewardScoresOutbox).add(eq(allRewardScoresEntity), any());
+        verify(eventPublisher).publishEvent(any(RewardScoresUpdatedEvent.class));
+        assertThat(allRewardScoresEntity.getLastRecalculation(), is(notNullValue()));
+    }
+
+    /**
+     * Given a user whose next recalculation is in the future
+     * When recalculateScoresIfDue is called
+     * Then the scores are not recalculated
+     */
+    @Test
+    void testRecalculateScoresIfDueSkipsUsersWithoutWorkDue() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(OffsetDateTime.now())
+                .nextRecalculation(OffsetDateTime.now().plusHours(5))
+                .build();
+
+        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+
+        assertThat(rewardService.recalculateScoresIfDue(courseId, userId), is(false));
+
+        verify(contentServiceClient, never()).queryContentsOfCourse(any(), any());
+        verify(allRewardScoresRepository, never()).findLockedById(any());
+        verify(allRewardScoresRepository, never()).save(any());
+    }
+
+    /**
+     * Given a user whose recalculation is due, but who is recalculated concurrently while the contents are fetched
+     * When recalculateScoresIfDue is called
+     * Then the scores are not recalculated again under the lock
+     */
+    @Test
+    void testRecalculateScoresIfDueRechecksUnderLock() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final AllRewardScoresEntity dueEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(OffsetDateTime.now().minusHours(1))
+                .nextRecalculation(OffsetDateTime.now().minusMinutes(1))
+                .build();
+        final AllRewardScoresEntity recalculatedEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(OffsetDateTime.now())
+                .nextRecalculation(OffsetDateTime.now().plusDays(1))
+                .build();
+
+        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.of(dueEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.of(recalculatedEntity));
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(List.of());
+
+        assertThat(rewardService.recalculateScoresIfDue(courseId, userId), is(false));
+
+        verify(contentServiceClient).queryContentsOfCourse(userId, courseId);
+        verify(allRewardScoresRepository, never()).save(any());
+    }
+
+    /**
+     * Given a user whose next recalculation is in the future, but whose due-work index is stale
+     * When recalculateScoresIfDue is called
+     * Then only the index is refreshed, without saving the reward scores or publishing an update
+     */
+    @Test
+    void testRecalculateScoresIfDueRefreshesStaleIndex() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final OffsetDateTime indexedAt = OffsetDateTime.now().minus(DueWorkIndexCalculator.MAX_INDEX_AGE).minusHours(1);
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(indexedAt)
+                .lastRecalculation(OffsetDateTime.now().minusHours(2))
+                .nextRecalculation(OffsetDateTime.now().plusDays(5))
+                .build();
+        final OffsetDateTime newDueDate = OffsetDateTime.now().minusHours(1);
+
+        when(allRewardScoresRepository.findById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId))
+                .thenReturn(List.of(createContentWithSuggestedDate(newDueDate)));
+
+        assertThat(rewardService.recalculateScoresIfDue(courseId, userId), is(false));
+
+        // the due date has passed, but the user was recalculated less than a day ago
+        verify(allRewardScoresRepository).updateDueWorkIndex(eq(primaryKey), eq(newDueDate),
+                eq(allRewardScoresEntity.getLastRecalculation().plusDays(1)), any());
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(RewardScoresUpdatedEvent.class));
+        verify(eventPublisher).publishEvent(any(DueWorkIndexRefreshedEvent.class));
+    }
+
+    /**
+     * Given a user whose health was decreased for an overdue content by a recalculation an hour ago
+     * When a course recalculation refreshes their due-work index
+     * Then the health is not decreased a second time and only the index is refreshed
+     */
+    @Test
+    void testRefreshDueWorkIndexDoesNotDecreaseTwiceADay() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey primaryKey = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final OffsetDateTime lastRecalculation = OffsetDateTime.now().minusHours(1);
+        final OffsetDateTime overdueDate = OffsetDateTime.now().minusDays(3);
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .health(initializeRewardScoreEntity(90))
+                .dueWorkIndexedAt(lastRecalculation)
+                .lastRecalculation(lastRecalculation)
+                .nextDueDate(overdueDate)
+                .nextRecalculation(lastRecalculation.plusDays(1))
+                .build();
+
+        when(allRewardScoresRepository.findLockedById(primaryKey)).thenReturn(Optional.of(allRewardScoresEntity));
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId))
+                .thenReturn(List.of(createContentWithSuggestedDate(overdueDate)));
+
+        assertThat(rewardService.refreshDueWorkIndex(courseId, userId), is(false));
+
+        verify(healthScoreCalculator, never()).recalculateScore(any(), any());
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(allRewardScoresRepository).updateDueWorkIndex(eq(primaryKey), eq(overdueDate),
+                eq(lastRecalculation.plusDays(1)), any());
+        assertThat(allRewardScoresEntity.getHealth().getValue(), is(90));
+    }
+
+    /**
+     * Given reward scores that were read before
+     * When getRewardScores is called again
+     * Then the reward scores are served from the cache without accessing the database
+     */
+    @Test
+    void testGetRewardScoresIsCached() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId).build();
+        final RewardScores expectedRewardScores = new RewardScores();
+
+        when(allRewardScoresRepository.findById(allRewardScoresEntity.getId())).thenReturn(Optional.of(allRewardScoresEntity));
+        when(rewardScoreMapper.entityToDto(allRewardScoresEntity)).thenReturn(expectedRewardScores);
+
+        assertThat(rewardService.getRewardScores(courseId, userId), is(expectedRewardScores));
+        assertThat(rewardService.getRewardScores(courseId, userId), is(expectedRewardScores));
+
+        verify(allRewardScoresRepository, times(1)).findById(allRewardScoresEntity.getId());
+        verify(rewardScoreMapper, times(1)).entityToDto(allRewardScoresEntity);
+    }
+
+    /**
+     * Given a cached user, a persisted user and a user without reward scores
+     * When the reward scores of all three are requested at once
+     * Then the uncached reward scores are loaded in one query and the missing ones are not initialized
+     */
+    @Test
+    void testGetRewardScoresOfManyUsers() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey cachedId = new AllRewardScoresEntity.PrimaryKey(courseId, UUID.randomUUID());
+        final AllRewardScoresEntity.PrimaryKey persistedId = new AllRewardScoresEntity.PrimaryKey(courseId, UUID.randomUUID());
+        final AllRewardScoresEntity.PrimaryKey missingId = new AllRewardScoresEntity.PrimaryKey(courseId, UUID.randomUUID());
+        final AllRewardScoresEntity persistedEntity = dummyAllRewardScoresBuilder(courseId, persistedId.getUserId()).build();
+        final RewardScores cachedRewardScores = new RewardScores();
+        final RewardScores persistedRewardScores = new RewardScores();
+        final RewardScores initialRewardScores = new RewardScores();
+        rewardScoresCache.put(cachedId, 1, cachedRewardScores);
+
+        when(allRewardScoresRepository.findAllByIdIn(List.of(persistedId, missingId))).thenReturn(List.of(persistedEntity));
+        when(rewardScoreMapper.entityToDto(persistedEntity)).thenReturn(persistedRewardScores);
+        when(rewardScoreMapper.entityToDto(argThat(entity -> entity.getId().equals(missingId)))).thenReturn(initialRewardScores);
+
+        final Map<AllRewardScoresEntity.PrimaryKey, RewardScores> result
+                = rewardService.getRewardScores(List.of(cachedId, persistedId, missingId));
+
+        assertThat(result.get(cachedId), is(sameInstance(cachedRewardScores)));
+        assertThat(result.get(persistedId), is(sameInstance(persistedRewardScores)));
+        assertThat(result.get(missingId), is(sameInstance(initialRewardScores)));
+        verify(allRewardScoresRepository, times(1)).findAllByIdIn(any());
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(contentServiceClient, never()).queryContentsOfCourse(any(), any());
+    }
+
+    /**
+     * Given a user with reward scores in one of two courses
+     * When the reward scores of the user are requested without logs
+     * Then they are read from the read model in one query by user id and not cached
+     */
+    @Test
+    void testGetRewardScoresOfUserWithoutLogs() {
+        final UUID userId = UUID.randomUUID();
+        final UUID courseWithScores = UUID.randomUUID();
+        final UUID courseWithoutScores = UUID.randomUUID();
+        final RewardScoresViewEntity rewardScoresView = RewardScoresViewEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(courseWithScores, userId))
+                .build();
+        final RewardScores rewardScoresWithoutLogs = new RewardScores();
+
+        when(rewardScoresViewRepository.findAllByUserIdAndCourseIdIn(userId, List.of(courseWithScores, courseWithoutScores)))
+                .thenReturn(List.of(rewardScoresView));
+        when(rewardScoreMapper.viewToDto(rewardScoresView)).thenReturn(rewardScoresWithoutLogs);
+
+        final List<CourseRewardScores> result = rewardService.getRewardScoresOfUser(userId,
+                List.of(courseWithScores, courseWithoutScores), false);
+
+        assertThat(result.size(), is(2));
+        assertThat(result.get(0).getCourseId(), is(courseWithScores));
+        assertThat(result.get(0).getRewardScores(), is(sameInstance(rewardScoresWithoutLogs)));
+        assertThat(result.get(1).getCourseId(), is(courseWithoutScores));
+        verify(allRewardScoresRepository, never()).findAllByUserIdAndCourseIdIn(any(), any());
+        verify(allRewardScoresRepository, never()).save(any());
+        assertThat(rewardScoresCache.get(rewardScoresView.getId()).isPresent(), is(false));
+    }
+
+    /**
+     * Given a progress event that changes neither a reward score nor the due-work index
+     * When calculateScoresOnContentWorkedOn is called
+     * Then the power score is not recalculated and the reward scores are neither saved nor published
+     */
+    @Test
+    void testCalculateScoresOnContentWorkedOnWithoutChanges() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+
+        final UserProgressUpdatedEvent event = UserProgressUpdatedEvent.builder()
+                .userId(userId)
+                .contentId(UUID.randomUUID())
+                .courseId(courseId)
+                .chapterId(UUID.randomUUID())
+                .correctness(1)
+                .hintsUsed(0)
+                .success(true)
+                .build();
+
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId)
+                .dueWorkIndexedAt(OffsetDateTime.now())
+                .build();
+        final RewardScores expectedRewardScores = new RewardScores();
+
+        when(allRewardScoresRepository.findById(allRewardScoresEntity.getId())).thenReturn(Optional.of(allRewardScoresEntity));
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(List.of());
+        when(healthScoreCalculator.calculateOnContentWorkedOn(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getHealth());
+        when(fitnessScoreCalculator.calculateOnContentWorkedOn(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getFitness());
+        when(growthScoreCalculator.calculateOnContentWorkedOn(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getGrowth());
+        when(strengthScoreCalculator.calculateOnContentWorkedOn(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getStrength());
+        when(powerScoreCalculator.getDependencies()).thenCallRealMethod();
+        when(rewardScoreMapper.entityToDto(allRewardScoresEntity)).thenReturn(expectedRewardScores);
+
+        assertThat(rewardService.calculateScoresOnContentWorkedOn(event), is(sameInstance(expectedRewardScores)));
+
+        verify(powerScoreCalculator, never()).calculateOnContentWorkedOn(any(), any(), any());
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertThat(meterRegistry.counter("reward.progress_events", "outcome", "unchanged").count(), is(1.0));
+    }
+
+    /**
+     * Given a user without reward scores
+     * When the reward scores are read
+     * Then the initial reward scores are returned without persisting them and their initialization is requested
+     */
+    @Test
+    void testGetRewardScoresDoesNotInitializeOnRead() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity.PrimaryKey id = new AllRewardScoresEntity.PrimaryKey(courseId, userId);
+        final RewardScores initialRewardScores = new RewardScores();
+
+        when(allRewardScoresRepository.findById(id)).thenReturn(Optional.empty());
+        when(rewardScoreMapper.entityToDto(any())).thenReturn(initialRewardScores);
+
+        assertThat(rewardService.getRewardScores(courseId, userId), is(sameInstance(initialRewardScores)));
+
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(contentServiceClient, never()).queryContentsOfCourse(any(), any());
+        verify(eventPublisher).publishEvent(new RewardScoresInitializationRequestedEvent(id));
+    }
+
+    /**
+     * Given reward scores that were initialized in the meantime
+     * When initializeRewardScoresIfAbsent is called
+     * Then they are not initialized again
+     */
+    @Test
+    void testInitializeRewardScoresIfAbsent() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+
+        when(allRewardScoresRepository.existsById(new AllRewardScoresEntity.PrimaryKey(courseId, userId))).thenReturn(true);
+
+        rewardService.initializeRewardScoresIfAbsent(courseId, userId);
+
+        verify(allRewardScoresRepository, never()).save(any());
+    }
+
+    /**
+     * Given cached reward scores
+     * When the reward scores are saved and the transaction is committed
+     * Then the cache contains the saved reward scores
+     */
+    @Test
+    void testSavedRewardScoresAreWrittenThroughToCache() throws ContentServiceConnectionException {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final AllRewardScoresEntity allRewardScoresEntity = dummyAllRewardScoresBuilder(courseId, userId).build();
+        final RewardScores oldRewardScores = new RewardScores();
+        final RewardScores newRewardScores = new RewardScores();
+        rewardScoresCache.put(allRewardScoresEntity.getId(), allRewardScoresEntity.getVersion(), oldRewardScores);
+
+        when(allRewardScoresRepository.findById(allRewardScoresEntity.getId())).thenReturn(Optional.of(allRewardScoresEntity));
+        when(allRewardScoresRepository.findLockedById(allRewardScoresEntity.getId())).thenReturn(Optional.of(allRewardScoresEntity));
+        when(allRewardScoresRepository.save(any())).thenReturn(allRewardScoresEntity);
+        when(contentServiceClient.queryContentsOfCourse(userId, courseId)).thenReturn(List.of());
+        when(rewardScoreMapper.entityToDto(allRewardScoresEntity)).thenReturn(newRewardScores);
+        // the application event publisher delivers the event to the cache after the commit
+        doAnswer(invocation -> {
+            rewardScoresCache.onRewardScoresUpdated(invocation.getArgument(0));
+            return null;
+        }).when(eventPublisher).publishEvent(any(RewardScoresUpdatedEvent.class));
+
+        rewardService.recalculateScores(courseId, userId);
+
+        assertThat(rewardService.getRewardScores(courseId, userId), is(sameInstance(newRewardScores)));
+    }
+
     /**
      * Given courseId
      * When getScoreboard is called
-     * Then the scoreboard for the course is returned
+     * Then the scoreboard for the course is returned from the read model, in the order of the read model
      */
     @Test
     void testGetScoreboardSuccessfully() {
@@ -164,29 +615,25 @@ class RewardServiceTest {
         final UUID userId2 = UUID.randomUUID();
         final UUID userId3 = UUID.randomUUID();
 
-        final AllRewardScoresEntity rewardScores1 = dummyAllRewardScoresBuilder(courseId, userId1).power(initializeRewardScoreEntity(10)).build();
-        final AllRewardScoresEntity rewardScores2 = dummyAllRewardScoresBuilder(courseId, userId2).power(initializeRewardScoreEntity(30)).build();
-        final AllRewardScoresEntity rewardScores3 = dummyAllRewardScoresBuilder(courseId, userId3).build();
-
-        final List<AllRewardScoresEntity> rewardScoresEntities = new ArrayList<>();
-        rewardScoresEntities.add(rewardScores1);
-        rewardScoresEntities.add(rewardScores2);
-        rewardScoresEntities.add(rewardScores3);
+        final List<RewardScoresViewEntity> rewardScoresViews = List.of(
+                RewardScoresViewEntity.builder().id(new AllRewardScoresEntity.PrimaryKey(courseId, userId2)).powerValue(30).build(),
+                RewardScoresViewEntity.builder().id(new AllRewardScoresEntity.PrimaryKey(courseId, userId1)).powerValue(10).build(),
+                RewardScoresViewEntity.builder().id(new AllRewardScoresEntity.PrimaryKey(courseId, userId3)).powerValue(0).build());
 
         // mock repository
-        when(allRewardScoresRepository.findAllRewardScoresEntitiesById_CourseId(courseId)).thenReturn(rewardScoresEntities);
+        when(rewardScoresViewRepository.findAllByCourseIdOrderByPowerDesc(courseId)).thenReturn(rewardScoresViews);
 
         // act
         final List<ScoreboardItem> scoreboardItemList = rewardService.getScoreboard(courseId);
 
         //assert
         assertThat(scoreboardItemList.size(), is(3));
-        assertThat(scoreboardItemList.get(0).getUserId(), is(rewardScores2.getId().getUserId()));
-        assertThat(scoreboardItemList.get(1).getUserId(), is(rewardScores1.getId().getUserId()));
-        assertThat(scoreboardItemList.get(2).getUserId(), is(rewardScores3.getId().getUserId()));
+        assertThat(scoreboardItemList.get(0), is(new ScoreboardItem(userId2, 30)));
+        assertThat(scoreboardItemList.get(1), is(new ScoreboardItem(userId1, 10)));
+        assertThat(scoreboardItemList.get(2), is(new ScoreboardItem(userId3, 0)));
 
-        // verify that the repository was called
-        verify(allRewardScoresRepository, times(1)).findAllRewardScoresEntitiesById_CourseId(courseId);
+        // verify that the normalized reward scores were not loaded
+        verify(allRewardScoresRepository, never()).findAllRewardScoresEntitiesById_CourseId(courseId);
     }
 
     @Test
@@ -225,6 +672,26 @@ class RewardServiceTest {
         // verify that the repository was called
         verify(allRewardScoresRepository, times(1)).findAllRewardScoresEntitiesById_CourseId(courseId);
         verify(allRewardScoresRepository, times(1)).deleteAll(rewardScoresEntities);
+        verify(rewardScoresViewRepository, times(1)).deleteAllByCourseId(courseId);
+    }
+
+    /**
+     * Given a course that is deleted
+     * When removeRewardData is called
+     * Then an event is published, so that the cached reward scores of the course are evicted
+     */
+    @Test
+    void testDataDeletionPublishesEvent() throws IncompleteEventMessageException {
+        final UUID courseId = UUID.randomUUID();
+
+        when(allRewardScoresRepository.findAllRewardScoresEntitiesById_CourseId(courseId)).thenReturn(List.of());
+
+        rewardService.removeRewardData(CourseChangeEvent.builder()
+                .courseId(courseId)
+                .operation(CrudOperation.DELETE)
+                .build());
+
+        verify(eventPublisher).publishEvent(new CourseRewardScoresDeletedEvent(courseId));
     }
 
     private static AllRewardScoresEntity.AllRewardScoresEntityBuilder dummyAllRewardScoresBuilder(final UUID courseId, final UUID userId) {
@@ -287,5 +754,14 @@ class RewardServiceTest {
                 .build();
     }
 
+    private Content createContentWithSuggestedDate(final OffsetDateTime suggestedDate) {
+        return FlashcardSetAssessment.builder()
+                .setId(UUID.randomUUID())
+                .setMetadata(ContentMetadata.builder().setSuggestedDate(suggestedDate).build())
+                .setAssessmentMetadata(AssessmentMetadata.builder().build())
+                .setUserProgressData(UserProgressData.builder().setIsLearned(false).build())
+                .build();
+    }
+
 }
 
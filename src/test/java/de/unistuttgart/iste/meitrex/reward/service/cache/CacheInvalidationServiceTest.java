@@ -0,0 +1,117 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CacheInvalidationServiceTest {
+
+    private final InProcessInvalidationBroker broker = new InProcessInvalidationBroker();
+
+    private final RewardScoresCache cacheOfReplicaA = new RewardScoresCache(10, Duration.ofMinutes(10));
+    private final RewardScoresCache cacheOfReplicaB = new RewardScoresCache(10, Duration.ofMinutes(10));
+    private final CacheInvalidationService replicaA = new CacheInvalidationService(cacheOfReplicaA, broker);
+    private final CacheInvalidationService replicaB = new CacheInvalidationService(cacheOfReplicaB, broker);
+
+    /**
+     * Given two replicas that cached the same reward scores
+     * When one replica saves the reward scores and flushes its invalidations
+     * Then the outdated reward scores are evicted on the other replica
+     */
+    @Test
+    void testSavedRewardScoresAreInvalidatedOnPeers() {
+        broker.connect(replicaB::apply);
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        cacheOfReplicaA.put(id, 1, new RewardScores());
+        cacheOfReplicaB.put(id, 1, new RewardScores());
+
+        final RewardScores saved = new RewardScores();
+        final RewardScoresUpdatedEvent event = new RewardScoresUpdatedEvent(id, null, 2, saved);
+        cacheOfReplicaA.onRewardScoresUpdated(event);
+        replicaA.onRewardScoresUpdated(event);
+        replicaA.flush();
+
+        assertThat(cacheOfReplicaA.get(id).orElseThrow(), is(sameInstance(saved)));
+        assertThat(cacheOfReplicaB.get(id).isPresent(), is(false));
+    }
+
+    /**
+     * Given a burst of saves of the same user
+     * When the invalidations are flushed
+     * Then a single invalidation with the latest version is published
+     */
+    @Test
+    void testInvalidationsAreCoalesced() {
+        final List<List<RewardScoresInvalidation>> published = new ArrayList<>();
+        broker.connect(published::add);
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        final AllRewardScoresEntity.PrimaryKey otherId = randomId();
+
+        replicaA.onRewardScoresUpdated(new RewardScoresUpdatedEvent(id, null, 3, new RewardScores()));
+        replicaA.onRewardScoresUpdated(new RewardScoresUpdatedEvent(id, null, 5, new RewardScores()));
+        replicaA.onRewardScoresUpdated(new RewardScoresUpdatedEvent(id, null, 4, new RewardScores()));
+        replicaA.onRewardScoresUpdated(new RewardScoresUpdatedEvent(otherId, null, 1, new RewardScores()));
+        replicaA.flush();
+        replicaA.flush();
+
+        assertThat(published, hasSize(1));
+        assertThat(published.get(0), containsInAnyOrder(
+                new RewardScoresInvalidation(id.getCourseId(), id.getUserId(), 5),
+                new RewardScoresInvalidation(otherId.getCourseId(), otherId.getUserId(), 1)));
+    }
+
+    /**
+     * Given a replica that cached reward scores of a course
+     * When the course is deleted on another replica
+     * Then all reward scores of the course are evicted
+     */
+    @Test
+    void testCourseDeletionIsInvalidatedOnPeers() {
+        broker.connect(replicaB::apply);
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        cacheOfReplicaB.put(id, 7, new RewardScores());
+
+        replicaA.onCourseRewardScoresDeleted(new CourseRewardScoresDeletedEvent(id.getCourseId()));
+        replicaA.flush();
+
+        assertThat(cacheOfReplicaB.get(id).isPresent(), is(false));
+    }
+
+    /**
+     * Given a broker that is not available
+     * When the invalidations are flushed
+     * Then they are published with the next flush
+     */
+    @Test
+    void testFailedInvalidationsAreRetried() {
+        final List<List<RewardScoresInvalidation>> published = new ArrayList<>();
+        final AtomicBoolean available = new AtomicBoolean(false);
+        final CacheInvalidationService replica = new CacheInvalidationService(cacheOfReplicaA, invalidations -> {
+            if (!available.get()) {
+                throw new IllegalStateException("pub/sub not available");
+            }
+            published.add(invalidations);
+        });
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+
+        replica.onRewardScoresUpdated(new RewardScoresUpdatedEvent(id, null, 2, new RewardScores()));
+        replica.flush();
+        available.set(true);
+        replica.flush();
+
+        assertThat(published, contains(List.of(new RewardScoresInvalidation(id.getCourseId(), id.getUserId(), 2))));
+    }
+
+    private static AllRewardScoresEntity.PrimaryKey randomId() {
+        return new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+    }
+}
@@ -0,0 +1,113 @@
+package de.unistuttgart.iste.meitrex.reward.service.cache;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.service.event.CourseRewardScoresDeletedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class RewardScoresCacheTest {
+
+    /**
+     * Given a full cache
+     * When another entry is added
+     * Then the least recently used entry is evicted
+     */
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        final RewardScoresCache cache = new RewardScoresCache(2, Duration.ofMinutes(10));
+        final AllRewardScoresEntity.PrimaryKey first = randomId();
+        final AllRewardScoresEntity.PrimaryKey second = randomId();
+        final AllRewardScoresEntity.PrimaryKey third = randomId();
+
+        cache.put(first, 1, new RewardScores());
+        cache.put(second, 1, new RewardScores());
+        cache.get(first);
+        cache.put(third, 1, new RewardScores());
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(first).isPresent(), is(true));
+        assertThat(cache.get(second).isPresent(), is(false));
+        assertThat(cache.get(third).isPresent(), is(true));
+    }
+
+    /**
+     * Given cached reward scores that were saved
+     * When older reward scores are cached
+     * Then the newer reward scores are kept
+     */
+    @Test
+    void testOlderRewardScoresDoNotReplaceNewerOnes() {
+        final RewardScoresCache cache = new RewardScoresCache(10, Duration.ofMinutes(10));
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        final RewardScores saved = new RewardScores();
+
+        cache.put(id, 5, saved);
+        cache.putIfAbsent(id, 5, new RewardScores());
+        cache.put(id, 4, new RewardScores());
+
+        assertThat(cache.get(id).orElseThrow(), is(sameInstance(saved)));
+    }
+
+    /**
+     * Given cached reward scores
+     * When they are invalidated with the same or a newer version
+     * Then they are only evicted by the newer version
+     */
+    @Test
+    void testInvalidateOnlyEvictsOutdatedEntries() {
+        final RewardScoresCache cache = new RewardScoresCache(10, Duration.ofMinutes(10));
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        cache.put(id, 3, new RewardScores());
+
+        cache.invalidate(id, 3);
+        assertThat(cache.get(id).isPresent(), is(true));
+
+        cache.invalidate(id, 4);
+        assertThat(cache.get(id).isPresent(), is(false));
+    }
+
+    /**
+     * Given a cache whose entries expire immediately
+     * When cached reward scores are read
+     * Then they are not served and evicted
+     */
+    @Test
+    void testExpiredEntriesAreNotServed() {
+        final RewardScoresCache cache = new RewardScoresCache(10, Duration.ZERO);
+        final AllRewardScoresEntity.PrimaryKey id = randomId();
+        cache.put(id, 3, new RewardScores());
+
+        assertThat(cache.get(id).isPresent(), is(false));
+        assertThat(cache.size(), is(0));
+    }
+
+    /**
+     * Given cached reward scores of two courses
+     * When one course is deleted
+     * Then only the reward scores of the deleted course are evicted
+     */
+    @Test
+    void testCourseDeletionEvictsCourse() {
+        final RewardScoresCache cache = new RewardScoresCache(10, Duration.ofMinutes(10));
+        final AllRewardScoresEntity.PrimaryKey deletedCourseKey = randomId();
+        final AllRewardScoresEntity.PrimaryKey otherCourseKey = randomId();
+        cache.put(deletedCourseKey, 1, new RewardScores());
+        cache.put(otherCourseKey, 1, new RewardScores());
+
+        cache.onCourseRewardScoresDeleted(new CourseRewardScoresDeletedEvent(deletedCourseKey.getCourseId()));
+
+        assertThat(cache.get(deletedCourseKey).isPresent(), is(false));
+        assertThat(cache.get(otherCourseKey).isPresent(), is(true));
+    }
+
+    private static AllRewardScoresEntity.PrimaryKey randomId() {
+        return new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+    }
+}
@@ -0,0 +1,107 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class DueWorkIndexCalculatorTest {
+
+    private final DueWorkIndexCalculator dueWorkIndexCalculator = new DueWorkIndexCalculator();
+
+    /**
+     * Given a content that was never learned and a learned content that is due for review later
+     * When calculateNextDueDate is called
+     * Then the earlier of the suggested date and the next learn date is returned
+     */
+    @Test
+    void testCalculateNextDueDateUsesEarliestPendingDate() {
+        final OffsetDateTime suggestedDate = OffsetDateTime.now().plusDays(2);
+        final OffsetDateTime nextLearnDate = OffsetDateTime.now().plusDays(5);
+        final List<Content> contents = List.of(
+                createContent(suggestedDate, UserProgressData.builder().setIsLearned(false).build()),
+                createContent(null, UserProgressData.builder()
+                        .setIsLearned(true)
+                        .setNextLearnDate(nextLearnDate)
+                        .build())
+        );
+
+        assertThat(dueWorkIndexCalculator.calculateNextDueDate(contents), is(suggestedDate));
+    }
+
+    /**
+     * Given a learned content whose suggested date has passed
+     * When calculateNextDueDate is called
+     * Then the suggested date is ignored and the next learn date is returned
+     */
+    @Test
+    void testCalculateNextDueDateIgnoresSuggestedDateOfLearnedContent() {
+        final OffsetDateTime nextLearnDate = OffsetDateTime.now().plusDays(3);
+        final List<Content> contents = List.of(
+                createContent(OffsetDateTime.now().minusDays(10), UserProgressData.builder()
+                        .setIsLearned(true)
+                        .setNextLearnDate(nextLearnDate)
+                        .build())
+        );
+
+        assertThat(dueWorkIndexCalculator.calculateNextDueDate(contents), is(nextLearnDate));
+    }
+
+    /**
+     * Given contents without any suggested date or next learn date
+     * When calculateNextDueDate is called
+     * Then null is returned because there is no pending work
+     */
+    @Test
+    void testCalculateNextDueDateWithoutPendingWork() {
+        final List<Content> contents = List.of(
+                createContent(null, UserProgressData.builder().setIsLearned(false).build()),
+                createContent(null, UserProgressData.builder().setIsLearned(true).build())
+        );
+
+        assertThat(dueWorkIndexCalculator.calculateNextDueDate(contents), is(nullValue()));
+    }
+
+    /**
+     * Given a due date that has passed and a recalculation a few hours ago
+     * When calculateNextRecalculation is called
+     * Then the next recalculation is one day after the last recalculation
+     */
+    @Test
+    void testCalculateNextRecalculationAtMostOncePerDay() {
+        final OffsetDateTime lastRecalculation = OffsetDateTime.now().minusHours(3);
+        final OffsetDateTime nextDueDate = OffsetDateTime.now().minusDays(2);
+
+        assertThat(dueWorkIndexCalculator.calculateNextRecalculation(nextDueDate, lastRecalculation),
+                is(lastRecalculation.plusDays(1)));
+    }
+
+    /**
+     * Given a due date in the future
+     * When calculateNextRecalculation is called
+     * Then the next recalculation is at the due date, or not at all if there is no due date
+     */
+    @Test
+    void testCalculateNextRecalculationAtDueDate() {
+        final OffsetDateTime lastRecalculation = OffsetDateTime.now().minusDays(3);
+        final OffsetDateTime nextDueDate = OffsetDateTime.now().plusDays(2);
+
+        assertThat(dueWorkIndexCalculator.calculateNextRecalculation(nextDueDate, lastRecalculation), is(nextDueDate));
+        assertThat(dueWorkIndexCalculator.calculateNextRecalculation(nextDueDate, null), is(nextDueDate));
+        assertThat(dueWorkIndexCalculator.calculateNextRecalculation(null, lastRecalculation), is(nullValue()));
+    }
+
+    private static Content createContent(final OffsetDateTime suggestedDate, final UserProgressData userProgressData) {
+        return FlashcardSetAssessment.builder()
+                .setId(UUID.randomUUID())
+                .setMetadata(ContentMetadata.builder().setSuggestedDate(suggestedDate).build())
+                .setAssessmentMetadata(AssessmentMetadata.builder().build())
+                .setUserProgressData(userProgressData)
+                .build();
+    }
+}
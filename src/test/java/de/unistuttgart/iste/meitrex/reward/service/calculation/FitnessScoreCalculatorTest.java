@@ -96,6 +96,35 @@ class FitnessScoreCalculatorTest {
         assertThat(logEntry.getNewValue(), is(84));
     }
 
+    /**
+     * Given 3 overdue contents, 1 content that is not due and at most 2 contents are stored in a log entry
+     * When recalculateScore is called
+     * Then the log entry lists the 2 most overdue contents and counts the third overdue one
+     */
+    @Test
+    void testRecalculateScoreOnlyAssociatesOverdueContents() {
+        final FitnessScoreCalculator calculator = new FitnessScoreCalculator(20, 2, 2);
+        final AllRewardScoresEntity allRewardScores = createAllRewardScoresEntityWithFitnessOf(100);
+        final UUID mostOverdue = UUID.randomUUID();
+        final UUID secondMostOverdue = UUID.randomUUID();
+        final List<Content> contents = List.of(
+                createOverdueContent(UUID.randomUUID(), 1),
+                createContentWithUserData(UserProgressData.builder()
+                        .setIsDueForReview(false)
+                        .setIsLearned(true)
+                        .setNextLearnDate(OffsetDateTime.now().plusDays(1))
+                        .setLog(logWithOneSuccessfulEntry())
+                        .build()),
+                createOverdueContent(mostOverdue, 10),
+                createOverdueContent(secondMostOverdue, 5));
+
+        final RewardScoreEntity fitness = calculator.recalculateScore(allRewardScores, contents);
+
+        final RewardScoreLogEntry logEntry = fitness.getLog().get(0);
+        assertThat(logEntry.getAssociatedContentIds(), contains(mostOverdue, secondMostOverdue));
+        assertThat(logEntry.getTruncatedContentCount(), is(1));
+    }
+
     /**
      * Given no contents exist
      * When recalculateScore is called
@@ -497,6 +526,15 @@ class FitnessScoreCalculatorTest {
         );
     }
 
+    private Content createOverdueContent(final UUID contentId, final int daysOverdue) {
+        return createContentWithUserData(contentId, UserProgressData.builder()
+                .setIsDueForReview(true)
+                .setIsLearned(true)
+                .setNextLearnDate(OffsetDateTime.now().minusDays(daysOverdue))
+                .setLog(logWithOneSuccessfulEntry())
+                .build());
+    }
+
     private Content createContentWithUserData(final UserProgressData userProgressData) {
         return createContentWithUserData(UUID.randomUUID(), userProgressData);
     }
@@ -125,6 +125,29 @@ class HealthScoreCalculatorTest {
         assertThat(logEntry.getNewValue(), is(92));
     }
 
+    /**
+     * Given 3 contents are due for learning and at most 2 contents are stored in a log entry
+     * When recalculateScore is called
+     * Then the log entry lists the 2 most overdue contents and counts the third one
+     */
+    @Test
+    void testRecalculateScoreTruncatesAssociatedContents() {
+        final HealthScoreCalculator calculator = new HealthScoreCalculator(0.5, 20, 2);
+        final AllRewardScoresEntity allRewardScores = createAllRewardScoresEntityWithHealthOf(100);
+        final UUID mostOverdue = UUID.randomUUID();
+        final UUID secondMostOverdue = UUID.randomUUID();
+        final List<Content> contents = List.of(
+                createContentWithUserData(UUID.randomUUID(), UserProgressData.builder().build(), 2),
+                createContentWithUserData(mostOverdue, UserProgressData.builder().build(), 7),
+                createContentWithUserData(secondMostOverdue, UserProgressData.builder().build(), 5));
+
+        final RewardScoreEntity health = calculator.recalculateScore(allRewardScores, contents);
+
+        final RewardScoreLogEntry logEntry = health.getLog().get(0);
+        assertThat(logEntry.getAssociatedContentIds(), contains(mostOverdue, secondMostOverdue));
+        assertThat(logEntry.getTruncatedContentCount(), is(1));
+    }
+
     /**
      * Given 1 content is due for learning
      * When calculateOnContentWorkedOn is called
@@ -5,6 +5,8 @@ import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
 import de.unistuttgart.iste.meitrex.reward.persistence.entity.*;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -77,6 +79,78 @@ class PowerScoreCalculatorTest {
         assertThat(power.getLog(), hasSize(0));
     }
 
+    /**
+     * Given the latest power log entry is a power change within the coalescing window
+     * When recalculateScore changes the power again
+     * Then no log entry is added, but the latest one spans both changes
+     */
+    @Test
+    void powerChangeWithinWindowIsCoalesced() {
+        final AllRewardScoresEntity rewardScoresEntity = createAllRewardScoresEntityWithPower(24);
+        rewardScoresEntity.setFitness(initializeRewardScoreEntity(0));
+        final OffsetDateTime previousChange = OffsetDateTime.now().minusHours(1);
+        rewardScoresEntity.getPower().getLog().add(compositeValueLogEntry(previousChange, 20, 24));
+
+        final RewardScoreEntity power = powerScoreCalculator.recalculateScore(rewardScoresEntity, List.of());
+
+        assertThat(power.getValue(), is(22));
+        assertThat(power.getLog(), hasSize(1));
+
+        final RewardScoreLogEntry logEntry = power.getLog().get(0);
+        assertThat(logEntry.getDate(), is(previousChange));
+        assertThat(logEntry.getOldValue(), is(20));
+        assertThat(logEntry.getNewValue(), is(22));
+        assertThat(logEntry.getDifference(), is(2));
+    }
+
+    /**
+     * Given the latest power log entry is a power change before the coalescing window
+     * When recalculateScore changes the power again
+     * Then a new log entry is added
+     */
+    @Test
+    void powerChangeAfterWindowIsNotCoalesced() {
+        final AllRewardScoresEntity rewardScoresEntity = createAllRewardScoresEntityWithPower(24);
+        rewardScoresEntity.setFitness(initializeRewardScoreEntity(0));
+        rewardScoresEntity.getPower().getLog().add(compositeValueLogEntry(OffsetDateTime.now().minusDays(2), 20, 24));
+
+        final RewardScoreEntity power = powerScoreCalculator.recalculateScore(rewardScoresEntity, List.of());
+
+        assertThat(power.getLog(), hasSize(2));
+        assertThat(power.getLog().get(0).getNewValue(), is(24));
+        assertThat(power.getLog().get(1).getOldValue(), is(24));
+        assertThat(power.getLog().get(1).getNewValue(), is(22));
+    }
+
+    /**
+     * Given the coalescing window is zero
+     * When recalculateScore changes the power shortly after a previous change
+     * Then a new log entry is added
+     */
+    @Test
+    void powerChangeIsNotCoalescedWhenDisabled() {
+        final PowerScoreCalculator calculator = new PowerScoreCalculator(0.1, Duration.ZERO);
+        final AllRewardScoresEntity rewardScoresEntity = createAllRewardScoresEntityWithPower(24);
+        rewardScoresEntity.setFitness(initializeRewardScoreEntity(0));
+        rewardScoresEntity.getPower().getLog().add(compositeValueLogEntry(OffsetDateTime.now().minusMinutes(1), 20, 24));
+
+        final RewardScoreEntity power = calculator.recalculateScore(rewardScoresEntity, List.of());
+
+        assertThat(power.getLog(), hasSize(2));
+    }
+
+    private static RewardScoreLogEntry compositeValueLogEntry(final OffsetDateTime date, final int oldValue,
+                                                              final int newValue) {
+        return RewardScoreLogEntry.builder()
+                .date(date)
+                .oldValue(oldValue)
+                .newValue(newValue)
+                .difference(newValue - oldValue)
+                .reason(RewardChangeReason.COMPOSITE_VALUE)
+                .associatedContentIds(new ArrayList<>())
+                .build();
+    }
+
     private AllRewardScoresEntity createAllRewardScoresEntityWithPower(final int power) {
         return AllRewardScoresEntity.builder()
                 .health(RewardScoreEntity.builder().value(100).build())
@@ -0,0 +1,109 @@
+package de.unistuttgart.iste.meitrex.reward.service.calculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class ScoreCalculationGraphTest {
+
+    private final HealthScoreCalculator healthScoreCalculator = mock(HealthScoreCalculator.class);
+    private final FitnessScoreCalculator fitnessScoreCalculator = mock(FitnessScoreCalculator.class);
+    private final GrowthScoreCalculator growthScoreCalculator = mock(GrowthScoreCalculator.class);
+    private final StrengthScoreCalculator strengthScoreCalculator = mock(StrengthScoreCalculator.class);
+    private final PowerScoreCalculator powerScoreCalculator = new PowerScoreCalculator();
+
+    private final ScoreCalculationGraph graph = new ScoreCalculationGraph(healthScoreCalculator,
+            fitnessScoreCalculator,
+            growthScoreCalculator,
+            strengthScoreCalculator,
+            powerScoreCalculator);
+
+    /**
+     * Given a recalculation that changes none of the scores power depends on
+     * When the scores are recalculated
+     * Then no score is reported as changed and the power score is left untouched
+     */
+    @Test
+    void testPowerIsSkippedWithoutChangedDependencies() {
+        // power does not match growth and strength, so it would change if it was recalculated
+        final AllRewardScoresEntity allRewardScores = createAllRewardScores(10, 20);
+        returnUnchangedScores();
+
+        final Set<ScoreType> changedScores = graph.recalculate(allRewardScores, List.of());
+
+        assertThat(changedScores, is(empty()));
+        assertThat(allRewardScores.getPower().getValue(), is(20));
+    }
+
+    /**
+     * Given a recalculation that changes the growth score
+     * When the scores are recalculated
+     * Then growth and power are reported as changed
+     */
+    @Test
+    void testPowerIsRecalculatedWhenDependencyChanged() {
+        final AllRewardScoresEntity allRewardScores = createAllRewardScores(10, 20);
+        returnUnchangedScores();
+        when(growthScoreCalculator.recalculateScore(any(), any())).thenAnswer(invocation -> {
+            final RewardScoreEntity growth = invocation.getArgument(0, AllRewardScoresEntity.class).getGrowth();
+            growth.setValue(30);
+            return growth;
+        });
+
+        final Set<ScoreType> changedScores = graph.recalculate(allRewardScores, List.of());
+
+        assertThat(changedScores, containsInAnyOrder(ScoreType.GROWTH, ScoreType.POWER));
+        assertThat(allRewardScores.getPower().getValue(), is(greaterThan(30)));
+    }
+
+    /**
+     * Given calculators whose dependencies form a cycle
+     * When the graph is created
+     * Then an exception is thrown
+     */
+    @Test
+    void testCyclicDependenciesAreRejected() {
+        final ScoreCalculator healthDependingOnPower = mock(ScoreCalculator.class);
+        when(healthDependingOnPower.getDependencies()).thenReturn(Set.of(ScoreType.POWER));
+        final ScoreCalculator powerDependingOnHealth = mock(ScoreCalculator.class);
+        when(powerDependingOnHealth.getDependencies()).thenReturn(Set.of(ScoreType.HEALTH));
+
+        final Map<ScoreType, ScoreCalculator> calculators = Map.of(
+                ScoreType.HEALTH, healthDependingOnPower,
+                ScoreType.FITNESS, fitnessScoreCalculator,
+                ScoreType.GROWTH, growthScoreCalculator,
+                ScoreType.STRENGTH, strengthScoreCalculator,
+                ScoreType.POWER, powerDependingOnHealth);
+
+        assertThrows(IllegalArgumentException.class, () -> new ScoreCalculationGraph(calculators));
+    }
+
+    private void returnUnchangedScores() {
+        when(healthScoreCalculator.recalculateScore(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getHealth());
+        when(fitnessScoreCalculator.recalculateScore(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getFitness());
+        when(growthScoreCalculator.recalculateScore(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getGrowth());
+        when(strengthScoreCalculator.recalculateScore(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, AllRewardScoresEntity.class).getStrength());
+    }
+
+    private static AllRewardScoresEntity createAllRewardScores(final int growth, final int power) {
+        return AllRewardScoresEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID()))
+                .health(RewardScoreEntity.builder().value(100).build())
+                .fitness(RewardScoreEntity.builder().value(100).build())
+                .growth(RewardScoreEntity.builder().value(growth).build())
+                .strength(RewardScoreEntity.builder().value(0).build())
+                .power(RewardScoreEntity.builder().value(power).build())
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package de.unistuttgart.iste.meitrex.reward.service.live;
+
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoresViewEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LiveRewardScoresServiceTest {
+
+    private final UUID courseId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    private final RewardService rewardService = mock(RewardService.class);
+    private final RewardScoresViewRepository viewRepository = mock(RewardScoresViewRepository.class);
+    private final RewardScoresUpdateStream updateStream = mock(RewardScoresUpdateStream.class);
+    private final Sinks.Many<RewardScoresUpdatedEvent> updates = Sinks.many().multicast().directBestEffort();
+    private final LiveRewardScoresService liveService = new LiveRewardScoresService(rewardService, viewRepository,
+            updateStream, Duration.ofMillis(50));
+
+    {
+        when(updateStream.updates()).thenReturn(updates.asFlux());
+    }
+
+    /**
+     * Given a user subscribed to the changes of their reward scores
+     * When their power and health change, then an older version and the scores of another user are saved
+     * Then one change with only the changed scores and their differences is sent
+     */
+    @Test
+    void testRewardScoresChangesOnlyContainChangedScores() throws Exception {
+        when(rewardService.getRewardScores(courseId, userId)).thenReturn(rewardScores(100, 50));
+
+        final CompletableFuture<List<RewardScoresChange>> changes = liveService.rewardScoresChanges(courseId, userId)
+                .take(Duration.ofMillis(500))
+                .collectList()
+                .toFuture();
+        awaitSubscriber();
+        updates.tryEmitNext(updateOf(userId, 2, rewardScores(90, 70)));
+        updates.tryEmitNext(updateOf(userId, 1, rewardScores(100, 50)));
+        updates.tryEmitNext(updateOf(UUID.randomUUID(), 3, rewardScores(0, 0)));
+
+        assertThat(changes.get(5, TimeUnit.SECONDS), contains(new RewardScoresChange(courseId, List.of(
+                new RewardScoreChange(RewardScoreType.HEALTH, 90, -10),
+                new RewardScoreChange(RewardScoreType.POWER, 70, 20)))));
+    }
+
+    /**
+     * Given a user subscribed to the changes of their reward scores
+     * When their reward scores are saved by another replica, which only sends the id and the version
+     * Then the new reward scores are read and the change is sent
+     */
+    @Test
+    void testRewardScoresChangesOfOtherReplicasAreRead() throws Exception {
+        when(rewardService.getRewardScores(courseId, userId)).thenReturn(rewardScores(100, 50), rewardScores(80, 50));
+
+        final CompletableFuture<List<RewardScoresChange>> changes = liveService.rewardScoresChanges(courseId, userId)
+                .take(Duration.ofMillis(500))
+                .collectList()
+                .toFuture();
+        awaitSubscriber();
+        updates.tryEmitNext(updateOf(userId, 2, null));
+
+        assertThat(changes.get(5, TimeUnit.SECONDS), contains(new RewardScoresChange(courseId, List.of(
+                new RewardScoreChange(RewardScoreType.HEALTH, 80, -20)))));
+        verify(rewardService, times(2)).getRewardScores(courseId, userId);
+    }
+
+    /**
+     * Given two subscriptions to the top entries of the same scoreboard
+     * When the scoreboard is subscribed to
+     * Then the top entries are read once and sent in full, with equal power scores sharing a rank
+     */
+    @Test
+    void testScoreboardChangesShareTheTopEntries() throws Exception {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        when(viewRepository.findTopByCourseId(eq(courseId), any()))
+                .thenReturn(List.of(viewRow(first, 80), viewRow(second, 80)));
+
+        final var firstChanges = liveService.scoreboardChanges(courseId, 10)
+                .take(Duration.ofMillis(300)).collectList().toFuture();
+        final var secondChanges = liveService.scoreboardChanges(courseId, 10)
+                .take(Duration.ofMillis(300)).collectList().toFuture();
+
+        final ScoreboardChange expected = new ScoreboardChange(List.of(
+                new ScoreboardEntryChange(first, 1, 80),
+                new ScoreboardEntryChange(second, 1, 80)), List.of());
+        assertThat(firstChanges.get(5, TimeUnit.SECONDS), contains(expected));
+        assertThat(secondChanges.get(5, TimeUnit.SECONDS), contains(expected));
+        verify(viewRepository, times(1)).findTopByCourseId(eq(courseId), any());
+    }
+
+    /**
+     * Given the entries of a scoreboard that were sent last
+     * When a user drops out of the top entries and the rank of another user changes
+     * Then only the changed entry and the removed user are sent
+     */
+    @Test
+    void testScoreboardDiff() {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final UUID third = UUID.randomUUID();
+        final Map<UUID, ScoreboardEntryChange> lastSentEntries = new HashMap<>();
+        LiveRewardScoresService.diff(lastSentEntries, List.of(
+                new ScoreboardEntryChange(first, 1, 80),
+                new ScoreboardEntryChange(second, 2, 70)));
+
+        final ScoreboardChange change = LiveRewardScoresService.diff(lastSentEntries, List.of(
+                new ScoreboardEntryChange(first, 1, 80),
+                new ScoreboardEntryChange(third, 2, 75)));
+
+        assertThat(change.getChangedEntries(), contains(new ScoreboardEntryChange(third, 2, 75)));
+        assertThat(change.getRemovedUserIds(), contains(second));
+    }
+
+    /**
+     * Given a scoreboard subscription with more top entries than allowed
+     * When the subscription is started
+     * Then an IllegalArgumentException is thrown
+     */
+    @Test
+    void testScoreboardChangesRejectsTooManyTopEntries() {
+        assertThrows(IllegalArgumentException.class, () -> liveService.scoreboardChanges(courseId, 101));
+    }
+
+    private void awaitSubscriber() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (updates.currentSubscriberCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private RewardScoresUpdatedEvent updateOf(final UUID userId, final long version, final RewardScores rewardScores) {
+        return new RewardScoresUpdatedEvent(new AllRewardScoresEntity.PrimaryKey(courseId, userId), null, version,
+                rewardScores);
+    }
+
+    private RewardScoresViewEntity viewRow(final UUID userId, final int powerValue) {
+        return RewardScoresViewEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(courseId, userId))
+                .powerValue(powerValue)
+                .build();
+    }
+
+    private static RewardScores rewardScores(final int health, final int power) {
+        final RewardScores rewardScores = new RewardScores();
+        rewardScores.setHealth(score(health));
+        rewardScores.setFitness(score(100));
+        rewardScores.setGrowth(score(0));
+        rewardScores.setStrength(score(0));
+        rewardScores.setPower(score(power));
+        return rewardScores;
+    }
+
+    private static RewardScore score(final int value) {
+        final RewardScore score = new RewardScore();
+        score.setValue(value);
+        return score;
+    }
+}
@@ -0,0 +1,84 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final OutboxPublisher publisher = mock(OutboxPublisher.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxEventRepository, publisher, objectMapper,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 2);
+
+    /**
+     * Given three events in the outbox and a batch size of 2
+     * When the outbox is relayed
+     * Then all events are published in two batches and deleted
+     */
+    @Test
+    void testOutboxIsDrainedInBatches() {
+        final List<OutboxEventEntity> firstBatch = List.of(event("{\"n\":1}"), event("{\"n\":2}"));
+        final List<OutboxEventEntity> secondBatch = List.of(event("{\"n\":3}"));
+        when(outboxEventRepository.lockOldest(2)).thenReturn(firstBatch, secondBatch);
+
+        relay.relay();
+
+        verify(publisher, times(3)).publish(eq(RewardScoresOutbox.TOPIC), any());
+        verify(publisher).publish(RewardScoresOutbox.TOPIC, objectMapper.createObjectNode().put("n", 3));
+        verify(outboxEventRepository).deleteAllInBatch(firstBatch);
+        verify(outboxEventRepository).deleteAllInBatch(secondBatch);
+        verify(outboxEventRepository, times(2)).lockOldest(2);
+    }
+
+    /**
+     * Given publishing an event fails
+     * When the outbox is relayed
+     * Then the batch is not deleted, so that it is published again later
+     */
+    @Test
+    void testFailedBatchIsNotDeleted() {
+        when(outboxEventRepository.lockOldest(2)).thenReturn(List.of(event("{}")));
+        doThrow(new IllegalStateException("sidecar unavailable")).when(publisher).publish(anyString(), any(JsonNode.class));
+
+        relay.relay();
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+    }
+
+    /**
+     * Given an event whose payload is not valid JSON
+     * When the outbox is relayed
+     * Then the event is dropped instead of blocking the outbox
+     */
+    @Test
+    void testInvalidEventIsDropped() {
+        final List<OutboxEventEntity> batch = List.of(event("not json"));
+        when(outboxEventRepository.lockOldest(2)).thenReturn(batch);
+
+        relay.relay();
+
+        verify(publisher, never()).publish(anyString(), any());
+        verify(outboxEventRepository).deleteAllInBatch(batch);
+    }
+
+    private static OutboxEventEntity event(final String payload) {
+        return OutboxEventEntity.builder()
+                .id(UUID.randomUUID())
+                .topic(RewardScoresOutbox.TOPIC)
+                .payload(payload)
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
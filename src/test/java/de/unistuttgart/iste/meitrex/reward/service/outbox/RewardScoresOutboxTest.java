@@ -0,0 +1,93 @@
+package de.unistuttgart.iste.meitrex.reward.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.OutboxEventRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+class RewardScoresOutboxTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final RewardScoresOutbox outbox = new RewardScoresOutbox(outboxEventRepository, objectMapper);
+
+    /**
+     * Given reward scores whose health and power changed
+     * When the saved reward scores are added to the outbox
+     * Then an event with all scores and their differences is written
+     */
+    @Test
+    void testChangedRewardScoresAreWritten() throws Exception {
+        final AllRewardScoresEntity allRewardScores = createAllRewardScores(100, 20);
+        final Map<ScoreType, Integer> previousValues = RewardScoresOutbox.valuesOf(allRewardScores);
+        allRewardScores.getHealth().setValue(90);
+        allRewardScores.getPower().setValue(25);
+        allRewardScores.setVersion(7);
+
+        assertThat(outbox.add(allRewardScores, previousValues), is(true));
+
+        final ArgumentCaptor<OutboxEventEntity> written = ArgumentCaptor.forClass(OutboxEventEntity.class);
+        verify(outboxEventRepository).save(written.capture());
+        assertThat(written.getValue().getTopic(), is(RewardScoresOutbox.TOPIC));
+
+        final RewardScoresChangedEvent event = objectMapper.readValue(written.getValue().getPayload(),
+                RewardScoresChangedEvent.class);
+        assertThat(event.courseId(), is(allRewardScores.getId().getCourseId()));
+        assertThat(event.userId(), is(allRewardScores.getId().getUserId()));
+        assertThat(event.version(), is(7L));
+        assertThat(event.scores(), hasSize(5));
+        assertThat(event.scores(), hasItem(new RewardScoresChangedEvent.Score(ScoreType.HEALTH, 90, 0f, -10)));
+        assertThat(event.scores(), hasItem(new RewardScoresChangedEvent.Score(ScoreType.POWER, 25, 0f, 5)));
+        assertThat(event.scores(), hasItem(new RewardScoresChangedEvent.Score(ScoreType.FITNESS, 100, 0f, 0)));
+    }
+
+    /**
+     * Given reward scores whose values did not change, e.g. because only the due-work index changed
+     * When the saved reward scores are added to the outbox
+     * Then no event is written
+     */
+    @Test
+    void testUnchangedRewardScoresAreNotWritten() {
+        final AllRewardScoresEntity allRewardScores = createAllRewardScores(100, 20);
+
+        assertThat(outbox.add(allRewardScores, RewardScoresOutbox.valuesOf(allRewardScores)), is(false));
+
+        verify(outboxEventRepository, never()).save(any());
+    }
+
+    /**
+     * Given new reward scores
+     * When they are added to the outbox without previous values
+     * Then an event without differences is written
+     */
+    @Test
+    void testNewRewardScoresAreWritten() {
+        assertThat(outbox.add(createAllRewardScores(80, 0), null), is(true));
+
+        verify(outboxEventRepository).save(any());
+    }
+
+    private static AllRewardScoresEntity createAllRewardScores(final int health, final int power) {
+        return AllRewardScoresEntity.builder()
+                .id(new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID()))
+                .health(RewardScoreEntity.builder().value(health).build())
+                .fitness(RewardScoreEntity.builder().value(100).build())
+                .growth(RewardScoreEntity.builder().value(10).build())
+                .strength(RewardScoreEntity.builder().value(10).build())
+                .power(RewardScoreEntity.builder().value(power).build())
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package de.unistuttgart.iste.meitrex.reward.service.readmodel;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardScores;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoresUpdatedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class RewardScoresViewServiceTest {
+
+    private final RewardScoresViewRepository viewRepository = mock(RewardScoresViewRepository.class);
+    private final RewardScoresViewService viewService = new RewardScoresViewService(viewRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    /**
+     * Given a burst of saves in one course and a save in another course
+     * When the ranks are refreshed twice
+     * Then the ranks of each course are refreshed once
+     */
+    @Test
+    void testRankRefreshesAreCoalescedPerCourse() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID otherCourseId = UUID.randomUUID();
+
+        viewService.onRewardScoresUpdated(updateOf(courseId));
+        viewService.onRewardScoresUpdated(updateOf(courseId));
+        viewService.onRewardScoresUpdated(updateOf(otherCourseId));
+        viewService.refreshRanks();
+        viewService.refreshRanks();
+
+        verify(viewRepository, times(1)).refreshRanks(courseId);
+        verify(viewRepository, times(1)).refreshRanks(otherCourseId);
+    }
+
+    /**
+     * Given the refresh of the ranks of a course fails
+     * When the ranks are refreshed again
+     * Then the refresh of the course is retried
+     */
+    @Test
+    void testFailedRankRefreshIsRetried() {
+        final UUID courseId = UUID.randomUUID();
+        when(viewRepository.refreshRanks(courseId)).thenThrow(new IllegalStateException("connection lost")).thenReturn(1);
+
+        viewService.onRewardScoresUpdated(updateOf(courseId));
+        viewService.refreshRanks();
+        viewService.refreshRanks();
+
+        verify(viewRepository, times(2)).refreshRanks(courseId);
+    }
+
+    /**
+     * Given the read model is initialized at startup
+     * When initializeReadModel is called
+     * Then missing rows are inserted and the ranks of all courses are calculated
+     */
+    @Test
+    void testInitializeReadModel() {
+        viewService.initializeReadModel();
+
+        verify(viewRepository).insertMissingRows();
+        verify(viewRepository).refreshAllRanks();
+    }
+
+    private static RewardScoresUpdatedEvent updateOf(final UUID courseId) {
+        return new RewardScoresUpdatedEvent(new AllRewardScoresEntity.PrimaryKey(courseId, UUID.randomUUID()),
+                null, 1, new RewardScores());
+    }
+}
@@ -0,0 +1,198 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseRecalculationJobEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.mapper.RecalculationJobMapper;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.CourseRecalculationJobRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class CourseRecalculationServiceTest {
+
+    private final CourseRecalculationJobRepository jobRepository = mock(CourseRecalculationJobRepository.class);
+    private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RewardService rewardService = mock(RewardService.class);
+    private final RecalculationJobMapper mapper = new RecalculationJobMapper(new ModelMapper());
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private CourseRecalculationService createService(final TaskExecutor executor) {
+        when(jobRepository.start(any(), any(), anyInt(), any())).thenReturn(1);
+        return new CourseRecalculationService(jobRepository, allRewardScoresRepository, rewardService, mapper,
+                executor, jdbcTemplate, transactionTemplate, 2, 2, Duration.ofMinutes(10));
+    }
+
+    /**
+     * Given a course with three users
+     * When a course recalculation is started
+     * Then the job is queued, all users are recalculated in partitions and the job is completed
+     */
+    @Test
+    void testStartCourseRecalculation() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID jobId = UUID.randomUUID();
+        final List<UUID> userIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            final CourseRecalculationJobEntity job = invocation.getArgument(0);
+            job.setId(jobId);
+            return job;
+        });
+        when(allRewardScoresRepository.findUserIdsByCourseId(courseId)).thenReturn(userIds);
+
+        final UUID result = createService(new SyncTaskExecutor()).startCourseRecalculation(courseId);
+
+        assertThat(result, is(jobId));
+        verify(jobRepository).save(argThat(job ->
+                job.getStatus() == CourseRecalculationJobEntity.Status.QUEUED && job.getCourseId().equals(courseId)
+                && job.getOwner() != null && job.getLeaseExpiresAt() != null));
+        verify(jobRepository).start(eq(jobId), any(), eq(3), any());
+        for (final UUID userId : userIds) {
+            verify(rewardService).refreshDueWorkIndex(courseId, userId);
+        }
+        verify(jobRepository).addProgress(jobId, 1, 0);
+        verify(jobRepository).addProgress(jobId, 2, 0);
+        verify(jobRepository).finish(eq(jobId), eq(CourseRecalculationJobEntity.Status.COMPLETED), any());
+    }
+
+    /**
+     * Given an executor that does not run the job immediately
+     * When a course recalculation is started
+     * Then the request does not load the users of the course or recalculate any scores
+     */
+    @Test
+    void testStartCourseRecalculationDoesNotBlock() {
+        final List<Runnable> queued = new ArrayList<>();
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        createService(queued::add).startCourseRecalculation(UUID.randomUUID());
+
+        assertThat(queued, hasSize(1));
+        verifyNoInteractions(allRewardScoresRepository, rewardService);
+    }
+
+    /**
+     * Given a user whose recalculation fails
+     * When the course recalculation is executed
+     * Then the failure is counted and the job is still completed
+     */
+    @Test
+    void testStartCourseRecalculationCountsFailures() {
+        final UUID courseId = UUID.randomUUID();
+        final UUID userId = UUID.randomUUID();
+        final UUID jobId = UUID.randomUUID();
+
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            final CourseRecalculationJobEntity job = invocation.getArgument(0);
+            job.setId(jobId);
+            return job;
+        });
+        when(allRewardScoresRepository.findUserIdsByCourseId(courseId)).thenReturn(List.of(userId));
+        when(rewardService.refreshDueWorkIndex(courseId, userId)).thenThrow(new RuntimeException("content service not available"));
+
+        createService(new SyncTaskExecutor()).startCourseRecalculation(courseId);
+
+        verify(jobRepository).addProgress(jobId, 1, 1);
+        verify(jobRepository).finish(eq(jobId), eq(CourseRecalculationJobEntity.Status.COMPLETED), any());
+    }
+
+    /**
+     * Given a course with a job that is already running
+     * When a course recalculation is started
+     * Then the id of the running job is returned and no new job is queued
+     */
+    @Test
+    void testStartCourseRecalculationReturnsActiveJob() {
+        final UUID courseId = UUID.randomUUID();
+        final CourseRecalculationJobEntity activeJob = CourseRecalculationJobEntity.builder()
+                .id(UUID.randomUUID())
+                .courseId(courseId)
+                .status(CourseRecalculationJobEntity.Status.RUNNING)
+                .build();
+        final List<Runnable> queued = new ArrayList<>();
+        when(jobRepository.findActiveByCourseId(courseId)).thenReturn(Optional.of(activeJob));
+
+        final UUID result = createService(queued::add).startCourseRecalculation(courseId);
+
+        assertThat(result, is(activeJob.getId()));
+        assertThat(queued, is(empty()));
+        verify(jobRepository, never()).save(any());
+    }
+
+    /**
+     * Given a queued job that was failed because its lease expired
+     * When the job is executed
+     * Then the users of the course are not recalculated
+     */
+    @Test
+    void testExpiredJobIsNotStarted() {
+        final UUID courseId = UUID.randomUUID();
+        final CourseRecalculationService service = createService(new SyncTaskExecutor());
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.start(any(), any(), anyInt(), any())).thenReturn(0);
+        when(allRewardScoresRepository.findUserIdsByCourseId(courseId)).thenReturn(List.of(UUID.randomUUID()));
+
+        service.startCourseRecalculation(courseId);
+
+        verifyNoInteractions(rewardService);
+        verify(jobRepository, never()).finish(any(), any(), any());
+    }
+
+    /**
+     * Given queued or running jobs
+     * When the leases are maintained
+     * Then the leases of this replica are renewed and the expired jobs are failed
+     */
+    @Test
+    void testMaintainLeases() {
+        when(jobRepository.failExpired(any())).thenReturn(1);
+
+        createService(new SyncTaskExecutor()).maintainLeases();
+
+        verify(jobRepository).renewLeases(any(), any());
+        verify(jobRepository).failExpired(any());
+    }
+
+    /**
+     * Given no job with the given id
+     * When getJob is called
+     * Then an EntityNotFoundException is thrown
+     */
+    @Test
+    void testGetJobNotFound() {
+        final UUID jobId = UUID.randomUUID();
+        when(jobRepository.findById(jobId)).thenReturn(Optional.empty());
+
+        final CourseRecalculationService service = createService(new SyncTaskExecutor());
+        assertThrows(EntityNotFoundException.class, () -> service.getJob(jobId));
+    }
+
+    /**
+     * Given a list of five elements
+     * When it is split into two partitions
+     * Then the partitions are contiguous and cover all elements
+     */
+    @Test
+    void testPartition() {
+        final List<List<Integer>> partitions = CourseRecalculationService.partition(List.of(1, 2, 3, 4, 5), 2);
+
+        assertThat(partitions, contains(List.of(1, 2), List.of(3, 4, 5)));
+        assertThat(CourseRecalculationService.partition(List.of(1), 4), contains(List.of(1)));
+        assertThat(CourseRecalculationService.partition(List.of(), 4), is(empty()));
+    }
+}
@@ -0,0 +1,68 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.ScheduledRecalculation;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DecayTimerSchedulerTest {
+
+    private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RewardService rewardService = mock(RewardService.class);
+    private final DecayTimerScheduler scheduler = new DecayTimerScheduler(allRewardScoresRepository, rewardService,
+            new SyncTaskExecutor(), new TransactionTemplate(mock(PlatformTransactionManager.class)), 100,
+            Duration.ofMinutes(10));
+
+    private final AllRewardScoresEntity.PrimaryKey id
+            = new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+
+    /**
+     * Given a recalculation that became due an hour ago
+     * When the timers are recovered and the due recalculations are fired
+     * Then the overdue recalculations of the last day are loaded, the recalculation is claimed and then performed
+     */
+    @Test
+    void testFiredRecalculationIsClaimed() {
+        when(allRewardScoresRepository.findScheduledRecalculationsBetween(any(), any()))
+                .thenReturn(List.of(new ScheduledRecalculation(id, OffsetDateTime.now().minusHours(1))));
+        when(allRewardScoresRepository.claimRecalculation(eq(id), any(), any())).thenReturn(1);
+
+        scheduler.recoverTimers();
+        scheduler.fireDueRecalculations();
+
+        verify(allRewardScoresRepository).findScheduledRecalculationsBetween(
+                argThat(from -> from.isBefore(OffsetDateTime.now().minusHours(23))), any());
+        verify(rewardService).refreshDueWorkIndex(id.getCourseId(), id.getUserId());
+    }
+
+    /**
+     * Given a due recalculation that another replica has already claimed
+     * When the due recalculations are fired
+     * Then the recalculation is not performed again
+     */
+    @Test
+    void testRecalculationClaimedByAnotherReplicaIsSkipped() {
+        when(allRewardScoresRepository.findScheduledRecalculationsBetween(any(), any()))
+                .thenReturn(List.of(new ScheduledRecalculation(id, OffsetDateTime.now().minusMinutes(5))));
+        when(allRewardScoresRepository.claimRecalculation(eq(id), any(), any())).thenReturn(0);
+
+        scheduler.recoverTimers();
+        scheduler.fireDueRecalculations();
+
+        verify(allRewardScoresRepository).claimRecalculation(eq(id), any(), any());
+        verifyNoInteractions(rewardService);
+    }
+}
@@ -0,0 +1,96 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class HierarchicalTimerWheelTest {
+
+    private final Instant start = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final HierarchicalTimerWheel<String> timerWheel
+            = new HierarchicalTimerWheel<>(Duration.ofMinutes(1), new int[]{60, 24, 8}, start);
+
+    /**
+     * Given timers on different levels of the wheel
+     * When the wheel is polled
+     * Then each timer fires exactly at its time and not before
+     */
+    @Test
+    void testTimersFireAtTheirTime() {
+        timerWheel.schedule("minutes", start.plus(5, ChronoUnit.MINUTES));
+        timerWheel.schedule("hours", start.plus(3, ChronoUnit.HOURS).plus(10, ChronoUnit.MINUTES));
+        timerWheel.schedule("days", start.plus(2, ChronoUnit.DAYS).plus(7, ChronoUnit.HOURS));
+
+        assertThat(timerWheel.poll(start.plus(4, ChronoUnit.MINUTES), 10), is(empty()));
+        assertThat(timerWheel.poll(start.plus(5, ChronoUnit.MINUTES), 10), contains("minutes"));
+        assertThat(timerWheel.poll(start.plus(3, ChronoUnit.HOURS).plus(9, ChronoUnit.MINUTES), 10), is(empty()));
+        assertThat(timerWheel.poll(start.plus(3, ChronoUnit.HOURS).plus(10, ChronoUnit.MINUTES), 10), contains("hours"));
+        assertThat(timerWheel.poll(start.plus(2, ChronoUnit.DAYS).plus(6, ChronoUnit.HOURS), 10), is(empty()));
+        assertThat(timerWheel.poll(start.plus(2, ChronoUnit.DAYS).plus(7, ChronoUnit.HOURS), 10), contains("days"));
+        assertThat(timerWheel.size(), is(0));
+    }
+
+    /**
+     * Given more timers have fired than the batch size
+     * When the wheel is polled
+     * Then at most the batch size is returned and the rest is returned by the next polls
+     */
+    @Test
+    void testPollIsBoundedByBatchSize() {
+        for (int i = 0; i < 5; i++) {
+            timerWheel.schedule("timer" + i, start.minusSeconds(i));
+        }
+
+        assertThat(timerWheel.poll(start, 2), hasSize(2));
+        assertThat(timerWheel.poll(start, 2), hasSize(2));
+        assertThat(timerWheel.poll(start, 2), hasSize(1));
+        assertThat(timerWheel.poll(start, 2), is(empty()));
+    }
+
+    /**
+     * Given a timer that was rescheduled and a timer that was cancelled
+     * When the wheel is polled
+     * Then only the rescheduled timer fires, at its new time
+     */
+    @Test
+    void testRescheduleAndCancel() {
+        timerWheel.schedule("rescheduled", start.plus(10, ChronoUnit.MINUTES));
+        timerWheel.schedule("cancelled", start.plus(10, ChronoUnit.MINUTES));
+        timerWheel.schedule("rescheduled", start.plus(2, ChronoUnit.HOURS));
+        timerWheel.cancel("cancelled");
+
+        assertThat(timerWheel.poll(start.plus(1, ChronoUnit.HOURS), 10), is(empty()));
+        assertThat(timerWheel.poll(start.plus(2, ChronoUnit.HOURS), 10), contains("rescheduled"));
+    }
+
+    /**
+     * Given a timer beyond the horizon of the wheel
+     * When it is scheduled
+     * Then it is rejected
+     */
+    @Test
+    void testTimerBeyondHorizonIsRejected() {
+        assertThat(timerWheel.schedule("far", start.plus(30, ChronoUnit.DAYS)), is(false));
+        assertThat(timerWheel.schedule("near", start.plus(timerWheel.getHorizon())), is(true));
+        assertThat(timerWheel.size(), is(1));
+    }
+
+    /**
+     * Given the wheel was not polled for longer than its horizon
+     * When it is polled
+     * Then all timers that are due fire
+     */
+    @Test
+    void testPollAfterLongPause() {
+        timerWheel.schedule("first", start.plus(1, ChronoUnit.DAYS));
+        timerWheel.schedule("second", start.plus(6, ChronoUnit.DAYS));
+
+        assertThat(timerWheel.poll(start.plus(20, ChronoUnit.DAYS), 10), contains("first", "second"));
+    }
+}
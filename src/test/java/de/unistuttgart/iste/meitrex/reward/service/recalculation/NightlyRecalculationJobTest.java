@@ -0,0 +1,136 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.service.RewardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+
+class NightlyRecalculationJobTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RecalculationShardCoordinator shardCoordinator = mock(RecalculationShardCoordinator.class);
+    private final RewardService rewardService = mock(RewardService.class);
+
+    private final NightlyRecalculationJob nightlyRecalculationJob = new NightlyRecalculationJob(
+            allRewardScoresRepository,
+            shardCoordinator,
+            rewardService,
+            new SyncTaskExecutor(),
+            CHUNK_SIZE,
+            1);
+
+    /**
+     * Given a run with one shard containing three users with work due
+     * When recalculateAllScores is called
+     * Then the shard is processed in chunks, checkpointed after each chunk and completed
+     */
+    @Test
+    void testRecalculateAllScoresProcessesAllChunks() {
+        final RecalculationRunEntity run = run();
+        final RecalculationShardEntity shard = shard(run);
+        final List<AllRewardScoresEntity.PrimaryKey> ids = List.of(randomId(), randomId(), randomId());
+
+        when(shardCoordinator.joinOrStartRun()).thenReturn(run);
+        when(shardCoordinator.claimShard(run.getId())).thenReturn(Optional.of(shard), Optional.empty());
+        when(shardCoordinator.checkpoint(any(), any(), anyLong(), anyLong())).thenReturn(true);
+        when(shardCoordinator.completeShard(shard)).thenReturn(true);
+        when(allRewardScoresRepository.findIdsWithWorkDueAtAfter(any(), any(), any(), any(), any(), any()))
+                .thenReturn(ids.subList(0, 2), ids.subList(2, 3));
+
+        nightlyRecalculationJob.recalculateAllScores();
+
+        for (final AllRewardScoresEntity.PrimaryKey id : ids) {
+            verify(rewardService).recalculateScoresIfDue(id.getCourseId(), id.getUserId());
+        }
+        verify(allRewardScoresRepository, times(2)).findIdsWithWorkDueAtAfter(
+                eq(run.getDueAt()), eq(run.getDueAt().minusDays(1)), any(), any(), eq(shard.getUpperCourseId()), any());
+        verify(shardCoordinator).checkpoint(shard, ids.get(1), 2, 0);
+        verify(shardCoordinator).checkpoint(shard, ids.get(2), 1, 0);
+        verify(shardCoordinator).completeShard(shard);
+        verify(shardCoordinator).completeRunIfFinished(run.getId());
+    }
+
+    /**
+     * Given an interrupted run and a user whose recalculation fails
+     * When the service starts
+     * Then the run is resumed and the failure is counted in the checkpoint
+     */
+    @Test
+    void testResumeInterruptedRunCountsFailures() {
+        final RecalculationRunEntity run = run();
+        final RecalculationShardEntity shard = shard(run);
+        final AllRewardScoresEntity.PrimaryKey failing = randomId();
+
+        when(shardCoordinator.findRunningRun()).thenReturn(Optional.of(run));
+        when(shardCoordinator.claimShard(run.getId())).thenReturn(Optional.of(shard), Optional.empty());
+        when(shardCoordinator.checkpoint(any(), any(), anyLong(), anyLong())).thenReturn(true);
+        when(allRewardScoresRepository.findIdsWithWorkDueAtAfter(any(), any(), eq(shard.getLastCourseId()),
+                eq(shard.getLastUserId()), any(), any()))
+                .thenReturn(List.of(failing));
+        when(rewardService.recalculateScoresIfDue(failing.getCourseId(), failing.getUserId()))
+                .thenThrow(new RuntimeException("content service not available"));
+
+        nightlyRecalculationJob.resumeInterruptedRun();
+
+        verify(shardCoordinator).checkpoint(shard, failing, 1, 1);
+        verify(shardCoordinator).completeShard(shard);
+        verify(shardCoordinator, never()).joinOrStartRun();
+    }
+
+    /**
+     * Given a shard whose lease is lost to another replica
+     * When the shard is processed
+     * Then processing of the shard stops without completing it
+     */
+    @Test
+    void testLostLeaseStopsProcessingOfShard() {
+        final RecalculationRunEntity run = run();
+        final RecalculationShardEntity shard = shard(run);
+
+        when(shardCoordinator.joinOrStartRun()).thenReturn(run);
+        when(shardCoordinator.claimShard(run.getId())).thenReturn(Optional.of(shard), Optional.empty());
+        when(shardCoordinator.checkpoint(any(), any(), anyLong(), anyLong())).thenReturn(false);
+        when(allRewardScoresRepository.findIdsWithWorkDueAtAfter(any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(randomId(), randomId()));
+
+        nightlyRecalculationJob.recalculateAllScores();
+
+        verify(allRewardScoresRepository, times(1)).findIdsWithWorkDueAtAfter(any(), any(), any(), any(), any(), any());
+        verify(shardCoordinator, never()).completeShard(any());
+    }
+
+    private static RecalculationRunEntity run() {
+        final OffsetDateTime now = OffsetDateTime.now();
+        return RecalculationRunEntity.builder()
+                .id(UUID.randomUUID())
+                .status(RecalculationRunEntity.Status.RUNNING)
+                .startedAt(now)
+                .dueAt(now)
+                .build();
+    }
+
+    private static RecalculationShardEntity shard(final RecalculationRunEntity run) {
+        return RecalculationShardEntity.builder()
+                .id(UUID.randomUUID())
+                .runId(run.getId())
+                .status(RecalculationShardEntity.Status.CLAIMED)
+                .upperCourseId(RecalculationShardCoordinator.MAX_UUID)
+                .lastCourseId(RecalculationShardCoordinator.MIN_UUID)
+                .lastUserId(RecalculationShardCoordinator.MIN_UUID)
+                .build();
+    }
+
+    private static AllRewardScoresEntity.PrimaryKey randomId() {
+        return new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+    }
+}
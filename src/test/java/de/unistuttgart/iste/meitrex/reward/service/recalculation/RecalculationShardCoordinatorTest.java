@@ -0,0 +1,136 @@
+package de.unistuttgart.iste.meitrex.reward.service.recalculation;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationRunEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RecalculationShardEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RecalculationRunRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RecalculationShardRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+class RecalculationShardCoordinatorTest {
+
+    private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RecalculationRunRepository recalculationRunRepository = mock(RecalculationRunRepository.class);
+    private final RecalculationShardRepository recalculationShardRepository = mock(RecalculationShardRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final RecalculationShardCoordinator coordinator = new RecalculationShardCoordinator(
+            allRewardScoresRepository,
+            recalculationRunRepository,
+            recalculationShardRepository,
+            jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            4,
+            Duration.ofMinutes(10));
+
+    /**
+     * Given a number of shards
+     * When the lower bounds are calculated
+     * Then they split the UUID space into ranges of equal size in unsigned order
+     */
+    @Test
+    void testCalculateLowerBounds() {
+        final List<UUID> lowerBounds = RecalculationShardCoordinator.calculateLowerBounds(4);
+
+        assertThat(lowerBounds, contains(
+                UUID.fromString("00000000-0000-0000-0000-000000000000"),
+                UUID.fromString("40000000-0000-0000-0000-000000000000"),
+                UUID.fromString("80000000-0000-0000-0000-000000000000"),
+                UUID.fromString("c0000000-0000-0000-0000-000000000000")));
+    }
+
+    /**
+     * Given no running run
+     * When joinOrStartRun is called
+     * Then a new run with contiguous shards covering all course ids is started under the advisory lock
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJoinOrStartRunCreatesShards() {
+        when(recalculationRunRepository.findFirstByStatusOrderByStartedAtDesc(RecalculationRunEntity.Status.RUNNING))
+                .thenReturn(Optional.empty());
+        when(recalculationRunRepository.save(any())).thenAnswer(invocation -> {
+            final RecalculationRunEntity run = invocation.getArgument(0);
+            run.setId(UUID.randomUUID());
+            return run;
+        });
+        when(allRewardScoresRepository.countWithWorkDueAt(any(), any())).thenReturn(42L);
+
+        final RecalculationRunEntity run = coordinator.joinOrStartRun();
+
+        assertThat(run.getStatus(), is(RecalculationRunEntity.Status.RUNNING));
+        assertThat(run.getTotal(), is(42L));
+        verify(jdbcTemplate).query(eq("select pg_advisory_xact_lock(?)"),
+                any(ResultSetExtractor.class),
+                eq(RecalculationShardCoordinator.RUN_LOCK_KEY));
+
+        final ArgumentCaptor<List<RecalculationShardEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(recalculationShardRepository).saveAll(captor.capture());
+        final List<RecalculationShardEntity> shards = captor.getValue();
+        assertThat(shards, hasSize(4));
+        assertThat(shards.get(0).getLastCourseId(), is(RecalculationShardCoordinator.MIN_UUID));
+        assertThat(shards.get(0).getUpperCourseId(), is(UUID.fromString("3fffffff-ffff-ffff-ffff-ffffffffffff")));
+        assertThat(shards.get(1).getLastCourseId(), is(UUID.fromString("40000000-0000-0000-0000-000000000000")));
+        assertThat(shards.get(3).getUpperCourseId(), is(RecalculationShardCoordinator.MAX_UUID));
+        assertThat(shards, everyItem(hasProperty("runId", is(run.getId()))));
+    }
+
+    /**
+     * Given two claimable shards, the first of which is claimed by another replica in the meantime
+     * When claimShard is called
+     * Then the second shard is claimed
+     */
+    @Test
+    void testClaimShardSkipsShardsClaimedByOtherReplicas() {
+        final UUID runId = UUID.randomUUID();
+        final RecalculationShardEntity first = RecalculationShardEntity.builder().id(UUID.randomUUID()).build();
+        final RecalculationShardEntity second = RecalculationShardEntity.builder().id(UUID.randomUUID()).build();
+
+        when(recalculationShardRepository.findClaimableShards(eq(runId), any())).thenReturn(List.of(first, second));
+        when(recalculationShardRepository.claim(eq(first.getId()), any(), any(), any())).thenReturn(0);
+        when(recalculationShardRepository.claim(eq(second.getId()), any(), any(), any())).thenReturn(1);
+
+        final Optional<RecalculationShardEntity> claimed = coordinator.claimShard(runId);
+
+        assertThat(claimed.isPresent(), is(true));
+        assertThat(claimed.get(), is(sameInstance(second)));
+        assertThat(second.getStatus(), is(RecalculationShardEntity.Status.CLAIMED));
+        assertThat(second.getOwner(), is(notNullValue()));
+    }
+
+    /**
+     * Given a shard whose lease was taken over by another replica
+     * When checkpoint is called
+     * Then the checkpoint is rejected and no progress is added to the run
+     */
+    @Test
+    void testCheckpointAfterLostLease() {
+        final RecalculationShardEntity shard = RecalculationShardEntity.builder()
+                .id(UUID.randomUUID())
+                .runId(UUID.randomUUID())
+                .lastCourseId(RecalculationShardCoordinator.MIN_UUID)
+                .lastUserId(RecalculationShardCoordinator.MIN_UUID)
+                .build();
+        final AllRewardScoresEntity.PrimaryKey last = new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+
+        when(recalculationShardRepository.checkpoint(any(), any(), any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(0);
+
+        assertThat(coordinator.checkpoint(shard, last, 10, 0), is(false));
+        assertThat(shard.getLastCourseId(), is(RecalculationShardCoordinator.MIN_UUID));
+        verify(recalculationRunRepository, never()).addProgress(any(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,97 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RewardLogArchiveTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    /**
+     * Given two log entries
+     * When they are archived
+     * Then a gzip-compressed file with one JSON line per entry is written
+     */
+    @Test
+    void testWriteArchiveFile(@TempDir final Path directory) throws IOException {
+        final RewardLogArchive archive = new RewardLogArchive(objectMapper, directory);
+        final List<RewardLogArchive.ArchivedLogEntry> entries = List.of(
+                new RewardLogArchive.ArchivedLogEntry(UUID.randomUUID(), UUID.randomUUID(),
+                        OffsetDateTime.parse("2024-01-10T08:00:00Z"), -10, 100, 90,
+                        RewardChangeReason.CONTENT_DUE_FOR_LEARNING, List.of(UUID.randomUUID()), 3),
+                new RewardLogArchive.ArchivedLogEntry(UUID.randomUUID(), UUID.randomUUID(),
+                        OffsetDateTime.parse("2024-01-10T09:00:00Z"), 10, 90, 100,
+                        RewardChangeReason.CONTENT_DONE, List.of(), 0));
+
+        final Path file = archive.write("2024-01-01-2024-01-11", entries);
+
+        assertThat(file.getFileName().toString(), is("reward-log-2024-01-01-2024-01-11.jsonl.gz"));
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertThat(files.toList(), contains(file));
+        }
+        final List<RewardLogArchive.ArchivedLogEntry> readEntries = readFile(file);
+        assertThat(readEntries, hasSize(2));
+        assertThat(readEntries.get(0).reason(), is(RewardChangeReason.CONTENT_DUE_FOR_LEARNING));
+        assertThat(readEntries.get(1).id(), is(entries.get(1).id()));
+    }
+
+    /**
+     * Given an archive file that was written by a run which failed afterwards
+     * When the entries are archived again under the same name, together with a new entry
+     * Then the file contains every entry exactly once
+     */
+    @Test
+    void testWriteArchiveFileAgainMergesEntries(@TempDir final Path directory) throws IOException {
+        final RewardLogArchive archive = new RewardLogArchive(objectMapper, directory);
+        final RewardLogArchive.ArchivedLogEntry first = new RewardLogArchive.ArchivedLogEntry(UUID.randomUUID(),
+                UUID.randomUUID(), OffsetDateTime.parse("2024-01-10T08:00:00Z"), -10, 100, 90,
+                RewardChangeReason.CONTENT_DUE_FOR_LEARNING, List.of(), 0);
+        final RewardLogArchive.ArchivedLogEntry second = new RewardLogArchive.ArchivedLogEntry(UUID.randomUUID(),
+                UUID.randomUUID(), OffsetDateTime.parse("2024-01-10T09:00:00Z"), 10, 90, 100,
+                RewardChangeReason.CONTENT_DONE, List.of(), 0);
+
+        archive.write("chunk", List.of(first));
+        final Path file = archive.write("chunk", List.of(first, second));
+
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertThat(files.toList(), contains(file));
+        }
+        assertThat(readFile(file).stream().map(RewardLogArchive.ArchivedLogEntry::id).toList(),
+                contains(first.id(), second.id()));
+    }
+
+    private List<RewardLogArchive.ArchivedLogEntry> readFile(final Path file) throws IOException {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(this::readEntry)
+                    .toList();
+        }
+    }
+
+    private RewardLogArchive.ArchivedLogEntry readEntry(final String line) {
+        try {
+            return objectMapper.readValue(line, RewardLogArchive.ArchivedLogEntry.class);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.generated.dto.RewardChangeReason;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RewardLogCompactorTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+    private static final OffsetDateTime UNTIL = OffsetDateTime.parse("2024-02-01T00:00:00Z");
+
+    /**
+     * Given three entries with the same reason on one day
+     * When the log is compacted
+     * Then they are replaced by one summary entry spanning all of them
+     */
+    @Test
+    void testEntriesOfOneDayAreSummarized() {
+        final UUID firstContent = UUID.randomUUID();
+        final UUID secondContent = UUID.randomUUID();
+        final List<RewardScoreLogEntry> log = List.of(
+                entry("2024-01-10T18:00:00Z", 95, 80, RewardChangeReason.CONTENT_DUE_FOR_LEARNING, secondContent),
+                entry("2024-01-10T08:00:00Z", 100, 90, RewardChangeReason.CONTENT_DUE_FOR_LEARNING, firstContent),
+                entry("2024-01-10T12:00:00Z", 90, 95, RewardChangeReason.CONTENT_DUE_FOR_LEARNING, firstContent));
+
+        final RewardLogCompactor.Compaction compaction = RewardLogCompactor.compact(log, FROM, UNTIL);
+
+        assertThat(compaction.removed(), containsInAnyOrder(log.toArray()));
+        assertThat(compaction.summaries(), hasSize(1));
+        final RewardScoreLogEntry summary = compaction.summaries().get(0);
+        assertThat(summary.getDate(), is(OffsetDateTime.parse("2024-01-10T18:00:00Z")));
+        assertThat(summary.getOldValue(), is(100));
+        assertThat(summary.getNewValue(), is(80));
+        assertThat(summary.getDifference(), is(-20));
+        assertThat(summary.getAssociatedContentIds(), contains(firstContent, secondContent));
+    }
+
+    /**
+     * Given entries on different days, with different reasons and outside the time range
+     * When the log is compacted
+     * Then none of them is compacted
+     */
+    @Test
+    void testSingleEntriesAreKept() {
+        final List<RewardScoreLogEntry> log = List.of(
+                entry("2024-01-10T08:00:00Z", 100, 90, RewardChangeReason.CONTENT_DUE_FOR_LEARNING),
+                entry("2024-01-10T09:00:00Z", 90, 100, RewardChangeReason.CONTENT_DONE),
+                entry("2024-01-11T08:00:00Z", 100, 90, RewardChangeReason.CONTENT_DUE_FOR_LEARNING),
+                entry("2024-02-01T08:00:00Z", 90, 80, RewardChangeReason.CONTENT_DUE_FOR_LEARNING),
+                entry("2024-02-01T09:00:00Z", 80, 70, RewardChangeReason.CONTENT_DUE_FOR_LEARNING));
+
+        final RewardLogCompactor.Compaction compaction = RewardLogCompactor.compact(log, FROM, UNTIL);
+
+        assertThat(compaction.removed(), is(empty()));
+        assertThat(compaction.summaries(), is(empty()));
+    }
+
+    /**
+     * Given consecutive power changes, partly within one window and interrupted by another reason
+     * When the log is coalesced
+     * Then the changes within a window are replaced by one entry at the date of the first of them
+     */
+    @Test
+    void testConsecutiveEntriesWithinWindowAreCoalesced() {
+        final RewardScoreLogEntry first = entry("2024-01-10T08:00:00Z", 10, 12, RewardChangeReason.COMPOSITE_VALUE);
+        final RewardScoreLogEntry second = entry("2024-01-10T20:00:00Z", 12, 11, RewardChangeReason.COMPOSITE_VALUE);
+        final RewardScoreLogEntry third = entry("2024-01-11T07:00:00Z", 11, 15, RewardChangeReason.COMPOSITE_VALUE);
+        final RewardScoreLogEntry afterWindow = entry("2024-01-11T09:00:00Z", 15, 16, RewardChangeReason.COMPOSITE_VALUE);
+        final RewardScoreLogEntry otherReason = entry("2024-01-11T10:00:00Z", 16, 20, RewardChangeReason.CONTENT_DONE);
+        final RewardScoreLogEntry afterOtherReason = entry("2024-01-11T11:00:00Z", 20, 21, RewardChangeReason.COMPOSITE_VALUE);
+        final List<RewardScoreLogEntry> log = List.of(afterOtherReason, third, first, otherReason, second, afterWindow);
+
+        final RewardLogCompactor.Compaction compaction = RewardLogCompactor.coalesce(log,
+                RewardChangeReason.COMPOSITE_VALUE, Duration.ofDays(1));
+
+        assertThat(compaction.removed(), containsInAnyOrder(first, second, third));
+        assertThat(compaction.summaries(), hasSize(1));
+
+        final RewardScoreLogEntry summary = compaction.summaries().get(0);
+        assertThat(summary.getDate(), is(first.getDate()));
+        assertThat(summary.getOldValue(), is(10));
+        assertThat(summary.getNewValue(), is(15));
+        assertThat(summary.getDifference(), is(5));
+        assertThat(summary.getReason(), is(RewardChangeReason.COMPOSITE_VALUE));
+    }
+
+    private static RewardScoreLogEntry entry(final String date, final int oldValue, final int newValue,
+                                             final RewardChangeReason reason, final UUID... contentIds) {
+        return RewardScoreLogEntry.builder()
+                .id(UUID.randomUUID())
+                .date(OffsetDateTime.parse(date))
+                .oldValue(oldValue)
+                .newValue(newValue)
+                .difference(newValue - oldValue)
+                .reason(reason)
+                .associatedContentIds(List.of(contentIds))
+                .build();
+    }
+}
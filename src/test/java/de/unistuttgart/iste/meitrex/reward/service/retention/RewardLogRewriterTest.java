@@ -0,0 +1,67 @@
+package de.unistuttgart.iste.meitrex.reward.service.retention;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.AllRewardScoresEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.RewardScoreLogEntry;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.AllRewardScoresRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoreLogEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RewardLogRewriterTest {
+
+    private final AllRewardScoresRepository allRewardScoresRepository = mock(AllRewardScoresRepository.class);
+    private final RewardScoreLogEntryRepository logEntryRepository = mock(RewardScoreLogEntryRepository.class);
+    private final RewardLogRewriter logRewriter = new RewardLogRewriter(allRewardScoresRepository, logEntryRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    private final AllRewardScoresEntity.PrimaryKey id
+            = new AllRewardScoresEntity.PrimaryKey(UUID.randomUUID(), UUID.randomUUID());
+
+    /**
+     * Given reward scores whose log is rewritten, e.g. by the log retention
+     * When the log is rewritten
+     * Then the rewrite happens on the locked entity, the removed entries are deleted in bulk
+     * and the reward scores are not saved
+     */
+    @Test
+    void testRewriteDeletesRemovedEntriesWithoutSaving() {
+        final AllRewardScoresEntity allRewardScoresEntity = new AllRewardScoresEntity();
+        final RewardScoreLogEntry removedEntry = RewardScoreLogEntry.builder().id(UUID.randomUUID()).build();
+        when(allRewardScoresRepository.findLockedById(id)).thenReturn(Optional.of(allRewardScoresEntity));
+
+        final int removedEntries = logRewriter.rewrite(id,
+                entity -> entity == allRewardScoresEntity ? List.of(removedEntry) : List.of());
+
+        assertThat(removedEntries, is(1));
+        verify(allRewardScoresRepository, never()).findById(any());
+        verify(allRewardScoresRepository, never()).save(any());
+        verify(allRewardScoresRepository).flush();
+        verify(logEntryRepository).deleteAssociatedContentIdsByEntryIdIn(List.of(removedEntry.getId()));
+        verify(logEntryRepository).deleteByIdIn(List.of(removedEntry.getId()));
+    }
+
+    /**
+     * Given reward scores whose log does not need to be rewritten
+     * When the log is rewritten
+     * Then nothing is deleted
+     */
+    @Test
+    void testRewriteWithoutChange() {
+        when(allRewardScoresRepository.findLockedById(id)).thenReturn(Optional.of(new AllRewardScoresEntity()));
+
+        assertThat(logRewriter.rewrite(id, entity -> List.of()), is(0));
+
+        verifyNoInteractions(logEntryRepository);
+        verify(allRewardScoresRepository, never()).save(any());
+    }
+}
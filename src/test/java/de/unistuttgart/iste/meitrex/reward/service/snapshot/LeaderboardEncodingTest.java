@@ -0,0 +1,70 @@
+package de.unistuttgart.iste.meitrex.reward.service.snapshot;
+
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.PowerGain;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LeaderboardEncodingTest {
+
+    /**
+     * Given a ranked list with positive, equal and negative gained power
+     * When it is encoded and decoded
+     * Then the same list is returned and each entry takes little more than its user id
+     */
+    @Test
+    void testRoundTrip() {
+        final List<PowerGain> entries = List.of(
+                new PowerGain(UUID.randomUUID(), 300),
+                new PowerGain(UUID.randomUUID(), 120),
+                new PowerGain(UUID.randomUUID(), 120),
+                new PowerGain(UUID.randomUUID(), -15));
+
+        final byte[] bytes = LeaderboardEncoding.encode(entries);
+
+        assertThat(LeaderboardEncoding.decode(bytes), is(entries));
+        assertThat(bytes.length, is(lessThanOrEqualTo(5 + entries.size() * 18)));
+    }
+
+    /**
+     * Given an empty list
+     * When it is encoded and decoded
+     * Then an empty list is returned
+     */
+    @Test
+    void testEmptyList() {
+        assertThat(LeaderboardEncoding.decode(LeaderboardEncoding.encode(List.of())), is(empty()));
+    }
+
+    /**
+     * Given a list that is not ordered by the gained power
+     * When it is encoded
+     * Then an IllegalArgumentException is thrown
+     */
+    @Test
+    void testEncodeRejectsUnorderedList() {
+        final List<PowerGain> entries = List.of(
+                new PowerGain(UUID.randomUUID(), 10),
+                new PowerGain(UUID.randomUUID(), 20));
+
+        assertThrows(IllegalArgumentException.class, () -> LeaderboardEncoding.encode(entries));
+    }
+
+    /**
+     * Given truncated bytes
+     * When they are decoded
+     * Then an IllegalArgumentException is thrown
+     */
+    @Test
+    void testDecodeRejectsTruncatedBytes() {
+        final byte[] bytes = LeaderboardEncoding.encode(List.of(new PowerGain(UUID.randomUUID(), 10)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> LeaderboardEncoding.decode(java.util.Arrays.copyOf(bytes, bytes.length - 4)));
+    }
+}
@@ -0,0 +1,189 @@
+package de.unistuttgart.iste.meitrex.reward.service.snapshot;
+
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardPeriod;
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardSnapshot;
+import de.unistuttgart.iste.meitrex.generated.dto.ScoreboardSnapshotEntry;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.LeaderboardSnapshotEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.LeaderboardSnapshotRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.PowerGain;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresSnapshotRepository;
+import de.unistuttgart.iste.meitrex.reward.service.retention.RetentionLease;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class LeaderboardSnapshotServiceTest {
+
+    private static final OffsetDateTime INITIAL_WATERMARK = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final UUID courseId = UUID.randomUUID();
+
+    private final LeaderboardSnapshotRepository leaderboardRepository = mock(LeaderboardSnapshotRepository.class);
+    private final RewardScoresSnapshotRepository snapshotRepository = mock(RewardScoresSnapshotRepository.class);
+    private final RetentionLease lease = mock(RetentionLease.class);
+    private final LeaderboardSnapshotService leaderboardService = new LeaderboardSnapshotService(leaderboardRepository,
+            snapshotRepository, lease, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    /**
+     * Given a Wednesday in the winter semester and the daily snapshots of the end of the last week
+     * When the leaderboards are taken
+     * Then the leaderboard of the last week is stored and the semester leaderboard waits for its end snapshot
+     */
+    @Test
+    void testTakeLeaderboardsOfLastWeek() {
+        final LocalDate wednesday = LocalDate.of(2024, 11, 13);
+        final LocalDate lastMonday = LocalDate.of(2024, 11, 4);
+        final LocalDate monday = LocalDate.of(2024, 11, 11);
+        final List<PowerGain> entries = List.of(new PowerGain(UUID.randomUUID(), 50));
+        when(lease.claim(startsWith(LeaderboardSnapshotService.WATERMARK_NAME_PREFIX)))
+                .thenReturn(Optional.of(INITIAL_WATERMARK));
+        when(lease.renew(any())).thenReturn(true);
+        when(snapshotRepository.findFirstSnapshotDateBetween(monday, wednesday)).thenReturn(Optional.of(monday));
+        when(snapshotRepository.findFirstSnapshotDateBetween(lastMonday, monday.minusDays(1)))
+                .thenReturn(Optional.of(lastMonday));
+        when(snapshotRepository.findCourseIdsWithSnapshot(monday)).thenReturn(List.of(courseId));
+        when(snapshotRepository.findPowerGainedInCourse(courseId, lastMonday, monday)).thenReturn(entries);
+
+        leaderboardService.takeLeaderboards(wednesday);
+
+        final ArgumentCaptor<LeaderboardSnapshotEntity> saved = ArgumentCaptor.forClass(LeaderboardSnapshotEntity.class);
+        verify(leaderboardRepository).save(saved.capture());
+        assertThat(saved.getValue().getId(),
+                is(new LeaderboardSnapshotEntity.PrimaryKey(courseId, ScoreboardPeriod.WEEK, lastMonday)));
+        assertThat(saved.getValue().getPeriodEnd(), is(monday));
+        assertThat(LeaderboardEncoding.decode(saved.getValue().getEntries()), is(entries));
+        verify(lease).complete("leaderboard-snapshot-week", monday.atStartOfDay().atOffset(ZoneOffset.UTC));
+        verify(lease).complete("leaderboard-snapshot-semester", INITIAL_WATERMARK);
+    }
+
+    /**
+     * Given leaderboards that were last taken two weeks ago and a missing snapshot at the end of the first week
+     * When the leaderboards are taken
+     * Then the leaderboards of both weeks are taken, using the next snapshot after the missing one
+     */
+    @Test
+    void testTakeLeaderboardsBackfillsMissedWeeks() {
+        final LocalDate wednesday = LocalDate.of(2024, 11, 13);
+        final LocalDate firstMonday = LocalDate.of(2024, 10, 28);
+        final LocalDate secondMonday = LocalDate.of(2024, 11, 4);
+        final LocalDate tuesdayAfterSecondMonday = LocalDate.of(2024, 11, 5);
+        final LocalDate monday = LocalDate.of(2024, 11, 11);
+        when(lease.claim("leaderboard-snapshot-week"))
+                .thenReturn(Optional.of(firstMonday.atStartOfDay().atOffset(ZoneOffset.UTC)));
+        when(lease.claim("leaderboard-snapshot-semester")).thenReturn(Optional.empty());
+        when(lease.renew(any())).thenReturn(true);
+        when(snapshotRepository.findFirstSnapshotDateBetween(secondMonday, wednesday))
+                .thenReturn(Optional.of(tuesdayAfterSecondMonday));
+        when(snapshotRepository.findFirstSnapshotDateBetween(firstMonday, secondMonday.minusDays(1)))
+                .thenReturn(Optional.of(firstMonday));
+        when(snapshotRepository.findFirstSnapshotDateBetween(monday, wednesday)).thenReturn(Optional.of(monday));
+        when(snapshotRepository.findFirstSnapshotDateBetween(secondMonday, monday.minusDays(1)))
+                .thenReturn(Optional.of(tuesdayAfterSecondMonday));
+        when(snapshotRepository.findCourseIdsWithSnapshot(tuesdayAfterSecondMonday)).thenReturn(List.of(courseId));
+        when(snapshotRepository.findCourseIdsWithSnapshot(monday)).thenReturn(List.of(courseId));
+
+        leaderboardService.takeLeaderboards(wednesday);
+
+        verify(snapshotRepository).findPowerGainedInCourse(courseId, firstMonday, tuesdayAfterSecondMonday);
+        verify(snapshotRepository).findPowerGainedInCourse(courseId, tuesdayAfterSecondMonday, monday);
+        verify(leaderboardRepository, times(2)).save(any());
+        verify(lease).complete("leaderboard-snapshot-week", monday.atStartOfDay().atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Given the first run, with a snapshot at the end of the last week but none during it
+     * When the leaderboards are taken
+     * Then the last week is skipped instead of ranking the users by their total power, and the next run continues
+     * with the current week
+     */
+    @Test
+    void testTakeLeaderboardsSkipsPeriodWithoutStartSnapshot() {
+        final LocalDate wednesday = LocalDate.of(2024, 11, 13);
+        final LocalDate monday = LocalDate.of(2024, 11, 11);
+        when(lease.claim("leaderboard-snapshot-week")).thenReturn(Optional.of(INITIAL_WATERMARK));
+        when(lease.claim("leaderboard-snapshot-semester")).thenReturn(Optional.empty());
+        when(snapshotRepository.findFirstSnapshotDateBetween(monday, wednesday)).thenReturn(Optional.of(monday));
+        when(snapshotRepository.findFirstSnapshotDateBetween(LocalDate.of(2024, 11, 4), monday.minusDays(1)))
+                .thenReturn(Optional.empty());
+
+        leaderboardService.takeLeaderboards(wednesday);
+
+        verify(snapshotRepository, never()).findPowerGainedInCourse(any(), any(), any());
+        verify(leaderboardRepository, never()).save(any());
+        verify(lease).complete("leaderboard-snapshot-week", monday.atStartOfDay().atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Given the leaderboards of the last week were already taken
+     * When the leaderboards are taken again
+     * Then no daily snapshots are read
+     */
+    @Test
+    void testTakeLeaderboardsSkipsCompletedPeriods() {
+        when(lease.claim(any())).thenReturn(Optional.of(LocalDate.of(2025, 1, 1).atStartOfDay().atOffset(ZoneOffset.UTC)));
+
+        leaderboardService.takeLeaderboards(LocalDate.of(2024, 11, 13));
+
+        verifyNoInteractions(snapshotRepository);
+        verify(leaderboardRepository, never()).save(any());
+    }
+
+    /**
+     * Given a stored leaderboard with a tie
+     * When the latest leaderboard of the course is read
+     * Then the entries are ranked with shared ranks and the last day of the period is returned
+     */
+    @Test
+    void testGetScoreboardSnapshot() {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final UUID third = UUID.randomUUID();
+        final LocalDate periodStart = LocalDate.of(2024, 11, 4);
+        when(leaderboardRepository.findFirstById_CourseIdAndId_PeriodOrderById_PeriodStartDesc(courseId, ScoreboardPeriod.WEEK))
+                .thenReturn(Optional.of(LeaderboardSnapshotEntity.builder()
+                        .id(new LeaderboardSnapshotEntity.PrimaryKey(courseId, ScoreboardPeriod.WEEK, periodStart))
+                        .periodEnd(periodStart.plusWeeks(1))
+                        .entries(LeaderboardEncoding.encode(List.of(
+                                new PowerGain(first, 40), new PowerGain(second, 40), new PowerGain(third, 10))))
+                        .build()));
+
+        final ScoreboardSnapshot snapshot = leaderboardService.getScoreboardSnapshot(courseId, ScoreboardPeriod.WEEK, null);
+
+        assertThat(snapshot.getPeriodEnd(), is(LocalDate.of(2024, 11, 10)));
+        assertThat(snapshot.getEntries(), contains(
+                new ScoreboardSnapshotEntry(first, 1, 40),
+                new ScoreboardSnapshotEntry(second, 1, 40),
+                new ScoreboardSnapshotEntry(third, 3, 10)));
+    }
+
+    /**
+     * Given days in the summer semester, the winter semester before and after new year
+     * When the start of the semester is calculated
+     * Then the semester starts on the first of April or October
+     */
+    @Test
+    void testCurrentSemesterStart() {
+        assertThat(LeaderboardSnapshotService.currentPeriodStart(ScoreboardPeriod.SEMESTER, LocalDate.of(2024, 6, 15)),
+                is(LocalDate.of(2024, 4, 1)));
+        assertThat(LeaderboardSnapshotService.currentPeriodStart(ScoreboardPeriod.SEMESTER, LocalDate.of(2024, 10, 1)),
+                is(LocalDate.of(2024, 10, 1)));
+        assertThat(LeaderboardSnapshotService.currentPeriodStart(ScoreboardPeriod.SEMESTER, LocalDate.of(2025, 2, 3)),
+                is(LocalDate.of(2024, 10, 1)));
+        assertThat(LeaderboardSnapshotService.previousPeriodStart(ScoreboardPeriod.SEMESTER, LocalDate.of(2024, 10, 1)),
+                is(LocalDate.of(2024, 4, 1)));
+    }
+}
@@ -0,0 +1,159 @@
+package de.unistuttgart.iste.meitrex.reward.service.statistics;
+
+import de.unistuttgart.iste.meitrex.generated.dto.*;
+import de.unistuttgart.iste.meitrex.reward.persistence.entity.CourseScoreStatisticsEntity;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.CourseScoreStatisticsRepository;
+import de.unistuttgart.iste.meitrex.reward.persistence.repository.RewardScoresViewRepository;
+import de.unistuttgart.iste.meitrex.reward.service.calculation.ScoreType;
+import de.unistuttgart.iste.meitrex.reward.service.event.RewardScoreValuesChangedEvent;
+import de.unistuttgart.iste.meitrex.reward.service.retention.RetentionLease;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+class CourseRewardStatisticsServiceTest {
+
+    private final UUID courseId = UUID.randomUUID();
+
+    private final CourseScoreStatisticsRepository statisticsRepository = mock(CourseScoreStatisticsRepository.class);
+    private final CourseRewardStatisticsService statisticsService = new CourseRewardStatisticsService(
+            statisticsRepository,
+            mock(RewardScoresViewRepository.class),
+            mock(RetentionLease.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    /**
+     * Given a user was initialized and their power then changed twice
+     * When the pending changes are flushed
+     * Then the stored histograms contain only the latest values, written with a single merge
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangesAreCoalescedAndMerged() {
+        when(statisticsRepository.findLockedByCourseId(courseId)).thenReturn(List.of());
+
+        statisticsService.onRewardScoreValuesChanged(new RewardScoreValuesChangedEvent(courseId, null, values(0)));
+        statisticsService.onRewardScoreValuesChanged(new RewardScoreValuesChangedEvent(courseId, values(0), values(40)));
+        statisticsService.onRewardScoreValuesChanged(new RewardScoreValuesChangedEvent(courseId, values(40), values(60)));
+        statisticsService.flush();
+        statisticsService.flush();
+
+        final ArgumentCaptor<Collection<CourseScoreStatisticsEntity>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(statisticsRepository, times(1)).saveAll(saved.capture());
+        final CourseScoreStatisticsEntity power = saved.getValue().stream()
+                .filter(statistics -> statistics.getId().getScoreType() == RewardScoreType.POWER)
+                .findAny()
+                .orElseThrow();
+        final ScoreHistogram histogram = ScoreHistogram.fromBytes(power.getHistogram());
+        assertThat(histogram.getTotalCount(), is(1L));
+        assertThat(histogram.getMean(), is(60.0));
+    }
+
+    /**
+     * Given writing the statistics of a course fails
+     * When the pending changes are flushed again
+     * Then the changes are written in the second attempt
+     */
+    @Test
+    void testFailedFlushIsRetried() {
+        when(statisticsRepository.findLockedByCourseId(courseId)).thenReturn(List.of());
+        when(statisticsRepository.saveAll(any())).thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(List.of());
+
+        statisticsService.onRewardScoreValuesChanged(new RewardScoreValuesChangedEvent(courseId, null, values(10)));
+        statisticsService.flush();
+        statisticsService.flush();
+
+        verify(statisticsRepository, times(2)).saveAll(any());
+    }
+
+    /**
+     * Given a change that is collected, after which another replica rebuilds the statistics of the course
+     * When the pending changes are flushed
+     * Then the change is dropped, because the rebuild already contains it
+     */
+    @Test
+    void testChangesContainedInRebuildAreDropped() {
+        final CourseScoreStatisticsEntity rebuilt = CourseScoreStatisticsEntity.builder()
+                .id(new CourseScoreStatisticsEntity.PrimaryKey(courseId, RewardScoreType.POWER))
+                .histogram(new ScoreHistogram().toBytes())
+                .rebuiltAt(OffsetDateTime.now().plusSeconds(2))
+                .build();
+        when(statisticsRepository.findLockedByCourseId(courseId)).thenReturn(List.of(rebuilt));
+
+        statisticsService.onRewardScoreValuesChanged(new RewardScoreValuesChangedEvent(courseId, null, values(10)));
+        statisticsService.flush();
+
+        verify(statisticsRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Given the stored histograms of a course with three users
+     * When the statistics of the course are queried
+     * Then the user count, average and median are read from the histograms
+     */
+    @Test
+    void testGetCourseRewardStatistics() {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(10, 1);
+        histogram.add(20, 1);
+        histogram.add(60, 1);
+        when(statisticsRepository.findAllByCourseId(courseId)).thenReturn(List.of(CourseScoreStatisticsEntity.builder()
+                .id(new CourseScoreStatisticsEntity.PrimaryKey(courseId, RewardScoreType.POWER))
+                .histogram(histogram.toBytes())
+                .build()));
+
+        final CourseRewardStatistics statistics = statisticsService.getCourseRewardStatistics(courseId);
+
+        assertThat(statistics.getUserCount(), is(3));
+        assertThat(statistics.getScores(), hasSize(RewardScoreType.values().length));
+        final RewardScoreStatistics power = statistics.getScores().stream()
+                .filter(score -> score.getScoreType() == RewardScoreType.POWER)
+                .findAny()
+                .orElseThrow();
+        assertThat(power.getAverage(), is(30.0));
+        assertThat(power.getMedian(), is(20.0));
+    }
+
+    /**
+     * Given the stored power histogram of a course without a stored health histogram
+     * When the percentile ranks of a power and a health value are requested
+     * Then the histograms are read once and only the percentile rank of power is returned
+     */
+    @Test
+    void testGetPercentileRanks() {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(10, 1);
+        histogram.add(20, 1);
+        histogram.add(60, 2);
+        when(statisticsRepository.findAllByCourseId(courseId)).thenReturn(List.of(CourseScoreStatisticsEntity.builder()
+                .id(new CourseScoreStatisticsEntity.PrimaryKey(courseId, RewardScoreType.POWER))
+                .histogram(histogram.toBytes())
+                .build()));
+        final ScoreValue power = new ScoreValue(courseId, RewardScoreType.POWER, 20);
+        final ScoreValue health = new ScoreValue(courseId, RewardScoreType.HEALTH, 100);
+
+        final Map<ScoreValue, Double> percentileRanks = statisticsService.getPercentileRanks(List.of(power, health));
+
+        assertThat(percentileRanks, is(Map.of(power, 37.5)));
+        verify(statisticsRepository, times(1)).findAllByCourseId(courseId);
+    }
+
+    private static Map<ScoreType, Integer> values(final int power) {
+        final Map<ScoreType, Integer> values = new EnumMap<>(ScoreType.class);
+        values.put(ScoreType.HEALTH, 100);
+        values.put(ScoreType.FITNESS, 100);
+        values.put(ScoreType.GROWTH, 0);
+        values.put(ScoreType.STRENGTH, 0);
+        values.put(ScoreType.POWER, power);
+        return values;
+    }
+}
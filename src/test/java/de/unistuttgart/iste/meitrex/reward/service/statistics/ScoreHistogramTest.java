@@ -0,0 +1,113 @@
+package de.unistuttgart.iste.meitrex.reward.service.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScoreHistogramTest {
+
+    /**
+     * Given the values 1 to 100
+     * When the mean and quantiles are calculated
+     * Then the mean is exact and the quantiles are within the relative error of the buckets
+     */
+    @Test
+    void testQuantilesAreWithinRelativeError() {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.add(value, 1);
+        }
+
+        assertThat(histogram.getTotalCount(), is(100L));
+        assertThat(histogram.getMean(), is(50.5));
+        assertThat(histogram.getValueAtQuantile(0.5), is(closeTo(50, 50.0 / ScoreHistogram.SUB_BUCKET_COUNT)));
+        assertThat(histogram.getValueAtQuantile(0.9), is(closeTo(90, 90.0 / ScoreHistogram.SUB_BUCKET_COUNT)));
+        assertThat(histogram.getValueAtQuantile(0.1), is(10.0));
+    }
+
+    /**
+     * Given two histograms with the values of two replicas, one of which removes a value
+     * When they are merged
+     * Then the result equals a histogram with only the remaining values
+     */
+    @Test
+    void testMergeWithRemovedValues() {
+        final ScoreHistogram stored = new ScoreHistogram();
+        stored.add(10, 1);
+        stored.add(20, 1);
+        final ScoreHistogram delta = new ScoreHistogram();
+        delta.add(10, -1);
+        delta.add(1000, 1);
+
+        stored.merge(delta);
+
+        assertThat(stored.getTotalCount(), is(2L));
+        assertThat(stored.getMean(), is(510.0));
+        assertThat(stored.getValueAtQuantile(0.5), is(20.0));
+        assertThat(stored.getValueAtQuantile(1), is(closeTo(1000, 1000.0 / ScoreHistogram.SUB_BUCKET_COUNT)));
+    }
+
+    /**
+     * Given a histogram with values in several buckets
+     * When it is serialized and deserialized
+     * Then the deserialized histogram has the same statistics
+     */
+    @Test
+    void testSerializationRoundTrip() {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(0, 3);
+        histogram.add(75, 2);
+        histogram.add(Integer.MAX_VALUE, 1);
+
+        final ScoreHistogram deserialized = ScoreHistogram.fromBytes(histogram.toBytes());
+
+        assertThat(deserialized.getTotalCount(), is(6L));
+        assertThat(deserialized.getMean(), is(histogram.getMean()));
+        assertThat(deserialized.getValueAtQuantile(0.75), is(histogram.getValueAtQuantile(0.75)));
+        assertThat(deserialized.toBytes(), is(histogram.toBytes()));
+    }
+
+    /**
+     * Given the values 1 to 10 and an empty histogram
+     * When the percentile ranks are calculated
+     * Then values of the same bucket are counted half and the empty histogram has no percentile rank
+     */
+    @Test
+    void testPercentileRank() {
+        final ScoreHistogram histogram = new ScoreHistogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.add(value, 1);
+        }
+
+        assertThat(histogram.getPercentileRank(9), is(85.0));
+        assertThat(histogram.getPercentileRank(0), is(0.0));
+        assertThat(histogram.getPercentileRank(1000), is(100.0));
+        assertThat(new ScoreHistogram().getPercentileRank(50), is(nullValue()));
+    }
+
+    /**
+     * Given bytes that are no serialized histogram
+     * When they are deserialized
+     * Then an IllegalArgumentException is thrown
+     */
+    @Test
+    void testFromBytesRejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> ScoreHistogram.fromBytes(new byte[]{42}));
+    }
+
+    /**
+     * Given all bucket indexes
+     * When the value range of a bucket is calculated
+     * Then each value lies in the range of its bucket
+     */
+    @Test
+    void testValuesLieInTheirBucket() {
+        for (final int value : new int[]{0, 15, 16, 17, 31, 32, 100, 12345, Integer.MAX_VALUE}) {
+            final int index = ScoreHistogram.indexOf(value);
+            assertThat(ScoreHistogram.lowestValueOf(index), is(lessThanOrEqualTo((long) value)));
+            assertThat(ScoreHistogram.highestValueOf(index), is(greaterThanOrEqualTo((long) value)));
+        }
+    }
+}